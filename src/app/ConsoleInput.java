@@ -0,0 +1,46 @@
+package app;
+
+import model.InputSource;
+
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * InputSource that reads commands and prompt answers from the terminal.
+ * A single Scanner is shared so buffered input is never lost between prompts.
+ */
+public class ConsoleInput implements InputSource {
+    private final Scanner scanner = new Scanner(System.in);
+
+    @Override
+    public String nextCommand() {
+        return readLine();
+    }
+
+    @Override
+    public String answer(Prompt prompt) {
+        return readLine();
+    }
+
+    /**
+     * Reads one trimmed line from standard input.
+     * @return the line, or null if input is closed or unreadable
+     */
+    private String readLine() {
+        try {
+            if (scanner.hasNextLine()) {
+                return scanner.nextLine().trim();
+            }
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // Fall through and report no input
+        }
+        return null;
+    }
+
+    /**
+     * Closes the underlying scanner.
+     */
+    public void close() {
+        scanner.close();
+    }
+}
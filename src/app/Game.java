@@ -1,23 +1,16 @@
 package app;
 
 import model.*;
+import util.Metrics;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.*;
 
 /**
  * Main class for launching the AdventureGame.
- * Handles session creation, file copying, and game loop control.
+ * Handles session creation, room discovery, and game loop control.
  */
 public class Game {
-    private static Room currentRoom;  // The currently active room
-    private static Hero hero;         // The player's hero
-    private static Map<String, Room> roomCache = new HashMap<>(); // Cached rooms to preserve state
+    private static GameSession session; // The terminal session started by main
 
 
     /**
@@ -25,7 +18,7 @@ public class Game {
      * @param room the Room object to set as current
      */
     public static void setCurrentRoom(Room room) {
-        currentRoom = room;
+        session.setCurrentRoom(room);
     }
 
     /**
@@ -33,24 +26,18 @@ public class Game {
      * @return the Room the hero is currently in
      */
     public static Room getCurrentRoom() {
-        return currentRoom;
+        return session.getCurrentRoom();
     }
 
     /**
      * Retrieves a Room from cache or loads it from file if not yet loaded.
      * This preserves room state (e.g., items, monsters) across visits.
      *
-     * @param filename full path to the room CSV file
+     * @param filename room file name or path to the room CSV file
      * @return the Room instance (from cache or loaded fresh)
      */
     public static Room getRoom(String filename) {
-        if (!roomCache.containsKey(filename)) {
-            Room loaded = Room.loadFromCSV(filename);
-            if (loaded != null) {
-                roomCache.put(filename, loaded);
-            }
-        }
-        return roomCache.get(filename);
+        return session.getRoom(filename);
     }
 
     /**
@@ -58,86 +45,106 @@ public class Game {
      * Initializes session files, loads first room, and starts the main game loop.
      */
     public static void main(String[] args) {
-        // Create session directory (if it doesn't exist)
-        File sessionDir = new File("sessions/active_session");
-        if (!sessionDir.exists()) {
-            boolean created = sessionDir.mkdirs();
-            if (!created) {
-                System.out.println("[ERROR] Failed to create session directory. Exiting the game.");
-                return;
-            }
+        String sessionDir = "sessions/active_session";
+        boolean journal = Boolean.parseBoolean(System.getProperty("game.journal", "true"));
+        boolean resume = journal && SessionJournal.exists(sessionDir); // The last game was quit or interrupted
+
+        // Rooms come from the manifest or the rooms folder; the session directory only
+        // receives copies of the rooms that change
+        RoomManifest world;
+        try {
+            world = RoomManifest.load("rooms");
+        } catch (IOException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+            return;
+        }
+        if (!resume && !GameSession.prepareSessionDir("rooms", sessionDir)) {
+            return;
         }
 
-        // Copy original room files into the session directory
-        String[] roomFiles = { "room1.csv", "room2.csv", "room3.csv", "room4.csv" };
-        for (String file : roomFiles) {
-            Path source = Paths.get("rooms", file);
-            Path dest = Paths.get("sessions/active_session/", file);
+        boolean monsters = Boolean.parseBoolean(System.getProperty("game.monsters", "true"));
+        int radius = Integer.getInteger("game.monsters.radius", MonsterScheduler.DEFAULT_RADIUS);
+        int budget = Integer.getInteger("game.monsters.budget", MonsterScheduler.DEFAULT_BUDGET);
+        long chunkedBytes = Long.getLong("game.chunked.bytes", 8L << 20); // Page large rooms around the hero
+        int residentChunks = Integer.getInteger("game.chunk.resident", Room.DEFAULT_RESIDENT_CHUNKS);
+
+        // Record every command and answer, so the game can be replayed (see sim.ReplayRunner)
+        ConsoleInput console = new ConsoleInput();
+        InputSource input = console;
+        InputLog.Recorder recorder = null;
+        if (Boolean.parseBoolean(System.getProperty("game.record", "true"))) {
+            String logPath = sessionDir + "/" + InputLog.FILE;
             try {
-                Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+                recorder = resume
+                        ? InputLog.resume(logPath, console)
+                        : InputLog.record(logPath, new InputLog.Settings(world.getStartRoom(), monsters, radius, budget,
+                                chunkedBytes, residentChunks), console);
+                input = recorder;
             } catch (IOException e) {
-                System.out.println("[ERROR] Could not copy " + file + ". Please make sure the file exists in the 'rooms' folder.");
-                return; // Exit if any room file cannot be copied
+                System.out.println("[WARNING] Input is not recorded: " + e.getMessage());
             }
         }
 
-        // Load the initial room and place the hero
-        currentRoom = Room.loadFromCSV("sessions/active_session/room1.csv");
-        if (currentRoom == null) {
-            System.out.println("[ERROR] Failed to load the initial room. Make sure 'room1.csv' is valid.");
+        session = new GameSession("rooms", sessionDir, input, System.out);
+        session.setChunking(chunkedBytes, residentChunks);
+        if (journal && !session.enableJournal(Long.getLong("game.journal.bytes", 64 * 1024), !resume)) {
+            return;
+        }
+        if (resume) {
+            // Continue the interrupted game from its journal
+            if (!session.resume()) {
+                System.out.println("[ERROR] Could not resume the last session. Delete '" + sessionDir + "' to start over.");
+                return;
+            }
+            System.out.println("Resumed your last game.");
+        } else if (!session.start(world.getStartRoom())) {
+            // Load the initial room and place the hero
+            System.out.println("[ERROR] Failed to load the initial room. Make sure '" + world.getStartRoom() + "' is valid.");
             return;
         }
 
-        hero = new Hero();
-        currentRoom.placeHero(hero);
-
-        Scanner scanner = new Scanner(System.in);
-        boolean running = true;
+        if (monsters) {
+            session.enableMonsters(radius, budget);
+        }
+        session.enableWriteBehind(); // Door transitions never wait for disk I/O
+        session.setCacheLimits(Integer.getInteger("game.cache.rooms", 64),
+                Long.getLong("game.cache.bytes", 256L * 1024 * 1024));
+        session.enablePrefetch(Integer.getInteger("game.prefetch.distance", 1),
+                Integer.getInteger("game.prefetch.threads", 2)); // Load rooms behind doors ahead of time
+
+        // Session gauges, and a periodic metrics dump next to the saved rooms
+        Runtime runtime = Runtime.getRuntime();
+        Metrics.gauge("room.cache.rooms", () -> session.getRoomCache().size());
+        Metrics.gauge("room.cache.bytes", () -> session.getRoomCache().getEstimatedBytes());
+        Metrics.gauge("jvm.heap.used", () -> runtime.totalMemory() - runtime.freeMemory());
+        long interval = Long.getLong("game.metrics.interval", 10);
+        MetricsWriter metrics = (interval > 0) ? new MetricsWriter(sessionDir, interval * 1000) : null;
 
         // Main game loop
-        while (running) {
-            System.out.println("\nAdventureGame");
-            hero.printStats();                // Display HP, weapon, and key status
-            getCurrentRoom().displayRoom();   // Render the current room
-
-            System.out.print("Enter command (u/d/l/r to move, a to attack, q to quit): ");
-            String input = "";
+        session.run(true);
+        if (recorder != null) {
+            recorder.close(session.stateHash(), session.getTurns()); // Replays check they end the same way
+        }
 
-            try {
-                if (scanner.hasNextLine()) {
-                    input = scanner.nextLine().trim();
-                } else {
-                    System.out.println("[ERROR] No input detected. Exiting game.");
-                    break;
-                }
-            } catch (NoSuchElementException | IllegalStateException e) {
-                System.out.println("[ERROR] Problem reading input. Exiting game.");
-                break;
+        // Flush pending room saves with a bounded wait
+        session.close(5000);
+        if (metrics != null) {
+            metrics.close();
+        }
+        if (Boolean.getBoolean("game.persist.stats")) {
+            System.out.println(session.getSaver().getStats());
+            System.out.println(session.getRoomCache().getStats());
+            if (session.getPrefetcher() != null) {
+                System.out.println(session.getPrefetcher().getStats());
             }
-
-            // Process player command
-            switch (input) {
-                case "u": case "d": case "l": case "r":
-                    hero.move(input.charAt(0), currentRoom);  // Move in specified direction
-                    break;
-                case "a":
-                    hero.attack(Game.getCurrentRoom());        // Attack adjacent monster
-                    break;
-                case "q":
-                    System.out.println("Quitting the game.");
-                    running = false;
-                    break;
-                default:
-                    System.out.println("Invalid command. Please try again.");
+            if (session.getJournal() != null) {
+                System.out.println(session.getJournal().getStats());
             }
-
-            // Game ends if hero dies
-            if (hero.getHp() <= 0) {
-                System.out.println("You died. Game Over.");
-                running = false;
+            if (session.getMonsters() != null) {
+                System.out.println(session.getMonsters().getStats());
             }
         }
 
-        scanner.close(); // Clean up scanner
+        console.close(); // Clean up scanner
     }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package app;
+
+import model.RoomRenderer;
+import util.Metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Hosts many players in one process over TCP. Every connection gets its own GameSession
+ * with its own session directory (sessions/player-N), so players never share room state,
+ * and runs on its own thread (see SessionThreads). Sessions read the rooms directory and
+ * copy a room into their own directory only once it changes. The rooms and the start room
+ * come from the rooms directory (see RoomManifest) unless --start is given.
+ *
+ * The protocol is the terminal game as plain text: the server sends frames, messages, and
+ * prompts; the player sends one line per command or prompt answer. Try it with "nc localhost 4000".
+ *
+ * Usage:
+ *   java app.GameServer [--port N] [--rooms DIR] [--sessions DIR] [--start FILE]
+ *                       [--max-sessions N] [--keep true|false] [--monsters true|false]
+ *
+ * Session directories are deleted when the player disconnects unless --keep is true.
+ * Monsters move on their own (see MonsterScheduler) unless --monsters is false.
+ */
+public class GameServer {
+    private int port = 4000;
+    private String roomsDir = "rooms";
+    private String sessionsRoot = "sessions";
+    private String startRoom = null; // The manifest's first room unless given
+    private int maxSessions = 10_000;
+    private boolean keep = false;
+    private boolean monsters = true;
+    private RoomManifest world;
+
+    // Metrics
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+
+    public static void main(String[] args) {
+        GameServer server = new GameServer();
+        try {
+            server.parseArgs(args);
+            server.run();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(value); break;
+                case "--rooms": roomsDir = value; break;
+                case "--sessions": sessionsRoot = value; break;
+                case "--start": startRoom = value; break;
+                case "--max-sessions": maxSessions = Integer.parseInt(value); break;
+                case "--keep": keep = Boolean.parseBoolean(value); break;
+                case "--monsters": monsters = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Accepts connections until the process is stopped.
+     */
+    public void run() throws IOException {
+        // Every session reads the original rooms and keeps copies of the ones that change
+        world = RoomManifest.load(roomsDir);
+        if (startRoom == null) {
+            startRoom = world.getStartRoom();
+        }
+
+        ExecutorService executor = SessionThreads.newExecutor("session");
+        Thread status = new Thread(this::printStatusLoop, "server-status");
+        status.setDaemon(true);
+        status.start();
+
+        // Metrics of all sessions together, dumped to the sessions directory
+        Metrics.gauge("server.sessions.active", active::get);
+        Metrics.gauge("server.sessions.peak", peak::get);
+        Files.createDirectories(Paths.get(sessionsRoot));
+        MetricsWriter metrics = new MetricsWriter(sessionsRoot, 10_000);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            metrics.close();
+            System.out.println(getStats());
+        }));
+
+        try (ServerSocket server = new ServerSocket(port, 1024)) {
+            System.out.println("[server] Listening on port " + port + " with " + SessionThreads.describe()
+                    + ", " + world.size() + " rooms from '" + roomsDir + "'");
+            while (true) {
+                Socket socket = server.accept();
+                if (active.get() >= maxSessions) {
+                    rejected.increment();
+                    try (Socket s = socket) {
+                        s.getOutputStream().write("Server is full. Try again later.\n".getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        // The player is gone anyway
+                    }
+                    continue;
+                }
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                executor.execute(() -> serve(socket));
+            }
+        }
+    }
+
+    /**
+     * Plays one session for a connected player.
+     */
+    private void serve(Socket socket) {
+        String sessionDir = sessionsRoot + "/player-" + nextId.incrementAndGet();
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true); // Prompts are small and latency-sensitive
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(new BufferedOutputStream(s.getOutputStream(), 8192), false, StandardCharsets.UTF_8);
+
+            if (!GameSession.prepareSessionDir(roomsDir, sessionDir)) {
+                out.println("[ERROR] Could not create your session. Please try again later.");
+                out.flush();
+                return;
+            }
+            GameSession session = new GameSession(roomsDir, sessionDir, new RemoteInput(in, out), out);
+            if (!session.start(startRoom)) {
+                out.println("[ERROR] Failed to load the initial room.");
+                out.flush();
+                return;
+            }
+            session.setCacheLimits(16, 16L * 1024 * 1024);
+            if (monsters) {
+                session.enableMonsters(MonsterScheduler.DEFAULT_RADIUS, MonsterScheduler.DEFAULT_BUDGET);
+            }
+            session.setRenderer(new RoomRenderer(out, false)); // Plain frames: the terminal is unknown
+
+            session.run(true);
+            session.close(5000);
+            out.flush();
+            turns.add(session.getTurns());
+        } catch (IOException e) {
+            // Connection dropped; the session simply ends
+        } finally {
+            active.decrementAndGet();
+            finished.increment();
+            if (!keep) {
+                deleteDir(Paths.get(sessionDir));
+            }
+        }
+    }
+
+    /**
+     * Removes a session directory and everything in it.
+     */
+    private static void deleteDir(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not delete " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints a status line every 10 seconds while sessions come and go.
+     */
+    private void printStatusLoop() {
+        String last = "";
+        while (true) {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                return;
+            }
+            String stats = getStats();
+            if (!stats.equals(last)) {
+                System.out.println(stats);
+                last = stats;
+            }
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the server's sessions.
+     */
+    public String getStats() {
+        return String.format("[server] active %d (peak %d) | finished %d | rejected %d | turns %d",
+                active.get(), peak.get(), finished.sum(), rejected.sum(), turns.sum());
+    }
+}
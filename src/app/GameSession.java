@@ -0,0 +1,740 @@
+package app;
+
+import model.*;
+import util.Histogram;
+import util.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the state of one running game: the hero, the current room,
+ * the room cache, and where decisions come from and output goes to.
+ * Game.main drives one session from the terminal; the batch simulator
+ * drives many sessions headlessly.
+ */
+public class GameSession {
+    private static final Histogram TURN = Metrics.histogram("turn");
+    private static final LongAdder TURNS = Metrics.counter("turns");
+
+    private final String roomsDir;    // Directory with the pristine room files
+    private final String sessionDir;  // Directory for saved room state, or null for in-memory sessions
+    private final InputSource input;  // Where commands and prompt answers come from
+    private final PrintStream out;    // Where game messages are written
+    private Room.Storage storage = Room.Storage.OBJECTS; // Tile storage for loaded rooms
+    private long chunkedBytes = 8L << 20; // CSV rooms at least this large are opened chunked
+    private int residentChunks = Room.DEFAULT_RESIDENT_CHUNKS; // Chunks in memory per chunked room
+
+    private final RoomCache roomCache = new RoomCache(this::writeRoom); // Cached rooms to preserve state
+    private volatile Room currentRoom; // Pinned in the cache with the rooms behind its doors
+    private final Set<String> visited = new TreeSet<>(); // Rooms entered this session, by file name
+    private Hero hero;
+    private boolean escaped = false;
+    private boolean quit = false;
+    private long turns = 0;
+    private long promptNanos = 0;     // Time spent waiting for prompt answers
+    private RoomRenderer renderer;    // Created on the first rendered frame
+    private WriteBehindSaver saver;   // Background room writer, or null to save synchronously
+    private RoomPrefetcher prefetcher; // Background loader of neighbouring rooms, or null
+    private SessionJournal journal;    // Append-only event log in the session directory, or null
+    private MonsterScheduler monsters; // Moves monsters after every hero action, or null when they stay put
+
+    /**
+     * Creates a session.
+     * @param roomsDir directory containing the original room CSV files
+     * @param sessionDir directory where room state is saved, or null to keep everything in memory
+     * @param input source of commands and prompt answers
+     * @param out stream for game messages
+     */
+    public GameSession(String roomsDir, String sessionDir, InputSource input, PrintStream out) {
+        this.roomsDir = roomsDir;
+        this.sessionDir = sessionDir;
+        this.input = input;
+        this.out = out;
+    }
+
+    /**
+     * Creates an empty session directory for a new game. Rooms are read from the rooms
+     * directory until they change, so nothing is copied; room copies left in the directory
+     * by an earlier game are deleted, since they would hide the pristine rooms.
+     * @param roomsDir directory with the original room files (never emptied)
+     * @param sessionDir directory to create
+     * @return true if the directory is ready
+     */
+    public static boolean prepareSessionDir(String roomsDir, String sessionDir) {
+        File dir = new File(sessionDir);
+        if (!dir.exists() && !dir.mkdirs()) {
+            System.out.println("[ERROR] Failed to create session directory. Exiting the game.");
+            return false;
+        }
+        try {
+            if (Files.isSameFile(dir.toPath(), Paths.get(roomsDir))) {
+                System.out.println("[ERROR] The session directory must not be the rooms folder '" + roomsDir + "'.");
+                return false;
+            }
+        } catch (IOException e) {
+            // No rooms folder; rooms will fail to load with their own message
+        }
+
+        File[] stale = dir.listFiles((d, name) -> name.endsWith(".csv") || name.endsWith(".room")
+                || name.endsWith(".chunks") || name.endsWith(".tmp"));
+        for (File file : (stale != null) ? stale : new File[0]) {
+            if (!file.delete()) {
+                System.out.println("[ERROR] Could not remove " + file.getName() + " left by an earlier game.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the first room and places a new hero in it.
+     * @param firstRoom file name of the starting room (e.g., "room1.csv")
+     * @return true if the session is ready to play
+     */
+    public boolean start(String firstRoom) {
+        currentRoom = getRoom(firstRoom);
+        if (currentRoom == null) {
+            return false;
+        }
+        visited.add(new File(currentRoom.getFileName()).getName());
+        hero = new Hero();
+        hero.setSession(this);
+        currentRoom.placeHero(hero);
+        if (journal != null) {
+            journal.entered(currentRoom);
+            journal.endTurn();
+        }
+        return true;
+    }
+
+    /**
+     * Records every game event in an append-only journal in the session directory.
+     * Call it before start() or resume().
+     * @param compactBytes journal size after which it is folded into the game snapshot
+     * @param fresh true to discard a journal left by an earlier session
+     * @return true if the journal is open
+     */
+    public boolean enableJournal(long compactBytes, boolean fresh) {
+        if (sessionDir == null) {
+            return false;
+        }
+        SessionJournal opened = new SessionJournal(this, sessionDir, compactBytes);
+        try {
+            opened.open(fresh);
+        } catch (IOException e) {
+            out.println("[ERROR] Could not open the session journal: " + e.getMessage());
+            return false;
+        }
+        journal = opened;
+        return true;
+    }
+
+    /**
+     * Restores an interrupted session from the game snapshot, journal, and room files
+     * in the session directory, instead of starting a new game.
+     * @return true if the session is ready to play
+     */
+    public boolean resume() {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            return journal.replay() != null && currentRoom != null;
+        } catch (IOException e) {
+            out.println("[ERROR] Could not read the session journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Puts a replayed hero back into the game.
+     */
+    void restore(Hero hero, Room room) {
+        this.hero = hero;
+        setCurrentRoom(room);
+    }
+
+    /**
+     * Retrieves a Room from cache or loads it from file if not yet loaded.
+     * This preserves room state (e.g., items, monsters) across visits:
+     * rooms evicted from a bounded cache were saved to the session directory
+     * and are reloaded from there.
+     *
+     * @param filename room file name (e.g., "room2.csv") or a path
+     * @return the Room instance (from cache or loaded fresh), or null if loading failed
+     */
+    public Room getRoom(String filename) {
+        Room room = roomCache.get(filename);
+        if (room == null && prefetcher != null) {
+            room = prefetcher.awaitInFlight(filename); // Already being loaded in the background
+        }
+        if (room == null) {
+            room = loadIntoCache(filename);
+        }
+        return room;
+    }
+
+    /**
+     * Retrieves the room behind a door and records whether prefetching had it ready.
+     * @param filename room file name (e.g., "room2.csv")
+     * @return the Room instance, or null if loading failed
+     */
+    public Room enterRoom(String filename) {
+        if (prefetcher == null) {
+            return getRoom(filename);
+        }
+        Room room = roomCache.get(filename);
+        boolean cached = room != null;
+        boolean waited = false;
+        if (room == null) {
+            room = prefetcher.awaitInFlight(filename);
+            waited = room != null;
+        }
+        if (room == null) {
+            room = loadIntoCache(filename);
+        }
+        prefetcher.recordTransition(cached, waited);
+        return room;
+    }
+
+    /**
+     * Loads a room from disk and adds it to the cache, evicting other rooms if needed.
+     * Called on the game thread; if another thread cached the room first, that instance
+     * is returned instead.
+     * @param filename room file name (e.g., "room2.csv") or a path
+     * @return the cached Room instance, or null if loading failed
+     */
+    Room loadIntoCache(String filename) {
+        return loadIntoCache(filename, true);
+    }
+
+    /**
+     * Loads a room ahead of time on a prefetch thread. Prefetching never evicts: the room
+     * is only loaded and cached while the cache has free space, so evictions (and the saves
+     * they start) stay on the game thread.
+     * @param filename room file name (e.g., "room2.csv")
+     * @return the cached Room instance, or null if it was not loaded or did not fit
+     */
+    Room prefetchIntoCache(String filename) {
+        if (!roomCache.hasFreeSpace()) {
+            return null;
+        }
+        return loadIntoCache(filename, false);
+    }
+
+    private Room loadIntoCache(String filename, boolean evict) {
+        Room room = read(filename);
+        if (room == null) {
+            return null;
+        }
+        if (journal != null) {
+            room.setTileListener(journal);
+        }
+        return evict ? roomCache.putIfAbsent(filename, room, currentRoom) : roomCache.putIfFree(filename, room);
+    }
+
+    /**
+     * Reads a room's latest saved state without caching it: from the game snapshot, the
+     * session copy, or the pristine file, once any save of it in progress is written.
+     * @return the room, or null if loading failed
+     */
+    private Room read(String filename) {
+        roomCache.awaitEvicted(filename); // Its save must be queued before the files are read
+        if (saver != null && sessionDir != null) {
+            // An evicted room may still be on its way to its session copy
+            String copy = copyPathFor(filename);
+            saver.awaitWritten(copy, 5000);
+            saver.awaitWritten(Room.binaryPathFor(copy), 5000);
+        }
+        Room room = loadSaved(filename);
+        return (room != null) ? room : load(resolve(filename));
+    }
+
+    /**
+     * Bounds the room cache. Only sessions with a session directory can evict rooms,
+     * since evicted rooms are saved there; in-memory sessions stay unbounded.
+     * @param maxRooms maximum number of cached rooms
+     * @param maxBytes maximum estimated heap bytes of cached rooms
+     */
+    public void setCacheLimits(int maxRooms, long maxBytes) {
+        if (sessionDir != null) {
+            roomCache.setLimits(maxRooms, maxBytes);
+        }
+    }
+
+    /**
+     * Loads a room from the journal's game snapshot, which holds the rooms as of the last
+     * compaction (and is newer than their files unless a room was saved since).
+     * @return the room, or null if the snapshot does not hold it
+     */
+    private Room loadSaved(String filename) {
+        if (journal == null || storage == Room.Storage.CHUNKED || filename.contains("/")) {
+            return null;
+        }
+        try {
+            Room room = journal.loadSaved(filename, storage);
+            if (room != null) {
+                room.setFileName(copyPathFor(filename));
+            }
+            return room;
+        } catch (IOException e) {
+            out.println("[ERROR] Failed to load room " + filename + " from the game snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads a room, preferring its binary file when one exists and is not older than the CSV.
+     * Large CSV rooms (and all rooms with CHUNKED storage) are opened chunked instead; their
+     * changes go to a copy of the chunk file in the session directory, made on the first
+     * write, or stay in memory without a session directory. With a session directory every
+     * room is named after its session copy, wherever it was read from.
+     * @param csvPath path of the room's CSV file (which need not exist for a saved copy)
+     */
+    private Room load(String csvPath) {
+        File csv = new File(csvPath);
+        boolean chunkedCopy = !csv.exists() && new File(Room.chunkPathFor(csvPath)).exists();
+        if (storage == Room.Storage.CHUNKED || csv.length() >= chunkedBytes || chunkedCopy) {
+            if (sessionDir == null) {
+                return Room.loadChunked(csvPath, false, residentChunks);
+            }
+            String copy = copyPathFor(new File(csvPath).getName());
+            return copy.equals(csvPath)
+                    ? Room.loadChunked(csvPath, true, residentChunks)
+                    : Room.loadChunked(csvPath, copy, residentChunks);
+        }
+        File binary = new File(Room.binaryPathFor(csvPath));
+        Room room = (binary.exists() && (!csv.exists() || binary.lastModified() >= csv.lastModified()))
+                ? Room.loadFromBinary(binary.getPath(), storage)
+                : Room.loadFromCSV(csvPath, storage);
+        if (room != null && sessionDir != null) {
+            // Name a pristine room after its copy, so the hero's remembered positions
+            // (keyed by file name) still match once the room has been saved
+            room.setFileName(copyPathFor(csv.getName()));
+        }
+        return room;
+    }
+
+    /**
+     * Saves a room's state when the hero leaves it. With a journal the room file is left
+     * alone, since every change is already in the journal.
+     * @param room the room to save
+     */
+    public void saveRoom(Room room) {
+        if (journal == null) {
+            writeRoom(room);
+        }
+    }
+
+    /**
+     * Writes a room's state to the session directory, in the format it was loaded from.
+     * With write-behind enabled, only a snapshot is taken here and the file is written
+     * on the saver's thread. In-memory sessions keep state only in the room cache.
+     * @param room the room to save
+     */
+    private void writeRoom(Room room) {
+        if (sessionDir == null) {
+            return;
+        }
+        if (room.isChunked()) {
+            room.flushChunks(); // Only the changed chunks are written
+            return;
+        }
+        if (!room.isModified()) {
+            return; // Still as loaded, so no copy is needed
+        }
+        room.markSaved();
+        String name = new File(room.getFileName()).getName();
+        String savePath = copyPathFor(name);
+        boolean binary = !savePath.endsWith(".csv");
+        if (journal != null) {
+            journal.roomCopied(name); // The copy is newer than the game snapshot
+        }
+        if (saver != null) {
+            saver.submit(savePath, room.snapshot(), binary);
+        } else if (binary) {
+            room.saveToBinary(savePath);
+        } else {
+            room.saveToCSV(savePath);
+        }
+    }
+
+    /**
+     * Records that the hero remembered its position in a room (it stepped onto a door).
+     * @param roomKey the key the hero stores the position under
+     */
+    public void positionSaved(String roomKey, int row, int col) {
+        if (journal != null) {
+            journal.positionSaved(roomKey, row, col);
+        }
+    }
+
+    /**
+     * Switches room saves to a background writer thread.
+     */
+    public void enableWriteBehind() {
+        if (saver == null) {
+            saver = new WriteBehindSaver();
+        }
+    }
+
+    /**
+     * Starts loading the rooms behind the current room's doors in the background.
+     * @param maxDistance how many doors away from the current room to prefetch
+     * @param threads number of loader threads
+     */
+    public void enablePrefetch(int maxDistance, int threads) {
+        if (prefetcher == null && maxDistance > 0 && threads > 0) {
+            prefetcher = new RoomPrefetcher(this, maxDistance, threads);
+            if (currentRoom != null) {
+                prefetcher.roomEntered(currentRoom);
+            }
+        }
+    }
+
+    /**
+     * Lets monsters move on their own: they pursue the hero when near and wander otherwise.
+     * @param radius distance from the hero within which monsters act every turn
+     * @param budget far monsters of the current room moved per turn
+     */
+    public void enableMonsters(int radius, int budget) {
+        monsters = new MonsterScheduler(radius, budget);
+    }
+
+    /**
+     * Ends the session: stops prefetching, cancelling chunk file builds in progress so none
+     * is left half-written, then waits a bounded time for pending room saves.
+     * @param timeoutMillis maximum time to wait for saves (prefetches get at least a second)
+     * @return true if all saves were written
+     */
+    public boolean close(long timeoutMillis) {
+        if (prefetcher != null && !prefetcher.shutdown(Math.max(timeoutMillis, 1000))) {
+            out.println("[WARNING] Some room prefetches did not stop before exit.");
+        }
+        boolean done = true;
+        if (saver != null) {
+            done = saver.close(timeoutMillis);
+            if (!done) {
+                out.println("[WARNING] Some room saves did not finish before exit.");
+            }
+        }
+        if (journal != null) {
+            // A won or lost game leaves nothing to resume; a quit one is saved for next time
+            journal.close(escaped || hero == null || hero.getHp() <= 0);
+        }
+        return done;
+    }
+
+    /**
+     * Turns a room file name into the path it is loaded from: the session's copy if the room
+     * was saved there (as CSV, binary, or chunks), else the pristine file in the rooms directory.
+     */
+    private String resolve(String filename) {
+        if (filename.contains("/")) {
+            return filename;
+        }
+        if (sessionDir != null) {
+            String copy = copyPathFor(filename);
+            if (new File(copy).exists() || new File(Room.binaryPathFor(copy)).exists()
+                    || new File(Room.chunkPathFor(copy)).exists()) {
+                return copy;
+            }
+        }
+        return roomsDir + "/" + filename;
+    }
+
+    /**
+     * Returns where a room's copy lives in the session directory.
+     */
+    private String copyPathFor(String filename) {
+        return sessionDir + "/" + filename;
+    }
+
+    /**
+     * Processes a single player command. Only moves, attacks, and travels take a turn; quitting,
+     * stats, and invalid commands do not advance the game.
+     * The time taken is recorded as turn latency, without the time spent waiting for prompt answers.
+     * @param command the command (u/d/l/r to move, g to travel, a to attack, stats for metrics, q to quit)
+     */
+    public void step(String command) {
+        long start = System.nanoTime();
+        long prompted = promptNanos;
+        boolean acted = false;
+        switch (command) {
+            case "u": case "d": case "l": case "r":
+                hero.move(command.charAt(0), currentRoom);  // Move in specified direction
+                acted = true;
+                break;
+            case "a":
+                hero.attack(currentRoom);                    // Attack adjacent monster
+                acted = true;
+                break;
+            case "q":
+                out.println("Quitting the game.");
+                quit = true;
+                break;
+            case "stats":
+                out.print(Metrics.report());                 // Latencies, counters, and gauges
+                break;
+            default:
+                if (command.equals("g") || command.startsWith("g ") || command.startsWith("g:")) {
+                    acted = travel(command.substring(1));       // Auto-travel along a route
+                } else {
+                    out.println("Invalid command. Please try again.");
+                }
+        }
+
+        if (acted) {
+            turns++;
+            TURNS.increment();
+        }
+        // Monsters answer every action, in whichever room the hero ended up
+        if (acted && monsters != null && !isOver()) {
+            monsters.tick(currentRoom, hero.getRow(), hero.getCol(), turns);
+        }
+
+        // Game ends if hero dies
+        if (hero.getHp() <= 0) {
+            out.println("You died. Game Over.");
+        }
+        if (journal != null) {
+            journal.endTurn();
+        }
+        TURN.record(System.nanoTime() - start - (promptNanos - prompted));
+    }
+
+    /**
+     * Asks the player a yes/no question and waits for the answer.
+     * @param prompt the kind of question (its text was already printed)
+     * @return the raw answer, or null if none could be read
+     */
+    public String ask(InputSource.Prompt prompt) {
+        long start = System.nanoTime();
+        try {
+            return input.answer(prompt);
+        } finally {
+            promptNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Walks the hero along a route found by the room's PathFinder.
+     * Targets: "ROW COL" (or "ROW,COL"), "door" for the nearest door, "item" for the nearest item.
+     * One-token forms such as "g:door" or "g:3,4" work too, for scripts.
+     * @param target the text after the "g" command
+     * @return true if the hero set out along a route, false if there was none to follow
+     */
+    private boolean travel(String target) {
+        String[] parts = target.replaceFirst("^[\\s:]+", "").split("[\\s:,]+");
+        PathFinder paths = currentRoom.getPathFinder();
+        int[] route;
+        if (parts[0].equals("door")) {
+            route = paths.routeToNearest(PathFinder.Target.DOORS, hero.getRow(), hero.getCol());
+        } else if (parts[0].equals("item")) {
+            route = paths.routeToNearest(PathFinder.Target.ITEMS, hero.getRow(), hero.getCol());
+        } else if (parts.length == 2) {
+            int r, c;
+            try {
+                r = Integer.parseInt(parts[0]);
+                c = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                out.println("Usage: g <row> <col> | g door | g item");
+                return false;
+            }
+            if (r < 0 || r >= currentRoom.getRows() || c < 0 || c >= currentRoom.getCols()) {
+                out.println("That tile is outside the room.");
+                return false;
+            }
+            route = paths.findPath(hero.getRow(), hero.getCol(), r, c);
+        } else {
+            out.println("Usage: g <row> <col> | g door | g item");
+            return false;
+        }
+
+        if (route == null) {
+            // Large rooms are only searched around the hero
+            out.println(paths.isWindowed() ? "No route found nearby." : "No route found.");
+            return false;
+        }
+        out.println("Travelling " + route.length + (route.length == 1 ? " step." : " steps."));
+        hero.travel(route, currentRoom);
+        return true;
+    }
+
+    /**
+     * Runs the game loop until the hero dies, escapes, quits, or input runs out.
+     * @param render whether to print stats, the room, and the command prompt each turn
+     */
+    public void run(boolean render) {
+        run(render, Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the game loop for at most the given number of turns.
+     * @param render whether to print stats, the room, and the command prompt each turn
+     * @param maxTurns turn limit for this call
+     */
+    public void run(boolean render, long maxTurns) {
+        long limit = turns + maxTurns;
+        while (!isOver() && turns < limit) {
+            if (render) {
+                if (renderer == null) {
+                    renderer = new RoomRenderer(out, RoomRenderer.detectAnsi());
+                }
+                // Render the title, hero stats, and the current room as one frame
+                renderer.render(currentRoom, hero.getRow(), hero.getCol(), "AdventureGame", hero.getStatsLine());
+                out.print("Enter command (u/d/l/r to move, g to travel, a to attack, q to quit): ");
+            }
+
+            String command = input.nextCommand();
+            if (command == null) {
+                out.println("[ERROR] No input detected. Exiting game.");
+                break;
+            }
+            step(command);
+        }
+        if (renderer != null) {
+            renderer.finish();
+        }
+    }
+
+    /**
+     * Returns a hash of the game state: the hero's stats, tile, and room, the turn count, and
+     * the state of every room entered this session (see Room.stateHash). Two sessions fed the
+     * same input from the same start hash the same; replays use it to check they match.
+     * Rooms entered but since evicted are read from their saved state without being cached,
+     * so hashing neither loads nor evicts rooms.
+     */
+    public long stateHash() {
+        Weapon weapon = hero.getWeapon();
+        long hash = hero.getHp();
+        hash = hash * 31 + (weapon != null ? weapon.getType() : 0);
+        hash = hash * 31 + (hero.hasKey() ? 1 : 0);
+        hash = hash * 31 + hero.getRow();
+        hash = hash * 31 + hero.getCol();
+        hash = hash * 31 + new File(currentRoom.getFileName()).getName().hashCode();
+        hash = hash * 31 + (escaped ? 1 : 0);
+        hash = hash * 31 + turns;
+        Map<String, Room> cached = roomCache.entries();
+        for (String name : visited) {
+            Room room = cached.containsKey(name) ? cached.get(name) : read(name);
+            hash = hash * 31 + name.hashCode();
+            hash = hash * 31 + (room != null ? room.stateHash() : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Marks the session as won (hero escaped through the Master Door).
+     */
+    public void escape() {
+        escaped = true;
+    }
+
+    /**
+     * Checks whether the game has ended.
+     * @return true if the hero died, escaped, or the player quit
+     */
+    public boolean isOver() {
+        return escaped || quit || hero.getHp() <= 0;
+    }
+
+    // === Getters and Setters ===
+
+    public Room getCurrentRoom() {
+        return currentRoom;
+    }
+
+    public void setCurrentRoom(Room room) {
+        currentRoom = room;
+        if (room != null) {
+            visited.add(new File(room.getFileName()).getName());
+        }
+        if (journal != null && room != null) {
+            journal.entered(room);
+        }
+        if (prefetcher != null && room != null) {
+            prefetcher.roomEntered(room);
+        }
+    }
+
+    public Hero getHero() {
+        return hero;
+    }
+
+    public InputSource getInput() {
+        return input;
+    }
+
+    public void setStorage(Room.Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Sets when rooms are opened with chunked storage.
+     * @param minBytes CSV file size from which a room is opened chunked
+     * @param maxResident chunks each chunked room keeps in memory
+     */
+    public void setChunking(long minBytes, int maxResident) {
+        this.chunkedBytes = minBytes;
+        this.residentChunks = maxResident;
+    }
+
+    public RoomCache getRoomCache() {
+        return roomCache;
+    }
+
+    public WriteBehindSaver getSaver() {
+        return saver;
+    }
+
+    public RoomPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    public SessionJournal getJournal() {
+        return journal;
+    }
+
+    public MonsterScheduler getMonsters() {
+        return monsters;
+    }
+
+    public RoomRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Sets the renderer used by run(true), e.g., to force plain frames for a remote player.
+     */
+    public void setRenderer(RoomRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public PrintStream out() {
+        return out;
+    }
+
+    public boolean hasEscaped() {
+        return escaped;
+    }
+
+    public long getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the total time spent waiting for prompt answers, in nanoseconds.
+     */
+    public long getPromptNanos() {
+        return promptNanos;
+    }
+}
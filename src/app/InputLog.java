@@ -0,0 +1,401 @@
+package app;
+
+import model.InputSource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes input logs: every command and prompt answer a game read, in order, so the
+ * game can be replayed exactly (see sim.ReplayRunner). The engine is deterministic, so the
+ * input, the rooms, and the settings below are all a replay needs. When a game ends (quit,
+ * escape, death, or end of input) the log gets the state hash and turn count of the session,
+ * which a replay checks; a game resumed later appends to the same log.
+ *
+ * Layout (big-endian, strings as in DataOutputStream.writeUTF):
+ *   int    magic          'INPT'
+ *   short  version        1
+ *   short  reserved       0
+ *   str    start room
+ *   byte   monsters       0/1, then int radius, int budget
+ *   long   chunkedBytes   CSV rooms at least this large are opened chunked
+ *   int    residentChunks
+ *   records, one tag byte each:
+ *     0x20-0x7E           a one-character command (the tag itself, e.g. 'u' or 'a')
+ *     0x01 str            any other command (e.g. "g door")
+ *     0x02 byte str       answer to a prompt (Prompt ordinal)
+ *     0x03 byte           no answer to a prompt (input closed)
+ *     0x00                no command (input closed)
+ *     0x10 long long      session ended: state hash, turns
+ *     0x11                session resumed from its save
+ * A log cut off by a crash ends at the last complete record.
+ */
+public class InputLog {
+    static final int MAGIC = 0x494E5054; // "INPT"
+    static final short VERSION = 1;
+    static final String FILE = "input.rec";
+
+    private static final byte NO_COMMAND = 0x00;
+    private static final byte COMMAND = 0x01;
+    private static final byte ANSWER = 0x02;
+    private static final byte NO_ANSWER = 0x03;
+    private static final byte END = 0x10;
+    private static final byte RESUME = 0x11;
+
+    private static final String[] CHARS = new String[128]; // One-character commands, shared
+    static {
+        for (char c = 0x20; c < 0x7F; c++) {
+            CHARS[c] = String.valueOf(c);
+        }
+    }
+
+    /**
+     * Game settings that change how a game plays, recorded so a replay uses the same ones.
+     */
+    public static class Settings {
+        public final String startRoom;
+        public final boolean monsters;
+        public final int radius;
+        public final int budget;
+        public final long chunkedBytes;
+        public final int residentChunks;
+
+        public Settings(String startRoom, boolean monsters, int radius, int budget,
+                        long chunkedBytes, int residentChunks) {
+            this.startRoom = startRoom;
+            this.monsters = monsters;
+            this.radius = radius;
+            this.budget = budget;
+            this.chunkedBytes = chunkedBytes;
+            this.residentChunks = residentChunks;
+        }
+    }
+
+    // === Recording ===
+
+    /**
+     * InputSource that passes another source's input through and logs it.
+     * Every record is flushed before the game acts on it, so a crash loses nothing it played.
+     */
+    public static class Recorder implements InputSource {
+        private final InputSource input;
+        private final DataOutputStream out;
+        private long records = 0;
+
+        private Recorder(InputSource input, DataOutputStream out) {
+            this.input = input;
+            this.out = out;
+        }
+
+        @Override
+        public String nextCommand() {
+            String command = input.nextCommand();
+            try {
+                if (command == null) {
+                    out.writeByte(NO_COMMAND);
+                } else if (command.length() == 1 && command.charAt(0) >= 0x20 && command.charAt(0) < 0x7F) {
+                    out.writeByte(command.charAt(0));
+                } else {
+                    out.writeByte(COMMAND);
+                    out.writeUTF(command);
+                }
+                out.flush();
+                records++;
+            } catch (IOException e) {
+                System.out.println("[ERROR] Failed to write the input log: " + e.getMessage());
+            }
+            return command;
+        }
+
+        @Override
+        public String answer(Prompt prompt) {
+            String answer = input.answer(prompt);
+            try {
+                out.writeByte(answer != null ? ANSWER : NO_ANSWER);
+                out.writeByte(prompt.ordinal());
+                if (answer != null) {
+                    out.writeUTF(answer);
+                }
+                out.flush();
+                records++;
+            } catch (IOException e) {
+                System.out.println("[ERROR] Failed to write the input log: " + e.getMessage());
+            }
+            return answer;
+        }
+
+        /**
+         * Ends the log of a session with its state, then closes the file.
+         * @param stateHash the session's state hash (see GameSession.stateHash)
+         * @param turns the session's turn count
+         */
+        public void close(long stateHash, long turns) {
+            try {
+                out.writeByte(END);
+                out.writeLong(stateHash);
+                out.writeLong(turns);
+                out.close();
+            } catch (IOException e) {
+                System.out.println("[ERROR] Failed to write the input log: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Returns the number of commands and answers recorded.
+         */
+        public long getRecords() {
+            return records;
+        }
+    }
+
+    /**
+     * Starts a new log for a new game, replacing any earlier one.
+     * @param path log file
+     * @param settings the game's settings
+     * @param input where the game's input comes from
+     * @throws IOException if the log cannot be created
+     */
+    public static Recorder record(String path, Settings settings, InputSource input) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 8192));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeUTF(settings.startRoom);
+        out.writeBoolean(settings.monsters);
+        out.writeInt(settings.radius);
+        out.writeInt(settings.budget);
+        out.writeLong(settings.chunkedBytes);
+        out.writeInt(settings.residentChunks);
+        out.flush();
+        return new Recorder(input, out);
+    }
+
+    /**
+     * Continues the log of a game that is being resumed.
+     * @param path log file of the game
+     * @param input where the game's input comes from
+     * @throws IOException if the log does not exist or cannot be written
+     */
+    public static Recorder resume(String path, InputSource input) throws IOException {
+        InputLog log = read(path); // Also checks that the log is readable up to here
+        if (log.cutOff) {
+            try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE)) {
+                channel.truncate(log.length); // Drop the record a crash cut off
+            }
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path, true), 8192));
+        out.writeByte(RESUME);
+        out.flush();
+        return new Recorder(input, out);
+    }
+
+    // === Reading ===
+
+    /**
+     * One logged record: a command, an answer, or a session event.
+     */
+    public static final class Record {
+        private final byte tag;
+        private final String text;    // Command or answer, or null
+        private final long stateHash; // END only
+        private final long turns;     // END only
+
+        Record(byte tag, String text, long stateHash, long turns) {
+            this.tag = tag;
+            this.text = text;
+            this.stateHash = stateHash;
+            this.turns = turns;
+        }
+
+        /**
+         * Checks whether this record ends a session (the other session event is a resume).
+         */
+        public boolean isEnd() {
+            return tag == END;
+        }
+
+        public long getStateHash() {
+            return stateHash;
+        }
+
+        public long getTurns() {
+            return turns;
+        }
+    }
+
+    private final Settings settings;
+    private final List<Record> records;
+    private final boolean cutOff; // The last record was incomplete (a crash while writing)
+    private final long length;    // Bytes up to the end of the last complete record
+
+    private InputLog(Settings settings, List<Record> records, boolean cutOff, long length) {
+        this.settings = settings;
+        this.records = records;
+        this.cutOff = cutOff;
+        this.length = length;
+    }
+
+    /**
+     * Reads a whole log into memory.
+     * @throws IOException if the file cannot be read or is not an input log
+     */
+    public static InputLog read(String path) throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(path));
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        try (DataInputStream in = new DataInputStream(bytes)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an input log: " + path);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported input log version " + version + ": " + path);
+            }
+            in.readShort(); // reserved
+            String startRoom = in.readUTF();
+            boolean monsters = in.readBoolean();
+            Settings settings = new Settings(startRoom, monsters, in.readInt(), in.readInt(), in.readLong(), in.readInt());
+
+            List<Record> records = new ArrayList<>();
+            long length = data.length - bytes.available();
+            int tag;
+            try {
+                while ((tag = in.read()) >= 0) {
+                    records.add(readRecord(in, (byte) tag));
+                    length = data.length - bytes.available();
+                }
+            } catch (EOFException e) {
+                return new InputLog(settings, records, true, length);
+            }
+            return new InputLog(settings, records, false, length);
+        } catch (EOFException e) {
+            throw new IOException("Input log header is cut off: " + path);
+        }
+    }
+
+    private static Record readRecord(DataInputStream in, byte tag) throws IOException {
+        if (tag >= 0x20 && tag < 0x7F) {
+            return new Record(COMMAND, CHARS[tag], 0, 0);
+        }
+        switch (tag) {
+            case NO_COMMAND: case RESUME:
+                return new Record(tag, null, 0, 0);
+            case COMMAND:
+                return new Record(tag, in.readUTF(), 0, 0);
+            case ANSWER:
+                in.readByte(); // Prompt kind, for readers of the log
+                return new Record(tag, in.readUTF(), 0, 0);
+            case NO_ANSWER:
+                in.readByte();
+                return new Record(tag, null, 0, 0);
+            case END:
+                return new Record(tag, null, in.readLong(), in.readLong());
+            default:
+                throw new IOException("Invalid input log record " + tag);
+        }
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the number of commands and answers in the log.
+     */
+    public int getInputCount() {
+        int count = 0;
+        for (Record record : records) {
+            if (record.tag != END && record.tag != RESUME) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the game was resumed at least once during the log.
+     */
+    public boolean hasResumes() {
+        for (Record record : records) {
+            if (record.tag == RESUME) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a player that feeds the log's input back to a game.
+     */
+    public Player player() {
+        return new Player();
+    }
+
+    // === Replaying ===
+
+    /**
+     * InputSource that returns the logged commands and answers, in order. A session's run
+     * stops at the end of its logged input; nextEvent() then tells how the session ended.
+     */
+    public class Player implements InputSource {
+        private int next = 0;
+
+        private Player() {
+        }
+
+        @Override
+        public String nextCommand() {
+            if (next < records.size()) {
+                Record record = records.get(next);
+                if (record.tag == COMMAND || record.tag == NO_COMMAND) {
+                    next++;
+                    return record.text;
+                }
+            }
+            return null; // A session event, or the end of the log
+        }
+
+        @Override
+        public String answer(Prompt prompt) {
+            if (next < records.size()) {
+                Record record = records.get(next);
+                if (record.tag == ANSWER || record.tag == NO_ANSWER) {
+                    next++;
+                    return record.text;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Skips to the next session event and returns it.
+         * @return the END or RESUME record, or null at the end of the log
+         */
+        public Record nextEvent() {
+            while (next < records.size()) {
+                Record record = records.get(next++);
+                if (record.tag == END || record.tag == RESUME) {
+                    return record;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the number of records not yet played.
+         */
+        public int getRemaining() {
+            return records.size() - next;
+        }
+    }
+}
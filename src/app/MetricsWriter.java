@@ -0,0 +1,76 @@
+package app;
+
+import util.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes all metrics as JSON to a file (e.g., sessions/active_session/metrics.json)
+ * every few seconds on a background thread, and once more when closed.
+ * The file is replaced atomically, so readers never see a partial dump.
+ */
+public class MetricsWriter {
+    private final Path file;
+    private final long intervalMillis;
+    private final Thread worker;
+    private volatile boolean closed = false;
+
+    /**
+     * Starts writing metrics periodically.
+     * @param dir directory for metrics.json
+     * @param intervalMillis time between dumps
+     */
+    public MetricsWriter(String dir, long intervalMillis) {
+        this.file = Paths.get(dir, "metrics.json");
+        this.intervalMillis = intervalMillis;
+        worker = new Thread(this::runWorker, "metrics-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void runWorker() {
+        while (!closed) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            write();
+        }
+    }
+
+    /**
+     * Writes the current metrics now.
+     * @return true if the file was written
+     */
+    public boolean write() {
+        Path temp = Paths.get(file + ".tmp");
+        try {
+            Files.write(temp, Metrics.toJson(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not write metrics: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops the periodic dumps and writes a final one.
+     */
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        write();
+    }
+}
@@ -0,0 +1,356 @@
+package app;
+
+import model.GameObject;
+import model.Monster;
+import model.Room;
+import model.SpatialIndex;
+import util.Histogram;
+import util.Metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves a session's monsters once per turn, at a cost that depends on the area around the
+ * hero rather than on how many monsters the game holds.
+ *
+ * Monsters within the activity radius of the hero (Chebyshev distance) pursue the hero every
+ * turn, stopping once they are next to the hero; combat is still started by the hero.
+ * The rest of the current room is swept a few buckets of its monster index per turn, so each
+ * far monster wanders now and then. Rooms the hero is not in are not ticked at all: a monster
+ * remembers the turn it last moved, and when the sweep or the active region reaches it, it
+ * makes up for the missed turns (up to MAX_CATCH_UP random steps, taken as one move).
+ *
+ * Each turn is two phases. Moves are planned against the room as it was at the start of the
+ * turn, in parallel on the fork-join pool when many monsters are due. They are then applied
+ * one by one in tile order; a move whose target was taken by an earlier monster is dropped.
+ * Wandering is driven by a hash of the turn and tile, so the outcome depends only on the
+ * game state, never on thread timing.
+ */
+public class MonsterScheduler {
+    /** Default activity radius in tiles. */
+    public static final int DEFAULT_RADIUS = 8;
+    /** Default number of far monsters moved per turn. */
+    public static final int DEFAULT_BUDGET = 32;
+
+    private static final Histogram TICK = Metrics.histogram("monsters.tick");
+    private static final LongAdder MOVES = Metrics.counter("monsters.moves");
+
+    static final int MAX_CATCH_UP = 8;           // Wander steps a far monster makes up for at most
+    private static final int PARALLEL_MIN = 512; // Monsters due in one turn before planning goes parallel
+    private static final int PARTITION = 128;    // Monsters planned by one fork-join task
+    private static final int[] DR = { -1, 1, 0, 0 };
+    private static final int[] DC = { 0, 0, -1, 1 };
+
+    private final int radius;
+    private final int budget;
+    private final Map<Room, int[]> cursors = new WeakHashMap<>(); // Next bucket of each room's sweep
+
+    // Statistics
+    private long ticks = 0;
+    private long activeUpdates = 0;
+    private long lazyUpdates = 0;
+    private long moves = 0;
+    private long blocked = 0;
+    private long parallelTicks = 0;
+
+    /**
+     * Creates a scheduler.
+     * @param radius distance from the hero within which monsters pursue every turn
+     * @param budget far monsters of the current room moved per turn (0 to leave them alone)
+     */
+    public MonsterScheduler(int radius, int budget) {
+        this.radius = Math.max(1, radius);
+        this.budget = Math.max(0, budget);
+    }
+
+    /**
+     * Monsters due in one turn, with their plans.
+     */
+    private static class Batch {
+        long[] keys = new long[64];        // tile << 4 | wander steps (0 to pursue), sorted before planning
+        Monster[] monsters;                // Monster on each tile when the turn started
+        int[] targets;                     // Planned target tile, or -1 to stay
+        int size = 0;
+
+        void add(int tile, int steps) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = (long) tile << 4 | steps;
+        }
+
+        static int tile(long key) {
+            return (int) (key >>> 4);
+        }
+
+        static int steps(long key) {
+            return (int) (key & 15);
+        }
+    }
+
+    /**
+     * Moves the monsters of the room the hero is in. Call it once per turn, after the hero acted.
+     * @param room the hero's room
+     * @param heroRow the hero's row
+     * @param heroCol the hero's column
+     * @param turn the session's turn number (increasing)
+     */
+    public void tick(Room room, int heroRow, int heroCol, long turn) {
+        long start = System.nanoTime();
+        Batch batch = new Batch();
+        gatherActive(room, heroRow, heroCol, batch);
+        int active = batch.size;
+        if (budget > 0 && !room.isShared()) {
+            gatherFar(room, heroRow, heroCol, turn, batch);
+        }
+        if (batch.size == 0) {
+            ticks++;
+            TICK.recordSince(start);
+            return;
+        }
+
+        // Tile order makes the plans and their resolution independent of index history
+        Arrays.sort(batch.keys, 0, batch.size);
+        batch.monsters = new Monster[batch.size];
+        for (int i = 0; i < batch.size; i++) {
+            int tile = Batch.tile(batch.keys[i]);
+            GameObject obj = room.getObject(tile / room.getCols(), tile % room.getCols());
+            batch.monsters[i] = (obj instanceof Monster) ? (Monster) obj : null; // Another hero's kill in a shared room
+        }
+
+        // Plan: reads only (never paging chunks in), so large batches are split across the pool
+        batch.targets = new int[batch.size];
+        if (batch.size >= PARALLEL_MIN && !room.isShared()) {
+            ForkJoinPool.commonPool().invoke(new PlanTask(room, heroRow, heroCol, turn, batch, 0, batch.size));
+            parallelTicks++;
+        } else {
+            plan(room, heroRow, heroCol, turn, batch, 0, batch.size);
+        }
+
+        // Apply in tile order; the first monster to claim a tile gets it
+        int cols = room.getCols();
+        for (int i = 0; i < batch.size; i++) {
+            Monster monster = batch.monsters[i];
+            int target = batch.targets[i];
+            if (monster == null) {
+                continue;
+            }
+            monster.setLastTick(turn);
+            if (target < 0) {
+                continue;
+            }
+            int tile = Batch.tile(batch.keys[i]);
+            int fromRow = tile / cols, fromCol = tile % cols;
+            int toRow = target / cols, toCol = target % cols;
+            room.lock(fromRow, fromCol, toRow, toCol);
+            try {
+                if (room.getObject(fromRow, fromCol) == monster && room.moveObject(fromRow, fromCol, toRow, toCol)) {
+                    moves++;
+                    MOVES.increment();
+                } else {
+                    blocked++;
+                }
+            } finally {
+                room.unlock(fromRow, fromCol, toRow, toCol);
+            }
+        }
+
+        ticks++;
+        activeUpdates += active;
+        lazyUpdates += batch.size - active;
+        TICK.recordSince(start);
+    }
+
+    // === Gathering ===
+
+    /**
+     * Adds the monsters within the activity radius. A shared room's index may change under
+     * other heroes, so its tiles are read instead.
+     */
+    private void gatherActive(Room room, int heroRow, int heroCol, Batch batch) {
+        int cols = room.getCols();
+        if (!room.isShared()) {
+            room.getMonsterIndex().forEachWithin(heroRow, heroCol, radius,
+                    (r, c, monster) -> batch.add(r * cols + c, 0));
+            return;
+        }
+        for (int r = Math.max(0, heroRow - radius); r <= Math.min(room.getRows() - 1, heroRow + radius); r++) {
+            for (int c = Math.max(0, heroCol - radius); c <= Math.min(cols - 1, heroCol + radius); c++) {
+                if (room.getObject(r, c) instanceof Monster) {
+                    batch.add(r * cols + c, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds up to the budget of far monsters, continuing the room's sweep where it stopped.
+     * At most four buckets per budgeted monster are looked at, so sparse rooms stay cheap too.
+     */
+    private void gatherFar(Room room, int heroRow, int heroCol, long turn, Batch batch) {
+        SpatialIndex<Monster> index = room.getMonsterIndex();
+        int buckets = index.getBucketCount();
+        int[] cursor = cursors.computeIfAbsent(room, r -> new int[1]);
+        int cols = room.getCols();
+        int limit = batch.size + budget;
+        SpatialIndex.Visitor<Monster> visitor = (r, c, monster) -> {
+            boolean near = Math.max(Math.abs(r - heroRow), Math.abs(c - heroCol)) <= radius;
+            if (!near && monster.getLastTick() < turn) {
+                batch.add(r * cols + c, (int) Math.min(turn - monster.getLastTick(), MAX_CATCH_UP));
+            }
+        };
+        for (int seen = 0; seen < buckets && seen < budget * 4 && batch.size < limit; seen++) {
+            cursor[0] = (cursor[0] + 1) % buckets;
+            index.forEachInBucket(cursor[0], visitor);
+        }
+    }
+
+    // === Planning ===
+
+    /**
+     * Plans the moves of batch entries [from, to).
+     */
+    private static void plan(Room room, int heroRow, int heroCol, long turn, Batch batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (batch.monsters[i] == null) {
+                batch.targets[i] = -1;
+                continue;
+            }
+            int tile = Batch.tile(batch.keys[i]);
+            int steps = Batch.steps(batch.keys[i]);
+            int row = tile / room.getCols();
+            int col = tile % room.getCols();
+            batch.targets[i] = (steps == 0)
+                    ? pursue(room, row, col, heroRow, heroCol)
+                    : wander(room, row, col, steps, turn);
+        }
+    }
+
+    /**
+     * Picks the step that brings a monster closest to the hero: first by Chebyshev distance
+     * (the hero attacks all 8 neighbours), then by Manhattan distance.
+     * @return the target tile, or -1 if the monster is next to the hero or cannot get closer
+     */
+    static int pursue(Room room, int row, int col, int heroRow, int heroCol) {
+        int bestChebyshev = Math.max(Math.abs(heroRow - row), Math.abs(heroCol - col));
+        if (bestChebyshev <= 1) {
+            return -1;
+        }
+        int bestManhattan = Math.abs(heroRow - row) + Math.abs(heroCol - col);
+        int best = -1;
+        for (int d = 0; d < 4; d++) {
+            int r = row + DR[d];
+            int c = col + DC[d];
+            if (!walkable(room, r, c)) {
+                continue;
+            }
+            int chebyshev = Math.max(Math.abs(heroRow - r), Math.abs(heroCol - c));
+            int manhattan = Math.abs(heroRow - r) + Math.abs(heroCol - c);
+            if (chebyshev < bestChebyshev || (chebyshev == bestChebyshev && manhattan < bestManhattan)) {
+                bestChebyshev = chebyshev;
+                bestManhattan = manhattan;
+                best = r * room.getCols() + c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Walks a monster a number of random steps over empty tiles; each step moves one tile or
+     * stays put, half the time each. Only the final tile is returned, so catching up on many
+     * turns is still a single move.
+     * @return the target tile, or -1 if the walk ends where it started
+     */
+    static int wander(Room room, int row, int col, int steps, long turn) {
+        long bits = mix(turn * 0x9E3779B97F4A7C15L + (long) row * room.getCols() + col);
+        int r = row, c = col;
+        for (int s = 0; s < steps; s++, bits >>>= 3) {
+            int d = (int) (bits & 7);
+            if (d >= 4) {
+                continue;
+            }
+            int nr = r + DR[d];
+            int nc = c + DC[d];
+            if ((nr == row && nc == col) || walkable(room, nr, nc)) {
+                r = nr;
+                c = nc;
+            }
+        }
+        return (r == row && c == col) ? -1 : r * room.getCols() + c;
+    }
+
+    /**
+     * Checks whether a monster may step onto a tile: inside the room, empty, and in memory.
+     * Chunks that are paged out are left alone, so planning never reads from the chunk file.
+     */
+    private static boolean walkable(Room room, int row, int col) {
+        return row >= 0 && row < room.getRows() && col >= 0 && col < room.getCols()
+                && room.isLoaded(row, col) && room.getObject(row, col) == null;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads the bits of a turn and tile over the whole word.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plans a range of a batch, splitting it in halves down to PARTITION monsters.
+     * Every task writes only its own range of targets.
+     */
+    private static class PlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Room room;
+        private final int heroRow;
+        private final int heroCol;
+        private final long turn;
+        private final Batch batch;
+        private final int from;
+        private final int to;
+
+        PlanTask(Room room, int heroRow, int heroCol, long turn, Batch batch, int from, int to) {
+            this.room = room;
+            this.heroRow = heroRow;
+            this.heroCol = heroCol;
+            this.turn = turn;
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARTITION) {
+                plan(room, heroRow, heroCol, turn, batch, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlanTask(room, heroRow, heroCol, turn, batch, from, mid),
+                    new PlanTask(room, heroRow, heroCol, turn, batch, mid, to));
+        }
+    }
+
+    // === Statistics ===
+
+    public String getStats() {
+        return String.format("[monsters] ticks: %d | updated: %d near, %d far | moves: %d (%d blocked) | parallel ticks: %d",
+                ticks, activeUpdates, lazyUpdates, moves, blocked, parallelTicks);
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+}
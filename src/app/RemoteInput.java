@@ -0,0 +1,51 @@
+package app;
+
+import model.InputSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * InputSource that reads one command or answer per line from a remote player.
+ * The player's output stream is flushed before every read, so prompts written
+ * without a newline reach the player before the session waits for a reply.
+ */
+public class RemoteInput implements InputSource {
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    /**
+     * Creates a remote input.
+     * @param in lines from the player
+     * @param out stream to the same player
+     */
+    public RemoteInput(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public String nextCommand() {
+        return readLine();
+    }
+
+    @Override
+    public String answer(Prompt prompt) {
+        return readLine();
+    }
+
+    /**
+     * Reads one trimmed line.
+     * @return the line, or null if the player disconnected
+     */
+    private String readLine() {
+        out.flush();
+        try {
+            String line = in.readLine();
+            return (line != null) ? line.trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package app;
+
+import model.Room;
+import util.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Least-recently-used cache of loaded rooms, bounded by room count and estimated heap bytes.
+ * A room's bytes are estimated once, when it is added, and the same amount is released when
+ * it leaves, so the total stays consistent while cached rooms grow and shrink.
+ * When a room is evicted it is handed to an eviction callback (normally a save to the
+ * session directory) so it can be reloaded later with its state intact. Until the callback
+ * has run, the room counts as being evicted, and loads of it wait (see awaitEvicted).
+ * All methods are thread-safe.
+ */
+public class RoomCache {
+    private static final LongAdder HITS = Metrics.counter("room.cache.hits");
+    private static final LongAdder MISSES = Metrics.counter("room.cache.misses");
+
+    private final LinkedHashMap<String, Room> rooms = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    private final Map<String, Room> evicting = new HashMap<>(); // Removed, eviction callback not yet done
+    private final Consumer<Room> onEvict;
+    private int maxRooms = Integer.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+    private final Map<String, Long> charged = new HashMap<>(); // Bytes counted for each room when it was added
+    private long bytes = 0;
+
+    // Counters
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates an unbounded cache.
+     * @param onEvict called with each room removed to make space
+     */
+    public RoomCache(Consumer<Room> onEvict) {
+        this.onEvict = onEvict;
+    }
+
+    /**
+     * Sets the cache bounds. Rooms are evicted once either bound is exceeded.
+     * @param maxRooms maximum number of cached rooms
+     * @param maxBytes maximum estimated heap bytes of cached rooms
+     */
+    public synchronized void setLimits(int maxRooms, long maxBytes) {
+        this.maxRooms = Math.max(1, maxRooms);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    /**
+     * Looks up a room and marks it as recently used.
+     * @param key room file name
+     * @return the room, or null on a miss
+     */
+    public synchronized Room get(String key) {
+        Room room = rooms.get(key);
+        if (room != null) {
+            hits++;
+            HITS.increment();
+        } else {
+            misses++;
+            MISSES.increment();
+        }
+        return room;
+    }
+
+    /**
+     * Checks for a room without counting a hit or miss or changing its recency.
+     */
+    public synchronized boolean contains(String key) {
+        return rooms.containsKey(key);
+    }
+
+    /**
+     * Adds a room unless one is already cached under the key, then evicts
+     * least-recently-used rooms if the cache is over its bounds.
+     * Call it only from the game thread, since evicted rooms are saved on the caller's thread.
+     * @param key room file name
+     * @param room the room
+     * @param pinned a room that must not be evicted (the hero's current room), or null;
+     *               the rooms behind its doors are not evicted either
+     * @return the cached room for the key (the existing one if there was one)
+     */
+    public Room putIfAbsent(String key, Room room, Room pinned) {
+        Set<String> neighbours = (pinned != null) ? pinned.getDoorTargets() : Collections.emptySet();
+        List<Map.Entry<String, Room>> evicted = new ArrayList<>();
+        synchronized (this) {
+            Room existing = rooms.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            add(key, room, room.estimateBytes());
+
+            Iterator<Map.Entry<String, Room>> it = rooms.entrySet().iterator();
+            while ((rooms.size() > maxRooms || bytes > maxBytes) && it.hasNext()) {
+                Map.Entry<String, Room> candidate = it.next();
+                if (candidate.getValue() == pinned || candidate.getValue() == room
+                        || neighbours.contains(candidate.getKey())) {
+                    continue;
+                }
+                it.remove();
+                bytes -= charged.remove(candidate.getKey()); // A room's estimate changes while it is cached
+                evictions++;
+                evicting.put(candidate.getKey(), candidate.getValue());
+                evicted.add(Map.entry(candidate.getKey(), candidate.getValue()));
+            }
+        }
+
+        // Persist outside the lock; loads of these rooms wait until their save is queued
+        for (Map.Entry<String, Room> entry : evicted) {
+            try {
+                onEvict.accept(entry.getValue());
+            } finally {
+                synchronized (this) {
+                    evicting.remove(entry.getKey());
+                    notifyAll();
+                }
+            }
+        }
+        return room;
+    }
+
+    /**
+     * Adds a room only if the cache has room for it without evicting anything, for loads
+     * made ahead of time (see RoomPrefetcher).
+     * @param key room file name
+     * @param room the room
+     * @return the cached room for the key (the existing one if there was one),
+     *         or null if the room was not added
+     */
+    public synchronized Room putIfFree(String key, Room room) {
+        Room existing = rooms.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        long size = room.estimateBytes();
+        if (rooms.size() + 1 > maxRooms || bytes + size > maxBytes) {
+            return null;
+        }
+        add(key, room, size);
+        return room;
+    }
+
+    private void add(String key, Room room, long size) {
+        rooms.put(key, room);
+        charged.put(key, size);
+        bytes += size;
+    }
+
+    /**
+     * Checks whether one more room fits without evicting anything.
+     */
+    public synchronized boolean hasFreeSpace() {
+        return rooms.size() < maxRooms && bytes < maxBytes;
+    }
+
+    /**
+     * Waits until a room that is being evicted has been handed to the eviction callback,
+     * so that reloading it finds its saved state (or its queued save) rather than an older file.
+     * Returns at once if the room is not being evicted.
+     * @param key room file name
+     */
+    public synchronized void awaitEvicted(String key) {
+        while (evicting.containsKey(key)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the cached rooms.
+     */
+    public synchronized List<Room> rooms() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    /**
+     * Returns a copy of the cached rooms by key, without marking any of them as used.
+     */
+    public synchronized Map<String, Room> entries() {
+        return new HashMap<>(rooms);
+    }
+
+    // === Counters ===
+
+    public synchronized int size() {
+        return rooms.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a one-line summary of cache activity.
+     */
+    public synchronized String getStats() {
+        return String.format("[cache] rooms: %d (max %s) | ~%.1f MB (max %s) | hits %d, misses %d, evictions %d",
+                rooms.size(), maxRooms == Integer.MAX_VALUE ? "unbounded" : String.valueOf(maxRooms),
+                bytes / (1024.0 * 1024.0),
+                maxBytes == Long.MAX_VALUE ? "unbounded" : String.format("%.1f MB", maxBytes / (1024.0 * 1024.0)),
+                hits, misses, evictions);
+    }
+}
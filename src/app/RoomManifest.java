@@ -0,0 +1,125 @@
+package app;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the rooms of a world, so the room files no longer have to be named in code.
+ *
+ * If the rooms directory holds a manifest.txt, its lines name the rooms (blank lines and
+ * lines starting with # are skipped). Otherwise every CSV file in the directory is a room,
+ * in natural order: names are compared as runs of text and numbers, numbers by value
+ * (room2.csv before room10.csv, entrance.csv before hub.csv). Either way the first room is
+ * where a new game starts, so a world whose start room does not sort first needs a manifest.
+ */
+public class RoomManifest {
+    static final String FILE = "manifest.txt";
+
+    /** Orders names by their text and number runs, numbers by value (see the class comment). */
+    static final Comparator<String> NATURAL_ORDER = RoomManifest::compareNatural;
+
+    private final List<String> rooms;
+
+    private RoomManifest(List<String> rooms) {
+        this.rooms = rooms;
+    }
+
+    /**
+     * Reads the manifest of a rooms directory, or lists its CSV files if it has none.
+     * @throws IOException if the directory or manifest cannot be read, or names no rooms
+     */
+    public static RoomManifest load(String roomsDir) throws IOException {
+        Path manifest = Paths.get(roomsDir, FILE);
+        List<String> rooms = new ArrayList<>();
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    rooms.add(line);
+                }
+            }
+        } else {
+            String[] files = new File(roomsDir).list((dir, name) -> name.endsWith(".csv"));
+            if (files == null) {
+                throw new IOException("Cannot read the rooms folder '" + roomsDir + "'.");
+            }
+            Arrays.sort(files, NATURAL_ORDER);
+            rooms.addAll(Arrays.asList(files));
+        }
+        if (rooms.isEmpty()) {
+            throw new IOException("No room files found in '" + roomsDir + "'.");
+        }
+        return new RoomManifest(rooms);
+    }
+
+    /**
+     * Compares two names character by character, ignoring case, except that where both have
+     * a run of digits the runs compare by value, ignoring leading zeros. Names that tie
+     * (e.g. "a01" and "a1") fall back to plain string order, so the order is total.
+     */
+    private static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char x = a.charAt(i);
+            char y = b.charAt(j);
+            if (Character.isDigit(x) && Character.isDigit(y)) {
+                int endA = digitsEnd(a, i);
+                int endB = digitsEnd(b, j);
+                String numberA = a.substring(i, endA).replaceFirst("^0+(?=.)", "");
+                String numberB = b.substring(j, endB).replaceFirst("^0+(?=.)", "");
+                int result = (numberA.length() != numberB.length())
+                        ? Integer.compare(numberA.length(), numberB.length())
+                        : numberA.compareTo(numberB);
+                if (result != 0) {
+                    return result;
+                }
+                i = endA;
+                j = endB;
+            } else {
+                int result = Character.compare(Character.toLowerCase(x), Character.toLowerCase(y));
+                if (result != 0) {
+                    return result;
+                }
+                i++;
+                j++;
+            }
+        }
+        int result = Integer.compare(a.length() - i, b.length() - j);
+        return (result != 0) ? result : a.compareTo(b);
+    }
+
+    private static int digitsEnd(String s, int start) {
+        int end = start;
+        while (end < s.length() && Character.isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the room a new game starts in.
+     */
+    public String getStartRoom() {
+        return rooms.get(0);
+    }
+
+    /**
+     * Returns the room file names, start room first.
+     */
+    public List<String> getRooms() {
+        return rooms;
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+}
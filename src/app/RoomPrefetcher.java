@@ -0,0 +1,162 @@
+package app;
+
+import model.Room;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the rooms behind the current room's doors in the background,
+ * so walking through a door usually finds the next room already in the cache.
+ *
+ * When the hero enters a room, its door targets are queued (distance 1). Each prefetched room's
+ * own door targets are queued in turn until the maximum door-graph distance is reached.
+ * Loads run on a small daemon pool; work queued for a room the hero has since left is skipped.
+ * Prefetching only fills free cache space and never evicts, so a prefetch cannot push out
+ * the room the hero is about to enter, and evicted rooms are only saved on the game thread.
+ */
+public class RoomPrefetcher {
+    private final GameSession session;
+    private final int maxDistance;
+    private final ExecutorService pool;
+    private final Map<String, CompletableFuture<Room>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger(); // Bumped on every room entry
+
+    // Metrics
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong warm = new AtomicLong();   // Transition found the room cached
+    private final AtomicLong joined = new AtomicLong(); // Transition waited for a running prefetch
+    private final AtomicLong cold = new AtomicLong();   // Transition loaded the room itself
+
+    /**
+     * Creates a prefetcher.
+     * @param session the session whose cache is filled
+     * @param maxDistance how many doors away from the current room to prefetch
+     * @param maxConcurrent maximum number of rooms loaded at the same time
+     */
+    public RoomPrefetcher(GameSession session, int maxDistance, int maxConcurrent) {
+        this.session = session;
+        this.maxDistance = maxDistance;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "room-prefetch");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.pool = executor;
+    }
+
+    /**
+     * Called on the game thread when the hero enters a room. Never blocks.
+     * @param room the room just entered
+     */
+    public void roomEntered(Room room) {
+        int gen = generation.incrementAndGet();
+        for (String target : room.getDoorTargets()) {
+            schedule(target, 1, gen);
+        }
+    }
+
+    /**
+     * Queues a room load unless it is cached or already being loaded.
+     */
+    private void schedule(String key, int distance, int gen) {
+        if (distance > maxDistance || session.getRoomCache().contains(key)) {
+            return;
+        }
+        CompletableFuture<Room> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            pool.execute(() -> load(key, distance, gen, future));
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future); // Pool was shut down
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Loads one room on a pool thread and queues its neighbours.
+     */
+    private void load(String key, int distance, int gen, CompletableFuture<Room> future) {
+        Room room = null;
+        try {
+            // Skip far-away work for a room the hero has already left
+            if (distance == 1 || gen == generation.get()) {
+                room = session.prefetchIntoCache(key);
+                if (room != null) {
+                    prefetched.incrementAndGet();
+                }
+            }
+        } finally {
+            inFlight.remove(key, future);
+            future.complete(room);
+        }
+        if (room != null && distance < maxDistance && gen == generation.get()) {
+            for (String target : room.getDoorTargets()) {
+                schedule(target, distance + 1, gen);
+            }
+        }
+    }
+
+    /**
+     * Waits for a running prefetch of a room, if there is one.
+     * @param key room file name
+     * @return the prefetched room, or null if no prefetch was running or it failed
+     */
+    public Room awaitInFlight(String key) {
+        CompletableFuture<Room> future = inFlight.get(key);
+        return (future != null) ? future.join() : null;
+    }
+
+    /**
+     * Records how a door transition found its target room.
+     * @param cached the room was already in the cache
+     * @param waited the room was still being prefetched and the transition waited for it
+     */
+    public void recordTransition(boolean cached, boolean waited) {
+        if (cached) {
+            warm.incrementAndGet();
+        } else if (waited) {
+            joined.incrementAndGet();
+        } else {
+            cold.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the background loads: queued ones are dropped and running ones interrupted, which
+     * cancels chunk file builds. Waits for the running loads to finish, so none is cut off
+     * half-way when the process exits.
+     * @param timeoutMillis maximum time to wait
+     * @return true if every load finished in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        pool.shutdownNow();
+        try {
+            return pool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns a one-line summary of prefetch activity.
+     */
+    public String getStats() {
+        long total = warm.get() + joined.get() + cold.get();
+        return String.format("[prefetch] rooms prefetched: %d | transitions: %d (warm %d, waited %d, cold %d, %.0f%% warm)",
+                prefetched.get(), total, warm.get(), joined.get(), cold.get(),
+                total > 0 ? 100.0 * warm.get() / total : 0.0);
+    }
+}
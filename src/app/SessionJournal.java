@@ -0,0 +1,452 @@
+package app;
+
+import model.*;
+import util.Histogram;
+import util.Metrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of a session's game events, kept in the session directory.
+ * Every tile change is one line (a move is a LEAVE and an ARRIVE, a potion is a PICKUP,
+ * a dead monster a KILL, a Troll's key a DROP, a walking monster a SET and a CLEAR),
+ * followed by a HERO line whenever the hero's stats changed and an ENTER line on every
+ * room transition. Persisting a turn is one small sequential append instead of rewriting
+ * room files.
+ *
+ * Once the journal grows past a configured size it is compacted: the rooms changed since the
+ * last compaction and the hero are saved to the game snapshot (see GameSnapshot), which only
+ * appends the changed rooms, and the journal starts over. Chunked rooms write their changed
+ * chunks to their own chunk files instead. A session that is closed before the game ends is
+ * compacted too, so it resumes from the snapshot alone. A session is restored by mapping the
+ * snapshot, putting the hero back, and replaying journal.log over the rooms as they are loaded
+ * (from the snapshot, else from their files). Every line sets a value rather than changing it
+ * (a tile's new object, a monster's new HP), so replaying events over rooms that are already
+ * newer gives the same result, and recovery is deterministic.
+ *
+ * Line format (space separated):
+ *   ENTER room                 hero is now in this room
+ *   ARRIVE room r c            hero stepped onto a tile
+ *   LEAVE room r c             hero left a tile
+ *   PICKUP|KILL|CLEAR room r c an item was taken, a monster died, another tile was cleared
+ *   DROP|SET room r c symbol   an item was dropped, or any other object was put on a tile
+ *   HIT room r c hp            a monster's HP changed
+ *   HERO hp weapon key         hero stats (weapon symbol or "-", key 0/1)
+ *   POS key r c                hero remembered its position in a room (at a door)
+ */
+public class SessionJournal implements Room.TileListener {
+    private static final Histogram FLUSH = Metrics.histogram("journal.flush");
+    private static final Histogram COMPACT = Metrics.histogram("journal.compact");
+
+    static final String JOURNAL = "journal.log";
+    static final String SNAPSHOT = "snapshot.bin";
+
+    private final GameSession session;
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final long compactBytes;
+    private BufferedWriter writer;
+    private GameSnapshot snapshot;   // The hero and the rooms as of the last compaction
+    private long size;               // Bytes in the journal file
+    private boolean replaying;       // True while restoring: changes are not recorded again
+    private String lastHero = "";    // Last HERO line written
+    private final Map<String, Room> dirty = new LinkedHashMap<>(); // Rooms changed since the last compaction
+
+    // Statistics
+    private long events = 0;
+    private long compactions = 0;
+    private long compactNanos = 0;
+
+    /**
+     * Creates a journal for a session.
+     * @param session the session whose events are recorded
+     * @param sessionDir directory holding the journal and snapshot files
+     * @param compactBytes journal size that triggers a compaction
+     */
+    SessionJournal(GameSession session, String sessionDir, long compactBytes) {
+        this.session = session;
+        this.journalPath = Paths.get(sessionDir, JOURNAL);
+        this.snapshotPath = Paths.get(sessionDir, SNAPSHOT);
+        this.compactBytes = compactBytes;
+    }
+
+    /**
+     * Checks whether a session directory holds a journal that can be resumed.
+     */
+    public static boolean exists(String sessionDir) {
+        return Files.exists(Paths.get(sessionDir, JOURNAL)) || Files.exists(Paths.get(sessionDir, SNAPSHOT));
+    }
+
+    /**
+     * Opens the journal for appending.
+     * @param fresh true to discard any journal and snapshot left by an earlier session
+     * @throws IOException if the journal cannot be opened
+     */
+    void open(boolean fresh) throws IOException {
+        if (fresh) {
+            Files.deleteIfExists(snapshotPath);
+            Files.deleteIfExists(journalPath);
+        }
+        if (snapshot == null) {
+            snapshot = GameSnapshot.open(snapshotPath.toString());
+        }
+        size = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalPath.toFile(), true), StandardCharsets.UTF_8), 8192);
+    }
+
+    // === Recording ===
+
+    @Override
+    public void tileChanged(Room room, int row, int col, GameObject oldObj, GameObject newObj) {
+        if (replaying) {
+            return;
+        }
+        String name = nameOf(room);
+        String where = name + " " + row + " " + col;
+        if (newObj instanceof Hero) {
+            if (newObj != session.getHero()) {
+                return; // Another session's hero in a shared room
+            }
+            append("ARRIVE " + where);
+        } else if (newObj == null) {
+            String kind = (oldObj instanceof Hero) ? "LEAVE"
+                    : (oldObj instanceof Monster && ((Monster) oldObj).isDead()) ? "KILL"
+                    : isItem(oldObj) ? "PICKUP" : "CLEAR";
+            append(kind + " " + where);
+        } else if (newObj == oldObj && newObj instanceof Monster) {
+            append("HIT " + where + " " + ((Monster) newObj).getHp());
+        } else {
+            String kind = isItem(newObj) && !(oldObj instanceof Monster) ? "DROP" : "SET";
+            append(kind + " " + where + " " + GameObjectFactory.toSymbol(newObj));
+        }
+        dirty.put(name, room);
+    }
+
+    /**
+     * Records that the hero is now in the given room.
+     */
+    void entered(Room room) {
+        if (!replaying) {
+            append("ENTER " + nameOf(room));
+        }
+    }
+
+    /**
+     * Records a saved hero position (the hero stepped onto a door).
+     */
+    void positionSaved(String roomKey, int row, int col) {
+        if (!replaying) {
+            append("POS " + roomKey + " " + row + " " + col);
+        }
+    }
+
+    /**
+     * Ends a turn: records changed hero stats, pushes the turn's lines to the file,
+     * and compacts the journal if it grew past its limit.
+     */
+    void endTurn() {
+        Hero hero = session.getHero();
+        String line = heroLine(hero);
+        if (!line.equals(lastHero)) {
+            append(line);
+            lastHero = line;
+        }
+        try {
+            long start = System.nanoTime();
+            writer.flush();
+            FLUSH.recordSince(start);
+        } catch (IOException e) {
+            System.out.println("[ERROR] Failed to write the session journal: " + e.getMessage());
+        }
+        if (size > compactBytes) {
+            compact();
+        }
+    }
+
+    private void append(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+            size += line.length() + 1;
+            events++;
+        } catch (IOException e) {
+            System.out.println("[ERROR] Failed to write the session journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Folds the journal into the game snapshot, then starts an empty journal.
+     * The journal is only emptied once the rooms and the hero are in the snapshot.
+     */
+    void compact() {
+        long start = System.nanoTime();
+        List<RoomSnapshot> changed = new ArrayList<>();
+        for (Room room : dirty.values()) {
+            if (room.isChunked()) {
+                if (!room.flushChunks()) {
+                    System.out.println("[WARNING] Journal compaction postponed: room " + nameOf(room) + " was not saved.");
+                    return; // Keep the journal; the next turn tries again
+                }
+            } else {
+                changed.add(room.snapshot());
+            }
+        }
+
+        Hero hero = session.getHero();
+        try {
+            snapshot.write(changed, hero, nameOf(session.getCurrentRoom()));
+            writer.close();
+            Files.deleteIfExists(journalPath);
+            open(false);
+        } catch (IOException e) {
+            System.out.println("[ERROR] Journal compaction failed: " + e.getMessage());
+            return;
+        }
+        for (Room room : dirty.values()) {
+            room.markSaved();
+        }
+        dirty.clear();
+        lastHero = heroLine(hero);
+        compactions++;
+        compactNanos += System.nanoTime() - start;
+        COMPACT.recordSince(start);
+    }
+
+    // === Restoring ===
+
+    /**
+     * Loads a room as of the last compaction from the game snapshot.
+     * @param name room file name (e.g., "room2.csv")
+     * @return the room, or null if the snapshot does not hold it
+     */
+    Room loadSaved(String name, Room.Storage storage) throws IOException {
+        return snapshot.loadRoom(name, storage);
+    }
+
+    /**
+     * Records that a newer copy of a room was saved to its own file (e.g., when it was
+     * evicted from the cache), so it is loaded from there until the next compaction.
+     */
+    void roomCopied(String name) {
+        snapshot.forget(name);
+    }
+
+    /**
+     * Rebuilds the session from the snapshot, the journal, and the room files.
+     * A damaged line (e.g., cut off by a crash) ends the replay, and the journal is cut
+     * back to the lines before it so new events are not appended after the damage.
+     * @return the restored hero, or null if nothing could be restored
+     */
+    Hero replay() throws IOException {
+        Hero hero = new Hero();
+        hero.setSession(session);
+        Replay state = new Replay(hero);
+        replaying = true;
+        try {
+            if (snapshot.getCurrentRoom() != null && !state.restore(snapshot)) {
+                return null;
+            }
+            if (Files.exists(journalPath)) {
+                long good = 0; // Bytes of the lines replayed so far
+                try (BufferedReader in = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                    String line;
+                    int number = 0;
+                    while ((line = in.readLine()) != null) {
+                        number++;
+                        if (!state.apply(line)) {
+                            System.out.println("[WARNING] Journal replay stopped at " + JOURNAL
+                                    + " line " + number + ": " + line);
+                            truncate(good);
+                            break;
+                        }
+                        good += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    }
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+        if (state.current == null) {
+            return null;
+        }
+        int[] pos = state.positions.get(state.current);
+        if (pos != null) {
+            hero.setPosition(pos[0], pos[1]);
+        }
+        session.restore(hero, session.getRoom(state.current));
+        lastHero = heroLine(hero);
+        return hero;
+    }
+
+    /**
+     * State rebuilt while replaying lines.
+     */
+    private class Replay {
+        final Hero hero;
+        String current;                                        // Room the hero is in
+        final Map<String, int[]> positions = new HashMap<>();  // Hero's latest tile per room
+
+        Replay(Hero hero) {
+            this.hero = hero;
+        }
+
+        /**
+         * Puts the hero back as of the snapshot.
+         * @return false if the hero's room cannot be loaded
+         */
+        boolean restore(GameSnapshot saved) {
+            current = saved.getCurrentRoom();
+            Room room = session.getRoom(current);
+            if (room == null) {
+                return false;
+            }
+            saved.restoreHero(hero);
+            room.setObject(saved.getHeroRow(), saved.getHeroCol(), hero);
+            positions.put(current, new int[]{ saved.getHeroRow(), saved.getHeroCol() });
+            return true;
+        }
+
+        /**
+         * Applies one line.
+         * @return false if the line is damaged or refers to a room that cannot be loaded
+         */
+        boolean apply(String line) {
+            String[] f = line.split(" ");
+            try {
+                switch (f[0]) {
+                    case "ENTER": {
+                        current = f[1];
+                        return session.getRoom(current) != null;
+                    }
+                    case "HERO": {
+                        hero.setHp(Integer.parseInt(f[1]));
+                        hero.setWeapon(f[2].equals("-") ? null : (Weapon) GameObjectFactory.createFromSymbol(f[2].charAt(0)));
+                        if (f[3].equals("1")) {
+                            hero.obtainKey();
+                        }
+                        return true;
+                    }
+                    case "POS": {
+                        hero.savePosition(f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+                        return true;
+                    }
+                    default:
+                        return applyTile(f);
+                }
+            } catch (RuntimeException e) {
+                return false; // Cut-off or unknown line
+            }
+        }
+
+        private boolean applyTile(String[] f) {
+            Room room = session.getRoom(f[1]);
+            if (room == null) {
+                return false;
+            }
+            int r = Integer.parseInt(f[2]);
+            int c = Integer.parseInt(f[3]);
+            dirty.put(f[1], room); // Newer than its file until the next compaction
+            switch (f[0]) {
+                case "ARRIVE":
+                    room.setObject(r, c, hero);
+                    positions.put(f[1], new int[]{ r, c });
+                    return true;
+                case "LEAVE": case "PICKUP": case "KILL": case "CLEAR":
+                    room.setObject(r, c, null);
+                    return true;
+                case "HIT": {
+                    // A room saved after this line may no longer have the monster here;
+                    // a later line then sets the tile
+                    GameObject obj = room.getObject(r, c);
+                    if (obj instanceof Monster) {
+                        ((Monster) obj).setHp(Integer.parseInt(f[4]));
+                        room.objectChanged(r, c);
+                    }
+                    return true;
+                }
+                case "DROP": case "SET":
+                    room.setObject(r, c, GameObjectFactory.createFromSymbol(f[4], room.getFileName()));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Cuts the journal file back to the given length and reopens it for appending.
+     */
+    private void truncate(long length) throws IOException {
+        writer.close();
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+        open(false);
+    }
+
+    // === Closing ===
+
+    /**
+     * Closes the journal. An unfinished game is compacted first, so it resumes from the
+     * snapshot without replaying any lines.
+     * @param finished true if the game was won or lost; the journal and snapshot are then
+     *                 deleted, since there is nothing left to resume
+     */
+    void close(boolean finished) {
+        if (!finished && size > 0 && session.getHero() != null) {
+            compact();
+        }
+        try {
+            writer.close();
+            if (finished) {
+                Files.deleteIfExists(journalPath);
+                Files.deleteIfExists(snapshotPath);
+            }
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not close the session journal: " + e.getMessage());
+        }
+    }
+
+    // === Helpers ===
+
+    private static String nameOf(Room room) {
+        return new File(room.getFileName()).getName();
+    }
+
+    private static boolean isItem(GameObject obj) {
+        return obj instanceof Weapon || obj instanceof Potion || obj instanceof Key;
+    }
+
+    private static String heroLine(Hero hero) {
+        Weapon weapon = hero.getWeapon();
+        return "HERO " + hero.getHp() + " " + (weapon != null ? String.valueOf(weapon.getType()) : "-")
+                + " " + (hero.hasKey() ? 1 : 0);
+    }
+
+    /**
+     * Returns a one-line summary of journal activity.
+     */
+    public String getStats() {
+        return String.format("[journal] %d events | %d bytes since last compaction | %d compactions (avg %.2f ms)"
+                        + " | snapshot %d rooms, %d bytes",
+                events, size, compactions, compactions > 0 ? compactNanos / 1e6 / compactions : 0.0,
+                snapshot.getRoomCount(), snapshot.getSize());
+    }
+}
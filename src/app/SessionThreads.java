@@ -0,0 +1,46 @@
+package app;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the executor that runs one blocking task per player session.
+ * On Java 21+ every task gets a virtual thread; on older runtimes every task gets
+ * its own platform thread with a small stack, so a few thousand sessions still fit.
+ */
+public class SessionThreads {
+    private static final long STACK_SIZE = 256 * 1024; // Game loops are shallow
+
+    /**
+     * Creates a thread-per-task executor.
+     * @param name prefix for thread names
+     */
+    public static ExecutorService newExecutor(String name) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 on
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicLong count = new AtomicLong();
+            ThreadFactory factory = task -> {
+                Thread t = new Thread(null, task, name + "-" + count.incrementAndGet(), STACK_SIZE);
+                t.setDaemon(true);
+                return t;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    /**
+     * Describes the kind of threads newExecutor hands out on this runtime.
+     */
+    public static String describe() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return "virtual threads";
+        } catch (NoSuchMethodException e) {
+            return "platform threads (" + STACK_SIZE / 1024 + " KB stacks)";
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package app;
+
+import model.RoomSnapshot;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Saves room snapshots on a background thread so the game loop never waits for disk I/O.
+ * Saves of the same file that are still queued are coalesced: only the latest snapshot is written.
+ * Each file is written to a temporary file first and then moved into place.
+ */
+public class WriteBehindSaver {
+
+    /**
+     * A queued save.
+     */
+    private static class Pending {
+        RoomSnapshot snapshot;
+        boolean binary;
+        long firstQueuedAt; // When the oldest unsaved change for this file was queued
+
+        Pending(RoomSnapshot snapshot, boolean binary, long queuedAt) {
+            this.snapshot = snapshot;
+            this.binary = binary;
+            this.firstQueuedAt = queuedAt;
+        }
+    }
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>(); // Queue in submit order
+    private final Thread worker;
+    private String inFlight = null; // Path being written right now
+    private boolean closed = false;
+
+    // Metrics (guarded by lock)
+    private long submitted = 0;
+    private long coalesced = 0;
+    private long written = 0;
+    private long failed = 0;
+    private int maxDepth = 0;
+    private long totalLatencyNanos = 0;
+    private long maxLatencyNanos = 0;
+    private long totalWriteNanos = 0;
+
+    /**
+     * Creates the saver and starts its writer thread.
+     */
+    public WriteBehindSaver() {
+        worker = new Thread(this::runWorker, "room-writer");
+        worker.setDaemon(true); // Never keeps the JVM alive on its own
+        worker.start();
+    }
+
+    /**
+     * Queues a snapshot to be written. Returns immediately.
+     * @param path destination file
+     * @param snapshot room state to write
+     * @param binary true for the binary room format, false for CSV
+     */
+    public void submit(String path, RoomSnapshot snapshot, boolean binary) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Saver is closed");
+            }
+            submitted++;
+            Pending existing = pending.get(path);
+            if (existing != null) {
+                // Replace the queued snapshot; the older one no longer needs writing
+                existing.snapshot = snapshot;
+                existing.binary = binary;
+                coalesced++;
+            } else {
+                pending.put(path, new Pending(snapshot, binary, System.nanoTime()));
+                maxDepth = Math.max(maxDepth, pending.size());
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until every queued save has been written, or the timeout expires.
+     * @param timeoutMillis maximum time to wait
+     * @return true if everything was written
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        synchronized (lock) {
+            while (!pending.isEmpty() || inFlight != null) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Waits until a specific file has no queued or running save.
+     * @param path destination file
+     * @param timeoutMillis maximum time to wait
+     * @return true if the file is up to date on disk
+     */
+    public boolean awaitWritten(String path, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        synchronized (lock) {
+            while (pending.containsKey(path) || path.equals(inFlight)) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Flushes with a bounded wait and stops accepting saves.
+     * @param timeoutMillis maximum time to wait for queued saves
+     * @return true if everything was written
+     */
+    public boolean close(long timeoutMillis) {
+        boolean done = flush(timeoutMillis);
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        return done;
+    }
+
+    /**
+     * Writer thread: takes the oldest queued save and writes it.
+     */
+    private void runWorker() {
+        while (true) {
+            String path;
+            Pending job;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return; // Closed and drained
+                }
+                Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+                Map.Entry<String, Pending> next = it.next();
+                it.remove();
+                path = next.getKey();
+                job = next.getValue();
+                inFlight = path;
+            }
+
+            long start = System.nanoTime();
+            boolean ok = write(path, job);
+            long end = System.nanoTime();
+
+            synchronized (lock) {
+                inFlight = null;
+                if (ok) {
+                    written++;
+                } else {
+                    failed++;
+                }
+                long latency = end - job.firstQueuedAt;
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                totalWriteNanos += end - start;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes one snapshot through a temporary file.
+     */
+    private boolean write(String path, Pending job) {
+        Path target = Paths.get(path);
+        Path temp = Paths.get(path + ".tmp");
+        try {
+            if (job.binary) {
+                job.snapshot.writeBinary(temp.toString());
+            } else {
+                job.snapshot.writeCSV(temp.toString());
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("[ERROR] Failed to save room " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // === Metrics ===
+
+    /**
+     * Returns the number of files waiting to be written.
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return pending.size() + (inFlight != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the saver's activity.
+     */
+    public String getStats() {
+        synchronized (lock) {
+            long done = written + failed;
+            return String.format("[persist] saves: %d submitted, %d coalesced, %d written, %d failed"
+                            + " | queue depth %d (max %d) | latency avg %.2f ms, max %.2f ms | write avg %.2f ms",
+                    submitted, coalesced, written, failed,
+                    pending.size() + (inFlight != null ? 1 : 0), maxDepth,
+                    done > 0 ? totalLatencyNanos / 1e6 / done : 0.0, maxLatencyNanos / 1e6,
+                    done > 0 ? totalWriteNanos / 1e6 / done : 0.0);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package bench;
+
+import java.util.Arrays;
+
+/**
+ * Minimal benchmark harness: timed warmup and measurement iterations with per-operation
+ * time and allocation, in the spirit of JMH's average-time mode with the GC profiler.
+ *
+ * Settings (system properties):
+ *   bench.warmup      warmup iterations (default 3)
+ *   bench.iterations  measurement iterations (default 5)
+ *   bench.time        milliseconds per iteration (default 500)
+ */
+public final class Bench {
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 3);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_NANOS = Long.getLong("bench.time", 500) * 1_000_000L;
+
+    private static volatile Object sink; // Keeps results alive so the JIT cannot drop the calls
+
+    private Bench() {
+    }
+
+    /**
+     * One benchmark invocation.
+     */
+    public interface Op {
+        void run() throws Exception;
+    }
+
+    /**
+     * Hands a result to the harness so the computation that produced it is not eliminated.
+     */
+    public static void consume(Object value) {
+        sink = value;
+    }
+
+    /**
+     * Prints the column header for result rows.
+     */
+    public static void header() {
+        System.out.printf("%-14s %-10s %8s %16s %12s %14s %12s%n",
+                "benchmark", "param", "ops", "ns/op", "error", "alloc B/op", "alloc MB/s");
+    }
+
+    /**
+     * Runs a benchmark and prints one result row.
+     * @param name benchmark name
+     * @param param parameter value (e.g., room size)
+     * @param opsPerInvocation operations performed by one call of op
+     * @param op the benchmarked code
+     * @throws Exception if the benchmarked code fails
+     */
+    public static void run(String name, String param, int opsPerInvocation, Op op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            iteration(op);
+        }
+
+        double[] nsPerOp = new double[ITERATIONS];
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalAlloc = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long allocStart = Measure.allocatedBytes();
+            long[] result = iteration(op);
+            totalAlloc += Measure.allocatedBytes() - allocStart;
+            long ops = result[0] * opsPerInvocation;
+            nsPerOp[i] = (double) result[1] / ops;
+            totalOps += ops;
+            totalNanos += result[1];
+        }
+
+        double mean = Arrays.stream(nsPerOp).average().orElse(0);
+        double error = (Arrays.stream(nsPerOp).max().orElse(0) - Arrays.stream(nsPerOp).min().orElse(0)) / 2;
+        System.out.printf("%-14s %-10s %8d %16.1f %12.1f %14.1f %12.1f%n",
+                name, param, totalOps, mean, error,
+                (double) totalAlloc / totalOps, totalAlloc / (totalNanos / 1e9) / (1024 * 1024));
+    }
+
+    /**
+     * Calls op until the iteration time has passed (at least once).
+     * @return {invocations, elapsed nanoseconds}
+     */
+    private static long[] iteration(Op op) throws Exception {
+        long start = System.nanoTime();
+        long elapsed;
+        long invocations = 0;
+        do {
+            op.run();
+            invocations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return new long[]{ invocations, elapsed };
+    }
+}
@@ -0,0 +1,235 @@
+package bench;
+
+import app.GameSession;
+import model.Door;
+import model.GameObject;
+import model.Hero;
+import model.InputSource;
+import model.Monster;
+import model.Potion;
+import model.Room;
+import model.RoomLocks;
+import model.Weapon;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures heroes sharing one room, each hero on its own thread doing random moves and attacks:
+ *   striped  the room is shared (stripe locks over grid regions, see RoomLocks)
+ *   global   the room is shared with a single stripe, i.e. one room-wide lock
+ *
+ * After every run the room is checked: every potion was drunk at most once, every monster was
+ * killed at most once, each hero stands on its own tile, and the indexes match the grid.
+ *
+ * Settings (system properties):
+ *   bench.heroes  hero counts to run (default 1,2,4,8,16,32)
+ *   bench.time    milliseconds per run (default 1000)
+ *
+ * Usage: java bench.ContentionBench [size ...]   (default sizes: 64 256)
+ */
+public class ContentionBench {
+    private static final long RUN_MILLIS = Long.getLong("bench.time", 1000);
+    private static final int ATTACK_EVERY = 8; // One attack per this many actions
+
+    /**
+     * Answers every prompt at once: attack, but never swap weapons.
+     */
+    private static class Answers implements InputSource {
+        @Override
+        public String nextCommand() {
+            return "q";
+        }
+
+        @Override
+        public String answer(Prompt prompt) {
+            return (prompt == Prompt.ATTACK) ? "y" : "n";
+        }
+    }
+
+    /**
+     * One hero and what it did during a run.
+     */
+    private static class Player {
+        final Hero hero = new Hero();
+        long actions;
+        long potions; // Potions drunk
+        long kills;   // Monsters killed
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = (args.length > 0) ? new int[args.length] : new int[]{ 64, 256 };
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        String[] heroCounts = System.getProperty("bench.heroes", "1,2,4,8,16,32").split(",");
+
+        System.out.printf("%-8s %-6s %6s %12s %14s %12s %8s%n",
+                "mode", "size", "heroes", "actions", "actions/s", "contended", "check");
+        Path dir = Files.createTempDirectory("contentionbench");
+        for (int size : sizes) {
+            Path file = dir.resolve("room_" + size + ".csv");
+            RoomFiles.write(file, size, size, size);
+            run(file, size, 4, true, false); // Warmup
+            for (String count : heroCounts) {
+                int heroes = Integer.parseInt(count.trim());
+                run(file, size, heroes, true, true);
+                run(file, size, heroes, false, true);
+            }
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private static void run(Path file, int size, int heroCount, boolean striped, boolean print) throws Exception {
+        Room room = Room.loadFromCSV(file.toString());
+        removeDoors(room); // Heroes stay in the room
+        int potionsBefore = count(room, Potion.class);
+        int monstersBefore = count(room, Monster.class);
+        room.share(striped ? RoomLocks.MAX_STRIPES : 1);
+
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < heroCount; i++) {
+            Player player = new Player();
+            GameSession session = new GameSession(".", null, new Answers(), quiet);
+            player.hero.setSession(session);
+            player.hero.setWeapon(new Weapon("Bench Axe", 100, 'X')); // Every attack kills
+            session.setCurrentRoom(room);
+            room.placeHero(player.hero);
+            players.add(player);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < heroCount; i++) {
+            Player player = players.get(i);
+            Random random = new Random(i);
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                play(player, room, random, deadline[0]);
+            }, "hero-" + i);
+            threads.add(t);
+            t.start();
+        }
+        long began = System.nanoTime();
+        deadline[0] = began + RUN_MILLIS * 1_000_000L;
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        long actions = players.stream().mapToLong(p -> p.actions).sum();
+        long potions = players.stream().mapToLong(p -> p.potions).sum();
+        long kills = players.stream().mapToLong(p -> p.kills).sum();
+        String problem = check(room, players);
+        if (problem == null && potions + count(room, Potion.class) != potionsBefore) {
+            problem = "potions: " + potionsBefore + " before, " + potions + " drunk, "
+                    + count(room, Potion.class) + " left";
+        }
+        if (problem == null && kills + count(room, Monster.class) != monstersBefore) {
+            problem = "monsters: " + monstersBefore + " before, " + kills + " killed, "
+                    + count(room, Monster.class) + " left";
+        }
+
+        if (!print) {
+            return;
+        }
+        RoomLocks locks = room.getLocks();
+        String contended = (locks.getAcquired() > 0)
+                ? String.format("%.2f%%", 100.0 * locks.getContended() / locks.getAcquired()) : "-";
+        System.out.printf("%-8s %-6d %6d %12d %14.0f %12s %8s%n",
+                striped ? "striped" : "global", size, heroCount, actions, actions / seconds,
+                contended, problem == null ? "ok" : "FAILED");
+        if (problem != null) {
+            System.out.println("[ERROR] " + problem);
+        }
+    }
+
+    /**
+     * Random moves with an attack every few actions until the deadline.
+     * The hero is kept alive and hurt, so a drunk potion and a won fight both show in its HP.
+     */
+    private static void play(Player player, Room room, Random random, long deadline) {
+        Hero hero = player.hero;
+        char[] directions = { 'u', 'd', 'l', 'r' };
+        while (System.nanoTime() < deadline) {
+            boolean attack = (player.actions % ATTACK_EVERY) == ATTACK_EVERY - 1;
+            hero.setHp(attack ? hero.getMaxHp() : 1);
+            if (attack) {
+                hero.attack(room);
+            } else {
+                hero.move(directions[random.nextInt(4)], room);
+            }
+            if (attack && hero.getHp() < hero.getMaxHp()) {
+                player.kills++; // The monster struck back, so the exchange happened
+            } else if (!attack && hero.getHp() > 1) {
+                player.potions++;
+            }
+            player.actions++;
+        }
+    }
+
+    /**
+     * Checks that heroes and indexes agree with the grid.
+     * @return a description of the first problem found, or null
+     */
+    private static String check(Room room, List<Player> players) {
+        for (Player player : players) {
+            Hero hero = player.hero;
+            if (room.getObject(hero.getRow(), hero.getCol()) != hero) {
+                return "hero not on its tile at " + hero.getRow() + "," + hero.getCol();
+            }
+        }
+        int heroes = 0;
+        for (int r = 0; r < room.getRows(); r++) {
+            for (int c = 0; c < room.getCols(); c++) {
+                GameObject obj = room.getObject(r, c);
+                if (obj instanceof Hero && players.stream().anyMatch(p -> p.hero == obj)) {
+                    heroes++;
+                }
+            }
+        }
+        if (heroes != players.size()) {
+            return heroes + " hero tiles for " + players.size() + " heroes";
+        }
+        if (room.getMonsterCount() != count(room, Monster.class)) {
+            return "monster index holds " + room.getMonsterCount() + ", grid " + count(room, Monster.class);
+        }
+        return null;
+    }
+
+    private static int count(Room room, Class<?> type) {
+        int n = 0;
+        for (int r = 0; r < room.getRows(); r++) {
+            for (int c = 0; c < room.getCols(); c++) {
+                if (type.isInstance(room.getObject(r, c))) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static void removeDoors(Room room) {
+        for (int r = 0; r < room.getRows(); r++) {
+            for (int c = 0; c < room.getCols(); c++) {
+                if (room.getObject(r, c) instanceof Door) {
+                    room.setObject(r, c, null);
+                }
+            }
+        }
+    }
+}
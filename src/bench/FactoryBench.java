@@ -0,0 +1,92 @@
+package bench;
+
+import model.Door;
+import model.GameObject;
+import model.GameObjectFactory;
+import model.Hero;
+import model.Key;
+import model.Monster;
+import model.Potion;
+import model.Weapon;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures how many entities per second GameObjectFactory creates from CSV symbols.
+ * "legacy" is a copy of the original startsWith/equals/regex chain that allocated every object;
+ * "string" and "bytes" are the table-driven factory entry points.
+ *
+ * Usage: java bench.FactoryBench [calls]   (default: 20000000)
+ */
+public class FactoryBench {
+    private static final String[] SYMBOLS = {
+        "G", "G:3", "O:8", "T", "S", "W", "X", "m", "B", "*", "d:room2.csv", "D", "m", "W", "G:2", "B"
+    };
+
+    private static int sink; // Keeps results alive so the JIT cannot drop the calls
+
+    public static void main(String[] args) {
+        long calls = (args.length > 0) ? Long.parseLong(args[0]) : 20_000_000L;
+        byte[][] bytes = new byte[SYMBOLS.length][];
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            bytes[i] = SYMBOLS[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        System.out.printf("%-8s %16s %16s%n", "path", "entities/s", "bytes/entity");
+        for (int round = 0; round < 2; round++) { // First round is warmup
+            boolean print = round == 1;
+            run("legacy", calls, print, i -> legacyCreate(SYMBOLS[i]));
+            run("string", calls, print, i -> GameObjectFactory.createFromSymbol(SYMBOLS[i], null));
+            run("bytes", calls, print, i -> GameObjectFactory.createFromSymbol(bytes[i], bytes[i].length));
+        }
+    }
+
+    private static void run(String label, long calls, boolean print, Creator creator) {
+        long allocStart = Measure.allocatedBytes();
+        long start = System.nanoTime();
+        for (long n = 0; n < calls; n++) {
+            GameObject obj = creator.create((int) (n & (SYMBOLS.length - 1)));
+            sink += obj.getSymbol();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double alloc = (double) (Measure.allocatedBytes() - allocStart) / calls;
+        if (print) {
+            System.out.printf("%-8s %,16.0f %16.1f%n", label, calls / seconds, alloc);
+        }
+    }
+
+    /**
+     * The original createFromSymbol, kept as the baseline.
+     */
+    private static GameObject legacyCreate(String raw) {
+        if (raw == null || raw.trim().isEmpty()) return null;
+        if (raw.startsWith("d:")) return new Door(raw.substring(2).trim(), false);
+        if (raw.equals("D")) return new Door("rooms/room1.csv", true);
+        if (raw.matches("^[GOT]:\\d+$")) {
+            char symbol = raw.charAt(0);
+            int hp = Integer.parseInt(raw.split(":")[1]);
+            switch (symbol) {
+                case 'G': return new Monster("Goblin", hp, 1, 'G');
+                case 'O': return new Monster("Orc", hp, 3, 'O');
+                case 'T': return new Monster("Troll", hp, 4, 'T');
+            }
+        }
+        switch (raw) {
+            case "@": return new Hero();
+            case "S": return new Weapon("Stick", 1, 'S');
+            case "W": return new Weapon("Weak Sword", 2, 'W');
+            case "X": return new Weapon("Strong Sword", 3, 'X');
+            case "m": return new Potion("Minor Flask", 6, 'm');
+            case "B": return new Potion("Big Flask", 12, 'B');
+            case "G": return new Monster("Goblin", 3, 1, 'G');
+            case "O": return new Monster("Orc", 8, 3, 'O');
+            case "T": return new Monster("Troll", 15, 4, 'T');
+            case "*": return new Key();
+            default: return null;
+        }
+    }
+
+    private interface Creator {
+        GameObject create(int index);
+    }
+}
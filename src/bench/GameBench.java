@@ -0,0 +1,220 @@
+package bench;
+
+import app.GameSession;
+import model.GameObject;
+import model.GameObjectFactory;
+import model.Hero;
+import model.InputSource;
+import model.Monster;
+import model.Room;
+import model.Weapon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark suite for the core game operations, each run over a range of room sizes:
+ *   load       Room.loadFromCSV
+ *   save       Room.saveToCSV
+ *   render     Room.displayRoom into a null stream
+ *   move       Hero.move around a scripted square path
+ *   attack     Hero.attack against an adjacent monster
+ *   factory    GameObjectFactory.createFromSymbol over the room's CSV symbols
+ *   placeHero  Room.placeHero for a hero without a saved position
+ *
+ * "shipped" is rooms/room1.csv; numeric sizes are generated square rooms.
+ * Time and allocation are reported per operation (see Bench for iteration settings).
+ *
+ * Usage: java -Xmx3g bench.GameBench [size ...]   (default sizes: shipped 64 512 4096)
+ *        -Dbench.include=load,render runs only the named benchmarks
+ */
+public class GameBench {
+    private static final String[] BENCHMARKS = { "load", "save", "render", "move", "attack", "factory", "placeHero" };
+    private static final int FACTORY_POOL = 4096; // Symbols per factory invocation
+
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0) ? args : new String[]{ "shipped", "64", "512", "4096" };
+        List<String> include = Arrays.asList(System.getProperty("bench.include", String.join(",", BENCHMARKS)).split(","));
+
+        Path dir = Files.createTempDirectory("gamebench");
+        Bench.header();
+        for (String size : sizes) {
+            Path file = dir.resolve("room_" + size + ".csv");
+            if (size.equals("shipped")) {
+                Files.copy(Paths.get("rooms/room1.csv"), file, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                int n = Integer.parseInt(size);
+                RoomFiles.write(file, n, n, n);
+            }
+            for (String name : BENCHMARKS) {
+                if (include.contains(name)) {
+                    run(name, size, file, dir);
+                }
+            }
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir.resolve("saved.csv"));
+        Files.delete(dir);
+    }
+
+    /**
+     * Sets up the state for one benchmark and runs it.
+     */
+    private static void run(String name, String size, Path file, Path dir) throws Exception {
+        String path = file.toString();
+        switch (name) {
+            case "load":
+                Bench.run(name, size, 1, () -> Bench.consume(Room.loadFromCSV(path)));
+                break;
+
+            case "save": {
+                Room room = Room.loadFromCSV(path);
+                String savePath = dir.resolve("saved.csv").toString();
+                Bench.run(name, size, 1, () -> room.saveToCSV(savePath));
+                break;
+            }
+
+            case "render": {
+                Room room = Room.loadFromCSV(path);
+                PrintStream console = System.out;
+                System.setOut(NULL_OUT);
+                try {
+                    room.displayRoom(); // The room's renderer keeps the stream it was created with
+                } finally {
+                    System.setOut(console);
+                }
+                Bench.run(name, size, 1, room::displayRoom);
+                break;
+            }
+
+            case "move": {
+                Room room = Room.loadFromCSV(path);
+                Hero hero = newHero(path);
+                // Clear a square so the path never meets items, monsters, or doors
+                int side = Math.max(1, Math.min(8, Math.min(room.getRows(), room.getCols()) - 2));
+                for (int r = 1; r <= side + 1 && r < room.getRows(); r++) {
+                    for (int c = 1; c <= side + 1 && c < room.getCols(); c++) {
+                        room.setObject(r, c, null);
+                    }
+                }
+                hero.setPosition(1, 1);
+                room.setObject(1, 1, hero);
+                char[] script = squarePath(side);
+                Bench.run(name, size, script.length, () -> {
+                    for (char direction : script) {
+                        hero.move(direction, room);
+                    }
+                });
+                break;
+            }
+
+            case "attack": {
+                Room room = Room.loadFromCSV(path);
+                Hero hero = newHero(path);
+                hero.setWeapon((Weapon) GameObjectFactory.createFromSymbol('X'));
+                hero.setPosition(1, 1);
+                room.setObject(1, 1, hero);
+                for (int r = 0; r <= 2; r++) {
+                    for (int c = 0; c <= 2; c++) {
+                        if (r != 1 || c != 1) room.setObject(r, c, null);
+                    }
+                }
+                Monster monster = GameObjectFactory.createMonster('O', 8);
+                room.setObject(1, 2, monster);
+                Bench.run(name, size, 1, () -> {
+                    monster.setHp(1_000_000); // Never dies, so every call is a full exchange
+                    hero.setHp(hero.getMaxHp());
+                    hero.attack(room);
+                });
+                break;
+            }
+
+            case "factory": {
+                String[] symbols = readSymbols(file, FACTORY_POOL);
+                Bench.run(name, size, symbols.length, () -> {
+                    GameObject last = null;
+                    for (String symbol : symbols) {
+                        last = GameObjectFactory.createFromSymbol(symbol, path);
+                    }
+                    Bench.consume(last);
+                });
+                break;
+            }
+
+            case "placeHero": {
+                Room room = Room.loadFromCSV(path);
+                Hero hero = newHero(path);
+                Bench.run(name, size, 1, () -> {
+                    room.placeHero(hero);
+                    room.setObject(hero.getRow(), hero.getCol(), null);
+                });
+                break;
+            }
+
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + name);
+        }
+    }
+
+    /**
+     * Creates a hero attached to a silent, in-memory session that answers "y" to every prompt.
+     */
+    private static Hero newHero(String roomPath) {
+        InputSource input = new InputSource() {
+            @Override
+            public String nextCommand() {
+                return null;
+            }
+
+            @Override
+            public String answer(Prompt prompt) {
+                return "y";
+            }
+        };
+        GameSession session = new GameSession(Paths.get(roomPath).getParent().toString(), null, input, NULL_OUT);
+        Hero hero = new Hero();
+        hero.setSession(session);
+        return hero;
+    }
+
+    /**
+     * Returns moves that walk a square of the given side and end where they started.
+     */
+    private static char[] squarePath(int side) {
+        char[] script = new char[side * 4];
+        char[] directions = { 'r', 'd', 'l', 'u' };
+        for (int i = 0; i < script.length; i++) {
+            script[i] = directions[i / side];
+        }
+        return script;
+    }
+
+    /**
+     * Reads up to limit trimmed CSV symbols from a room file, skipping the size row.
+     */
+    private static String[] readSymbols(Path file, int limit) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            reader.readLine();
+            String line;
+            while (symbols.size() < limit && (line = reader.readLine()) != null) {
+                for (String cell : line.split(",", -1)) {
+                    if (symbols.size() == limit) break;
+                    symbols.add(cell.trim());
+                }
+            }
+        }
+        return symbols.toArray(new String[0]);
+    }
+}
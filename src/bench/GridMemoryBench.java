@@ -0,0 +1,83 @@
+package bench;
+
+import model.GameObject;
+import model.GameObjectFactory;
+import model.Grid;
+import model.Room;
+
+import java.util.Random;
+
+/**
+ * Compares the heap used by the object grid and the packed grid.
+ * Fills each room the way the CSV loader does (about 1% monsters, 1% items, a few doors)
+ * and reports retained bytes per tile.
+ *
+ * Usage: java -Xmx4g bench.GridMemoryBench [size ...]   (default sizes: 1000 10000)
+ */
+public class GridMemoryBench {
+
+    public static void main(String[] args) {
+        int[] sizes = (args.length > 0) ? new int[args.length] : new int[]{ 1000, 10000 };
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-12s %-8s %14s %12s%n", "size", "storage", "heap bytes", "bytes/tile");
+        for (int size : sizes) {
+            for (Room.Storage storage : Room.Storage.values()) {
+                measure(size, storage);
+            }
+        }
+    }
+
+    /**
+     * Builds one room and prints how much heap it retains.
+     */
+    private static void measure(int size, Room.Storage storage) {
+        String label = size + "x" + size;
+        long before = usedHeap();
+        Room room;
+        try {
+            room = fill(size, storage);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-12s %-8s %14s %12s%n", label, storage, "out of memory", "-");
+            return;
+        }
+        long used = usedHeap() - before;
+        double tiles = (double) size * size;
+        System.out.printf("%-12s %-8s %,14d %12.2f%n", label, storage, used, used / tiles);
+
+        // Keep the room reachable until after the measurement
+        if (room.getRows() != size) {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Fills a room with a fixed pseudo-random layout.
+     */
+    private static Room fill(int size, Room.Storage storage) {
+        String[] symbols = { "G:3", "O:8", "T:15", "S", "W", "m", "B", "d:room2.csv" };
+        Random random = new Random(size);
+        Room room = new Room(size, size, storage);
+        Grid grid = room.getStorage();
+
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int roll = random.nextInt(200);
+                String raw = (roll < symbols.length * 2) ? symbols[roll / 2] : " ";
+                GameObject obj = GameObjectFactory.createFromSymbol(raw, null);
+                grid.place(r, c, obj, raw);
+            }
+        }
+        return room;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
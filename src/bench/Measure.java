@@ -0,0 +1,25 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Timing and allocation helpers shared by the benchmarks.
+ */
+public class Measure {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Returns the number of bytes allocated so far by the calling thread.
+     */
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Formats a byte count as mebibytes.
+     */
+    public static String mb(double bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,87 @@
+package bench;
+
+import app.MonsterScheduler;
+import model.Hero;
+import model.Room;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the cost of one monster turn as rooms (and their monster counts) grow, with the
+ * hero walking a square in the middle of the room:
+ *   tick        default activity radius and far-monster budget
+ *   tick-wide   radius 96, enough monsters per turn for planning to run on the fork-join pool
+ *
+ * About 2% of the tiles hold monsters (see RoomFiles), so a 10000 x 10000 room holds two million;
+ * a turn should cost the same at every size. Rooms of 2048 tiles a side or more are opened with
+ * chunked storage, where only monsters in resident chunks move.
+ *
+ * Usage: java bench.MonsterBench [size ...]   (default sizes: 100 1000 10000)
+ */
+public class MonsterBench {
+    private static final int CHUNKED_FROM = 2048; // Smallest room opened chunked
+    private static final int SIDE = 16;           // Side of the square the hero walks
+    private static final int WIDE_RADIUS = 96;
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0) ? args : new String[]{ "100", "1000", "10000" };
+        Path dir = Files.createTempDirectory("monsterbench");
+        Bench.header();
+        for (String size : sizes) {
+            int n = Integer.parseInt(size);
+            Path file = dir.resolve("room_" + n + ".csv");
+            RoomFiles.write(file, n, n, n);
+
+            run("tick", size, open(file, n), new MonsterScheduler(MonsterScheduler.DEFAULT_RADIUS, MonsterScheduler.DEFAULT_BUDGET));
+            run("tick-wide", size, open(file, n), new MonsterScheduler(WIDE_RADIUS, MonsterScheduler.DEFAULT_BUDGET));
+
+            Files.delete(file);
+            Files.deleteIfExists(Path.of(Room.chunkPathFor(file.toString())));
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Opens a fresh copy of the room, so every run starts with the monsters spread out.
+     */
+    private static Room open(Path file, int n) {
+        return (n >= CHUNKED_FROM)
+                ? Room.loadChunked(file.toString(), false, Room.DEFAULT_RESIDENT_CHUNKS)
+                : Room.loadFromCSV(file.toString());
+    }
+
+    /**
+     * Walks a hero around a square in the middle of the room, ticking the monsters after every step.
+     */
+    private static void run(String name, String size, Room room, MonsterScheduler scheduler) throws Exception {
+        int side = Math.max(1, Math.min(SIDE, Math.min(room.getRows(), room.getCols()) - 1));
+        int firstRow = (room.getRows() - side) / 2;
+        int firstCol = (room.getCols() - side) / 2;
+        int[] rows = new int[side * 4];
+        int[] cols = new int[side * 4];
+        for (int i = 0; i < side * 4; i++) {
+            int leg = i / side;
+            int step = i % side;
+            rows[i] = firstRow + (leg == 0 ? 0 : leg == 1 ? step : leg == 2 ? side : side - step);
+            cols[i] = firstCol + (leg == 0 ? step : leg == 1 ? side : leg == 2 ? side - step : 0);
+        }
+
+        Hero hero = new Hero();
+        int[] at = { 0 };
+        long[] turn = { 0 };
+        Bench.run(name, size, 1, () -> {
+            int i = at[0];
+            int next = (i + 1) % rows.length;
+            if (room.getObject(rows[next], cols[next]) == null) { // A monster may stand in the way
+                room.setObject(rows[i], cols[i], null);
+                room.setObject(rows[next], cols[next], hero);
+                at[0] = next;
+            } else if (room.getObject(rows[i], cols[i]) == null) {
+                room.setObject(rows[i], cols[i], hero);
+            }
+            scheduler.tick(room, rows[at[0]], cols[at[0]], ++turn[0]);
+        });
+        room.setObject(rows[at[0]], cols[at[0]], null);
+    }
+}
@@ -0,0 +1,181 @@
+package bench;
+
+import model.GameObject;
+import model.Key;
+import model.PathFinder;
+import model.Potion;
+import model.Room;
+import model.Weapon;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures the room PathFinder on generated rooms:
+ *   astar/cold     point-to-point routes between random far-apart tiles (never cached)
+ *   astar/cached   the same route requested again
+ *   nearest/query  route to the nearest item from random tiles, distance field already built
+ *   nearest/remove route to the nearest item right after an item was picked up (field repaired)
+ *
+ * After timing, the remove case is checked: with one item picked up, routes must match a
+ * fresh breadth-first search around it, and the pickup and query must take under a millisecond.
+ *
+ * Usage: java bench.PathBench [size ...]   (default sizes: 256 1000)
+ */
+public class PathBench {
+    private static final int PAIRS = 256; // More than the route cache holds, so cold routes always miss
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = (args.length > 0) ? new int[args.length] : new int[]{ 256, 1000 };
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        Path dir = Files.createTempDirectory("pathbench");
+        Bench.header();
+        for (int size : sizes) {
+            Path file = dir.resolve("room_" + size + ".csv");
+            RoomFiles.write(file, size, size, size);
+            Room room = Room.loadFromCSV(file.toString());
+            Files.delete(file);
+            run(room, String.valueOf(size));
+        }
+        Files.delete(dir);
+    }
+
+    private static void run(Room room, String param) throws Exception {
+        int size = room.getRows();
+        PathFinder paths = room.getPathFinder();
+        Random random = new Random(size);
+
+        // Random empty start and goal tiles at least half the room apart
+        int[][] pairs = new int[PAIRS][];
+        for (int i = 0; i < PAIRS; i++) {
+            int[] a, b;
+            do {
+                a = emptyTile(room, random);
+                b = emptyTile(room, random);
+            } while (Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]) < size / 2);
+            pairs[i] = new int[]{ a[0], a[1], b[0], b[1] };
+        }
+        int[] next = { 0 };
+
+        Bench.run("astar/cold", param, 1, () -> {
+            int[] p = pairs[next[0]++ % PAIRS];
+            Bench.consume(paths.findPath(p[0], p[1], p[2], p[3]));
+        });
+        int[] p0 = pairs[0];
+        Bench.run("astar/cached", param, 1, () -> Bench.consume(paths.findPath(p0[0], p0[1], p0[2], p0[3])));
+
+        Bench.run("nearest/query", param, 1, () -> {
+            int[] p = pairs[next[0]++ % PAIRS];
+            Bench.consume(paths.routeToNearest(PathFinder.Target.ITEMS, p[0], p[1]));
+        });
+
+        // Pick up and put back an item: both repair the field around it before the query
+        int[] itemTile = nearestItem(room, paths, pairs[0]);
+        GameObject item = room.getObject(itemTile[0], itemTile[1]);
+        Bench.run("nearest/remove", param, 1, () -> {
+            room.setObject(itemTile[0], itemTile[1], null);
+            int[] p = pairs[next[0]++ % PAIRS];
+            Bench.consume(paths.routeToNearest(PathFinder.Target.ITEMS, p[0], p[1]));
+            room.setObject(itemTile[0], itemTile[1], item);
+        });
+        System.out.println(paths.getStats());
+        checkRemove(room, paths, pairs);
+    }
+
+    /**
+     * Picks up the item nearest to each of a few starts, times the pickup and the next query,
+     * and compares routes from the tiles around the item with a breadth-first search over the room.
+     * @throws IllegalStateException if a route has the wrong length or the median time is 1 ms or more
+     */
+    private static void checkRemove(Room room, PathFinder paths, int[][] pairs) {
+        int trials = 16;
+        long[] nanos = new long[trials];
+        for (int t = 0; t < trials; t++) {
+            int[] itemTile = nearestItem(room, paths, pairs[t]);
+            GameObject item = room.getObject(itemTile[0], itemTile[1]);
+            long start = System.nanoTime();
+            room.setObject(itemTile[0], itemTile[1], null);
+            int[] route = paths.routeToNearest(PathFinder.Target.ITEMS, pairs[t][0], pairs[t][1]);
+            nanos[t] = System.nanoTime() - start;
+            Bench.consume(route);
+
+            if (t % 4 == 0) {
+                int[] expected = itemDistances(room);
+                int cols = room.getCols();
+                for (int r = Math.max(0, itemTile[0] - 32); r < Math.min(room.getRows(), itemTile[0] + 33); r++) {
+                    for (int c = Math.max(0, itemTile[1] - 32); c < Math.min(cols, itemTile[1] + 33); c++) {
+                        if (!room.isEmpty(r, c) || expected[r * cols + c] == 0) continue;
+                        int[] actual = paths.routeToNearest(PathFinder.Target.ITEMS, r, c);
+                        int length = (actual == null) ? Integer.MAX_VALUE : actual.length;
+                        if (length != expected[r * cols + c]) {
+                            throw new IllegalStateException("Route to the nearest item from (" + r + "," + c
+                                    + ") is " + length + " steps after a pickup, expected " + expected[r * cols + c]);
+                        }
+                    }
+                }
+            }
+            room.setObject(itemTile[0], itemTile[1], item);
+        }
+        Arrays.sort(nanos);
+        long median = nanos[trials / 2];
+        if (median >= 1_000_000) {
+            throw new IllegalStateException("Pickup and query took " + median / 1000 + " us, budget is 1000 us");
+        }
+        System.out.printf("Remove target check: ok (median %d us)%n", median / 1000);
+    }
+
+    /**
+     * Steps from every tile to the nearest item, by breadth-first search over empty tiles.
+     */
+    private static int[] itemDistances(Room room) {
+        int rows = room.getRows();
+        int cols = room.getCols();
+        int[] distance = new int[rows * cols];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        int[] queue = new int[rows * cols];
+        int head = 0, tail = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                GameObject obj = room.getObject(r, c);
+                if (obj instanceof Weapon || obj instanceof Potion || obj instanceof Key) {
+                    distance[r * cols + c] = 0;
+                    queue[tail++] = r * cols + c;
+                }
+            }
+        }
+        int[][] steps = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+        while (head < tail) {
+            int tile = queue[head++];
+            for (int[] step : steps) {
+                int r = tile / cols + step[0];
+                int c = tile % cols + step[1];
+                if (r < 0 || r >= rows || c < 0 || c >= cols || !room.isEmpty(r, c)) continue;
+                if (distance[r * cols + c] == Integer.MAX_VALUE) {
+                    distance[r * cols + c] = distance[tile] + 1;
+                    queue[tail++] = r * cols + c;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static int[] emptyTile(Room room, Random random) {
+        int r, c;
+        do {
+            r = random.nextInt(room.getRows());
+            c = random.nextInt(room.getCols());
+        } while (!room.isEmpty(r, c));
+        return new int[]{ r, c };
+    }
+
+    private static int[] nearestItem(Room room, PathFinder paths, int[] pair) {
+        int[] route = paths.routeToNearest(PathFinder.Target.ITEMS, pair[0], pair[1]);
+        int goal = route[route.length - 1];
+        return new int[]{ goal / room.getCols(), goal % room.getCols() };
+    }
+}
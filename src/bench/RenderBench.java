@@ -0,0 +1,83 @@
+package bench;
+
+import model.Hero;
+import model.Room;
+import model.RoomRenderer;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the cost of one frame as rooms grow, with the hero walking a square:
+ *   view-plain  viewport frame, full redraw every time (plain mode)
+ *   view-ansi   viewport frame, changed cells only (ANSI mode)
+ *   full-plain  the whole room every frame (viewport off), for rooms up to 1000 x 1000
+ *
+ * Viewport frames should cost the same at every room size. Rooms of 2048 tiles a side or more
+ * are opened with chunked storage (see ChunkedGrid), since they do not fit in memory as objects.
+ * Time and allocation are reported per frame (see Bench for iteration settings).
+ *
+ * Usage: java bench.RenderBench [size ...]   (default sizes: 10 100 1000 10000)
+ *        -Dgame.view.rows / -Dgame.view.cols set the viewport (default 20 x 24)
+ */
+public class RenderBench {
+    private static final int FULL_LIMIT = 1000;   // Largest room drawn whole
+    private static final int CHUNKED_FROM = 2048; // Smallest room opened chunked
+    private static final int SIDE = 16;           // Side of the square the hero walks
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0) ? args : new String[]{ "10", "100", "1000", "10000" };
+        Path dir = Files.createTempDirectory("renderbench");
+        Bench.header();
+        for (String size : sizes) {
+            int n = Integer.parseInt(size);
+            Path file = dir.resolve("room_" + n + ".csv");
+            RoomFiles.write(file, n, n, n);
+            Room room = (n >= CHUNKED_FROM)
+                    ? Room.loadChunked(file.toString(), false, Room.DEFAULT_RESIDENT_CHUNKS)
+                    : Room.loadFromCSV(file.toString());
+
+            run("view-plain", size, room, new RoomRenderer(OutputStream.nullOutputStream(), false));
+            run("view-ansi", size, room, new RoomRenderer(OutputStream.nullOutputStream(), true));
+            if (n <= FULL_LIMIT) {
+                RoomRenderer full = new RoomRenderer(OutputStream.nullOutputStream(), false);
+                full.setViewport(0, 0);
+                run("full-plain", size, room, full);
+            }
+
+            Files.delete(file);
+            Files.deleteIfExists(Path.of(Room.chunkPathFor(file.toString())));
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Walks a hero around a square in the middle of the room, drawing a frame after every step.
+     */
+    private static void run(String name, String size, Room room, RoomRenderer renderer) throws Exception {
+        int side = Math.max(1, Math.min(SIDE, Math.min(room.getRows(), room.getCols()) - 1));
+        int firstRow = (room.getRows() - side) / 2;
+        int firstCol = (room.getCols() - side) / 2;
+        int[] rows = new int[side * 4];
+        int[] cols = new int[side * 4];
+        for (int i = 0; i < side * 4; i++) {
+            int leg = i / side;
+            int step = i % side;
+            rows[i] = firstRow + (leg == 0 ? 0 : leg == 1 ? step : leg == 2 ? side : side - step);
+            cols[i] = firstCol + (leg == 0 ? step : leg == 1 ? side : leg == 2 ? side - step : 0);
+        }
+
+        Hero hero = new Hero();
+        int[] at = { 0 };
+        Bench.run(name, size, 1, () -> {
+            int i = at[0];
+            int next = (i + 1) % rows.length;
+            room.setObject(rows[i], cols[i], null);
+            room.setObject(rows[next], cols[next], hero);
+            at[0] = next;
+            renderer.render(room, rows[next], cols[next], "RenderBench", size);
+        });
+        room.setObject(rows[at[0]], cols[at[0]], null);
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes synthetic room CSV files for benchmarks.
+ */
+public class RoomFiles {
+
+    /**
+     * Writes a room of the given size with a fixed pseudo-random mix of symbols.
+     * About 2% of the tiles hold monsters, 2% items, and 0.1% doors.
+     *
+     * @param path file to write
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param seed random seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int rows, int cols, long seed) throws IOException {
+        String[] monsters = { "G", "G:2", "O:8", "T" };
+        String[] items = { "S", "W", "X", "m", "B" };
+        Random random = new Random(seed);
+        try (BufferedWriter w = Files.newBufferedWriter(path)) {
+            w.write(rows + "," + cols);
+            w.newLine();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (c > 0) w.write(',');
+                    int roll = random.nextInt(1000);
+                    if (roll < 20) w.write(monsters[roll % monsters.length]);
+                    else if (roll < 40) w.write(items[roll % items.length]);
+                    else if (roll == 40) w.write("d:room2.csv");
+                    else w.write(' ');
+                }
+                w.newLine();
+            }
+        }
+    }
+}
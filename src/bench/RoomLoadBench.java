@@ -0,0 +1,154 @@
+package bench;
+
+import model.GameObject;
+import model.GameObjectFactory;
+import model.Hero;
+import model.Monster;
+import model.Room;
+import util.CSVUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compares the line-splitting CSV load path with the streaming loader and the binary format.
+ * The split path is CSVUtils.readCSV + trim + createFromSymbol(String) per cell,
+ * which is how Room.loadFromCSV used to work.
+ *
+ * Before timing, the streaming loader is checked on a small room with awkward bytes in it,
+ * and a room with a spawn point is converted to binary and back to check it keeps its @.
+ *
+ * Usage: java bench.RoomLoadBench [size ...]   (default sizes: 500 1000 2000)
+ */
+public class RoomLoadBench {
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = (args.length > 0) ? new int[args.length] : new int[]{ 500, 1000, 2000 };
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        Path dir = Files.createTempDirectory("roomload");
+        checkFormat(dir);
+        checkRoundTrip(dir);
+        System.out.printf("%-10s %-9s %-14s %10s %10s %14s %12s%n",
+                "size", "file", "path", "ms/load", "MB/s", "alloc/load", "alloc MB/s");
+        for (int size : sizes) {
+            Path file = dir.resolve("room_" + size + ".csv");
+            RoomFiles.write(file, size, size, size);
+            long fileBytes = Files.size(file);
+
+            run(size, fileBytes, "split", () -> loadSplit(file.toString()));
+            run(size, fileBytes, "stream", () -> Room.loadFromCSV(file.toString()));
+            run(size, fileBytes, "stream/packed", () -> Room.loadFromCSV(file.toString(), Room.Storage.PACKED));
+
+            // Binary copy of the same room
+            Path binary = Paths.get(Room.binaryPathFor(file.toString()));
+            Room.loadFromCSV(file.toString(), Room.Storage.PACKED).saveToBinary(binary.toString());
+            run(size, Files.size(binary), "binary", () -> Room.loadFromBinary(binary.toString(), Room.Storage.OBJECTS));
+            run(size, Files.size(binary), "binary/packed", () -> Room.loadFromBinary(binary.toString(), Room.Storage.PACKED));
+            Files.delete(binary);
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Loads a room whose middle row holds a 0xFF byte (not end of input) and a non-ASCII
+     * cell, and checks the cells after them are still read.
+     * @throws IllegalStateException if the room does not load as written
+     */
+    private static void checkFormat(Path dir) throws IOException {
+        Path file = dir.resolve("format.csv");
+        byte[] weird = { (byte) 0xFF, ',', (byte) 0xC3, (byte) 0xA9 };
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write("3,4\n , , , \n".getBytes(StandardCharsets.US_ASCII));
+            out.write(weird);
+            out.write(",G, \n W, , ,O\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        Room room = Room.loadFromCSV(file.toString(), Room.Storage.PACKED);
+        Files.delete(file);
+        if (room == null || !(room.getObject(1, 2) instanceof Monster) || !(room.getObject(2, 3) instanceof Monster)
+                || room.getObject(1, 0) != null || room.getObject(1, 1) != null) {
+            throw new IllegalStateException("Streaming loader misread a room with a 0xFF byte");
+        }
+        System.out.println("CSV format check: ok");
+    }
+
+    /**
+     * Converts a room with an @ from CSV to binary and back, with both storages, and checks
+     * the spawn point survives: a new hero is placed on it rather than at the (1,1) fallback.
+     * @throws IllegalStateException if the spawn point is lost
+     */
+    private static void checkRoundTrip(Path dir) throws IOException {
+        Path csv = dir.resolve("spawn.csv");
+        Path binary = Paths.get(Room.binaryPathFor(csv.toString()));
+        Files.write(csv, "3,4\n ,W, , \n , , ,@\nG, , , \n".getBytes(StandardCharsets.US_ASCII));
+        for (Room.Storage storage : new Room.Storage[]{ Room.Storage.OBJECTS, Room.Storage.PACKED }) {
+            Room.loadFromCSV(csv.toString(), storage).saveToBinary(binary.toString());
+            Room.loadFromBinary(binary.toString(), storage).saveToCSV(csv.toString());
+            Room room = Room.loadFromCSV(csv.toString(), storage);
+            Hero hero = new Hero();
+            room.placeHero(hero);
+            if (hero.getRow() != 1 || hero.getCol() != 3 || !(room.getObject(2, 0) instanceof Monster)) {
+                throw new IllegalStateException("Spawn point lost in a binary round trip (" + storage + ")");
+            }
+        }
+        Files.delete(binary);
+        Files.delete(csv);
+        System.out.println("Binary round trip check: ok");
+    }
+
+    /**
+     * Times one load path and prints load time and allocation.
+     */
+    private static void run(int size, long fileBytes, String label, Loader loader) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            loader.load();
+        }
+        long allocStart = Measure.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (loader.load() == null) {
+                throw new IllegalStateException("Load failed");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long alloc = (Measure.allocatedBytes() - allocStart) / ITERATIONS;
+
+        double perLoad = seconds / ITERATIONS;
+        System.out.printf("%-10s %-9s %-14s %10.1f %10.1f %14s %12.1f%n",
+                size + "x" + size, Measure.mb(fileBytes), label, perLoad * 1000,
+                fileBytes / perLoad / (1024 * 1024), Measure.mb(alloc), alloc / perLoad / (1024 * 1024));
+    }
+
+    /**
+     * The line-splitting load path.
+     */
+    private static Room loadSplit(String filename) throws IOException {
+        List<String[]> lines = CSVUtils.readCSV(filename);
+        int rows = Integer.parseInt(lines.get(0)[0].trim());
+        int cols = Integer.parseInt(lines.get(0)[1].trim());
+        Room room = new Room(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            String[] row = lines.get(r + 1);
+            for (int c = 0; c < cols; c++) {
+                String raw = row[c].trim();
+                GameObject obj = GameObjectFactory.createFromSymbol(raw, filename);
+                room.getStorage().place(r, c, obj, raw);
+            }
+        }
+        return room;
+    }
+
+    private interface Loader {
+        Room load() throws IOException;
+    }
+}
@@ -0,0 +1,130 @@
+package bench;
+
+import model.GameObjectFactory;
+import model.Monster;
+import model.Room;
+import model.SpatialIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the room's monster index with what was possible before it existed:
+ *   remove   list.remove(monster) on the old ArrayList vs index remove (plus re-add to keep the set stable)
+ *   within   scanning the grid square around a tile vs an index range query (radius 8)
+ *   nearest  scanning outward ring by ring over the grid vs an index nearest query
+ *
+ * Usage: java bench.SpatialIndexBench [monsters ...]   (default: 10000 50000; room is 2000x2000)
+ */
+public class SpatialIndexBench {
+    private static final int SIZE = 2000;
+    private static final int RADIUS = 8;
+    private static final int QUERIES = 1024; // Random query points cycled by each benchmark
+
+    public static void main(String[] args) throws Exception {
+        int[] counts = (args.length > 0) ? new int[args.length] : new int[]{ 10_000, 50_000 };
+        for (int i = 0; i < args.length; i++) {
+            counts[i] = Integer.parseInt(args[i]);
+        }
+
+        Bench.header();
+        for (int count : counts) {
+            run(count);
+        }
+    }
+
+    private static void run(int count) throws Exception {
+        Random random = new Random(count);
+        Room room = new Room(SIZE, SIZE, Room.Storage.PACKED);
+        List<Monster> list = new ArrayList<>();
+        int[] monsterRows = new int[count];
+        int[] monsterCols = new int[count];
+        for (int i = 0; i < count; i++) {
+            int r, c;
+            do {
+                r = random.nextInt(SIZE);
+                c = random.nextInt(SIZE);
+            } while (!room.isEmpty(r, c));
+            Monster monster = GameObjectFactory.createMonster('G', 3);
+            room.setObject(r, c, monster);
+            list.add(monster);
+            monsterRows[i] = r;
+            monsterCols[i] = c;
+        }
+        int[] queryRows = new int[QUERIES];
+        int[] queryCols = new int[QUERIES];
+        int[] picks = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryRows[i] = random.nextInt(SIZE);
+            queryCols[i] = random.nextInt(SIZE);
+            picks[i] = random.nextInt(count);
+        }
+        SpatialIndex<Monster> index = room.getMonsterIndex();
+        String param = String.valueOf(count);
+
+        Bench.run("remove/list", param, QUERIES, () -> {
+            for (int pick : picks) {
+                Monster monster = list.get(pick);
+                list.remove(monster);
+                list.add(pick, monster);
+            }
+        });
+        Bench.run("remove/index", param, QUERIES, () -> {
+            for (int pick : picks) {
+                Monster monster = index.remove(monsterRows[pick], monsterCols[pick]);
+                index.add(monsterRows[pick], monsterCols[pick], monster);
+            }
+        });
+
+        Bench.run("within/grid", param, QUERIES, () -> {
+            int found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                int r0 = Math.max(0, queryRows[q] - RADIUS), r1 = Math.min(SIZE - 1, queryRows[q] + RADIUS);
+                int c0 = Math.max(0, queryCols[q] - RADIUS), c1 = Math.min(SIZE - 1, queryCols[q] + RADIUS);
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        if (room.getObject(r, c) instanceof Monster) found++;
+                    }
+                }
+            }
+            Bench.consume(found);
+        });
+        Bench.run("within/index", param, QUERIES, () -> {
+            int found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                found += index.within(queryRows[q], queryCols[q], RADIUS).size();
+            }
+            Bench.consume(found);
+        });
+
+        Bench.run("nearest/grid", param, QUERIES, () -> {
+            for (int q = 0; q < QUERIES; q++) {
+                Bench.consume(scanNearest(room, queryRows[q], queryCols[q]));
+            }
+        });
+        Bench.run("nearest/index", param, QUERIES, () -> {
+            for (int q = 0; q < QUERIES; q++) {
+                Bench.consume(index.nearest(queryRows[q], queryCols[q]));
+            }
+        });
+    }
+
+    /**
+     * Finds the nearest monster by scanning rings of tiles around a tile.
+     */
+    private static int[] scanNearest(Room room, int row, int col) {
+        for (int d = 1; d < SIZE; d++) {
+            for (int r = row - d; r <= row + d; r++) {
+                if (r < 0 || r >= SIZE) continue;
+                int step = (r == row - d || r == row + d) ? 1 : 2 * d;
+                for (int c = col - d; c <= col + d; c += step) {
+                    if (c >= 0 && c < SIZE && room.getObject(r, c) instanceof Monster) {
+                        return new int[]{ r, c };
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
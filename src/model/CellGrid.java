@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * Grid storage with one Cell object per tile.
+ * This is the original room layout.
+ */
+public class CellGrid implements Grid {
+    private final Cell[][] cells;
+
+    public CellGrid(int rows, int cols) {
+        this.cells = new Cell[rows][cols];
+    }
+
+    @Override
+    public GameObject get(int row, int col) {
+        return cells[row][col].getObject();
+    }
+
+    @Override
+    public void set(int row, int col, GameObject obj) {
+        cells[row][col].setObject(obj);
+    }
+
+    @Override
+    public void place(int row, int col, GameObject obj, String raw) {
+        cells[row][col] = new Cell(obj, raw);
+    }
+
+    @Override
+    public Cell cellAt(int row, int col) {
+        return cells[row][col];
+    }
+
+    /**
+     * Returns the backing cell array.
+     */
+    public Cell[][] getCells() {
+        return cells;
+    }
+}
@@ -0,0 +1,289 @@
+package model;
+
+import util.Histogram;
+import util.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grid storage that keeps only part of a very large room in memory.
+ * The room is divided into square chunks (see RoomChunks for the file); a chunk is read the
+ * first time one of its tiles is touched, and the chunks around the hero are read as soon as
+ * the hero enters a new chunk. Once more than the resident limit are in memory, the chunk
+ * farthest from the hero is dropped, after writing it back if it changed.
+ *
+ * Chunks holding a hero are never dropped. Without write-back (a room loaded from the
+ * pristine rooms directory), changed chunks stay in memory instead of being written.
+ * Like the rest of an unshared room, the grid is used by one thread at a time.
+ */
+public class ChunkedGrid implements Grid {
+    /** Default chunk side in tiles. */
+    public static final int SIZE = 64;
+
+    private static final Histogram CHUNK_LOAD = Metrics.histogram("room.chunk.load");
+    private static final LongAdder CHUNK_EVICTIONS = Metrics.counter("room.chunk.evictions");
+
+    /**
+     * Told when chunks enter and leave memory, so the room can index their monsters and items.
+     */
+    interface Listener {
+        void chunkLoaded(int firstRow, int firstCol, int width, PackedGrid chunk);
+
+        void chunkEvicted(int firstRow, int firstCol, int width, PackedGrid chunk);
+    }
+
+    private final RoomChunks file;
+    private final boolean writeBack;
+    private final int maxResident;
+    private final int shift;
+    private final int mask;
+    private final int chunkCols;
+    private final int chunkRows;
+    private final PackedGrid[] chunks;  // Resident chunks by chunk index, null when paged out
+    private final BitSet dirty = new BitSet();
+    private int[] resident = new int[16]; // Indexes of the resident chunks
+    private int residentCount = 0;
+    private int focus = -1;               // Chunk holding the hero
+    private Listener listener;
+
+    // Statistics
+    private long loads = 0;
+    private long evictions = 0;
+    private long writes = 0;
+
+    /**
+     * Creates a grid over an open chunk file.
+     * @param writeBack true to write changed chunks back to the file
+     * @param maxResident chunks kept in memory before the farthest one is dropped (at least 9)
+     */
+    ChunkedGrid(RoomChunks file, boolean writeBack, int maxResident) {
+        this.file = file;
+        this.writeBack = writeBack;
+        this.maxResident = Math.max(9, maxResident); // The hero's chunk and its neighbours
+        this.shift = Integer.numberOfTrailingZeros(file.getSize());
+        this.mask = file.getSize() - 1;
+        this.chunkRows = (file.getRows() + mask) >> shift;
+        this.chunkCols = (file.getCols() + mask) >> shift;
+        this.chunks = new PackedGrid[chunkRows * chunkCols];
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public GameObject get(int row, int col) {
+        return chunk((row >> shift) * chunkCols + (col >> shift)).get(row & mask, col & mask);
+    }
+
+    @Override
+    public void set(int row, int col, GameObject obj) {
+        int index = (row >> shift) * chunkCols + (col >> shift);
+        chunk(index).set(row & mask, col & mask, obj);
+        dirty.set(index);
+    }
+
+    /**
+     * Checks whether a tile's chunk is in memory, so reading the tile pages nothing in.
+     */
+    boolean isLoaded(int row, int col) {
+        return chunks[(row >> shift) * chunkCols + (col >> shift)] != null;
+    }
+
+    /**
+     * Marks the chunk of a tile as changed when the object on it changed in place
+     * (e.g., a monster lost HP).
+     */
+    void changed(int row, int col) {
+        dirty.set((row >> shift) * chunkCols + (col >> shift));
+    }
+
+    @Override
+    public void place(int row, int col, GameObject obj, String raw) {
+        set(row, col, obj);
+    }
+
+    @Override
+    public Cell cellAt(int row, int col) {
+        return new GridCell(this, row, col);
+    }
+
+    // === Paging ===
+
+    /**
+     * Returns a chunk, reading it from the file if it is not in memory.
+     */
+    private PackedGrid chunk(int index) {
+        PackedGrid chunk = chunks[index];
+        return (chunk != null) ? chunk : load(index);
+    }
+
+    private PackedGrid load(int index) {
+        long start = System.nanoTime();
+        if (residentCount >= maxResident) {
+            evictFarthest();
+        }
+        PackedGrid chunk;
+        try {
+            chunk = file.read(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read chunk " + index + ": " + e.getMessage(), e);
+        }
+        chunks[index] = chunk;
+        if (residentCount == resident.length) {
+            resident = Arrays.copyOf(resident, residentCount * 2);
+        }
+        resident[residentCount++] = index;
+        loads++;
+        if (listener != null) {
+            listener.chunkLoaded(firstRow(index), firstCol(index), widthOf(index), chunk);
+        }
+        CHUNK_LOAD.recordSince(start);
+        return chunk;
+    }
+
+    /**
+     * Moves the focus to the hero's tile and reads the chunks around it ahead of time.
+     */
+    void focus(int row, int col) {
+        int chunkRow = row >> shift;
+        int chunkCol = col >> shift;
+        int index = chunkRow * chunkCols + chunkCol;
+        if (index == focus) {
+            return;
+        }
+        focus = index;
+        for (int r = Math.max(0, chunkRow - 1); r <= Math.min(chunkRows - 1, chunkRow + 1); r++) {
+            for (int c = Math.max(0, chunkCol - 1); c <= Math.min(chunkCols - 1, chunkCol + 1); c++) {
+                chunk(r * chunkCols + c);
+            }
+        }
+    }
+
+    /**
+     * Drops the resident chunk farthest from the focus that can be dropped.
+     * If every chunk is pinned the grid grows past its limit instead.
+     */
+    private void evictFarthest() {
+        int focusRow = (focus >= 0) ? focus / chunkCols : 0;
+        int focusCol = (focus >= 0) ? focus % chunkCols : 0;
+        int victim = -1;
+        int farthest = -1;
+        for (int i = 0; i < residentCount; i++) {
+            int index = resident[i];
+            int distance = Math.max(Math.abs(index / chunkCols - focusRow), Math.abs(index % chunkCols - focusCol));
+            if (distance > farthest && canEvict(index)) {
+                victim = i;
+                farthest = distance;
+            }
+        }
+        if (victim < 0) {
+            return;
+        }
+        int index = resident[victim];
+        if (dirty.get(index)) {
+            writeChunks(new int[]{ index });
+        }
+        PackedGrid chunk = chunks[index];
+        chunks[index] = null;
+        resident[victim] = resident[--residentCount];
+        evictions++;
+        CHUNK_EVICTIONS.increment();
+        if (listener != null) {
+            listener.chunkEvicted(firstRow(index), firstCol(index), widthOf(index), chunk);
+        }
+    }
+
+    private boolean canEvict(int index) {
+        if (index == focus || (dirty.get(index) && !writeBack)) {
+            return false;
+        }
+        for (byte code : chunks[index].codes()) {
+            if (code == TileCodes.HERO) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes every changed chunk back to the file. Does nothing without write-back.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    void flush() {
+        if (!writeBack || dirty.isEmpty()) {
+            return;
+        }
+        writeChunks(dirty.stream().toArray());
+    }
+
+    private void writeChunks(int[] indexes) {
+        PackedGrid[] grids = new PackedGrid[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            grids[i] = chunks[indexes[i]];
+        }
+        try {
+            file.write(indexes, grids);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write chunks: " + e.getMessage(), e);
+        }
+        for (int index : indexes) {
+            dirty.clear(index);
+        }
+        writes += indexes.length;
+    }
+
+    private int firstRow(int index) {
+        return (index / chunkCols) << shift;
+    }
+
+    private int firstCol(int index) {
+        return (index % chunkCols) << shift;
+    }
+
+    private int widthOf(int index) {
+        return Math.min(mask + 1, file.getCols() - firstCol(index));
+    }
+
+    // === Statistics ===
+
+    /**
+     * Estimates the heap this grid may use once its resident limit is reached.
+     * The estimate does not change as chunks come and go, so caches can account for it once.
+     */
+    public long estimateBytes() {
+        long chunkBytes = (mask + 1L) * (mask + 1L) + 64;
+        return maxResident * chunkBytes + chunks.length * 8L;
+    }
+
+    /**
+     * Returns the side of a chunk in tiles.
+     */
+    public int getChunkSize() {
+        return mask + 1;
+    }
+
+    public int getResidentCount() {
+        return residentCount;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    RoomChunks getFile() {
+        return file;
+    }
+}
@@ -7,8 +7,8 @@ package model;
  * - Master door ('D'): requires a key to pass through.
  */
 public class Door extends GameObject {
-    private String targetRoomFilename;
-    private boolean requiresKey;
+    private final String targetRoomFilename;
+    private final boolean requiresKey;
 
     /**
      * Constructs a door that links to another room.
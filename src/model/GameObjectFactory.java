@@ -1,50 +1,166 @@
 package model;
 
+import util.CSVTokenReader;
+
+import java.nio.charset.StandardCharsets;
+
 /**
  * Factory class for creating GameObject instances from character symbols.
  * Used when loading room data from CSV files.
+ *
+ * Symbols are dispatched through a table indexed by the symbol character.
+ * Weapons, potions, keys, and the Master Door never change after construction,
+ * so every cell with the same symbol shares one instance of them.
+ * Monsters and the hero have their own state and are created per cell.
  */
 public class GameObjectFactory {
 
+    /**
+     * One entry of the symbol table.
+     */
+    private static class Entry {
+        final GameObject shared; // Shared instance for stateless symbols, or null
+        final String name;       // Monster name, or null
+        final int hp;            // Monster default HP
+        final int damage;        // Monster damage
+
+        Entry(GameObject shared, String name, int hp, int damage) {
+            this.shared = shared;
+            this.name = name;
+            this.hp = hp;
+            this.damage = damage;
+        }
+    }
+
+    private static final Entry HERO = new Entry(null, null, 0, 0);
+    private static final Entry[] TABLE = new Entry[128];
+
+    static {
+        shared('S', new Weapon("Stick", 1, 'S'));
+        shared('W', new Weapon("Weak Sword", 2, 'W'));
+        shared('X', new Weapon("Strong Sword", 3, 'X'));
+        shared('m', new Potion("Minor Flask", 6, 'm'));
+        shared('B', new Potion("Big Flask", 12, 'B'));
+        shared('*', new Key());
+        shared('D', new Door("rooms/room1.csv", true));
+        monster('G', "Goblin", 3, 1);
+        monster('O', "Orc", 8, 3);
+        monster('T', "Troll", 15, 4);
+        TABLE['@'] = HERO;
+    }
+
+    private static void shared(char symbol, GameObject obj) {
+        TABLE[symbol] = new Entry(obj, null, 0, 0);
+    }
+
+    private static void monster(char symbol, String name, int hp, int damage) {
+        TABLE[symbol] = new Entry(null, name, hp, damage);
+    }
+
     /**
      * Creates a GameObject based on the given symbol character.
      *
      * @param raw the raw string value from the CSV cell (e.g., "G", "S", "d:room3.csv")
      * @param currentRoomFile the current room filename, used for determining door target
-     * @return a new GameObject instance, or null if symbol is unrecognized or empty
+     * @return a GameObject instance, or null if symbol is unrecognized or empty
      */
     public static GameObject createFromSymbol(String raw, String currentRoomFile) {
         if (raw == null || raw.trim().isEmpty()) return null;
-    
+
+        int length = raw.length();
+        char first = raw.charAt(0);
+        if (length == 1) return createFromSymbol(first);
+        if (raw.charAt(1) != ':') return null; // unknown symbol
+
+        // --- Door parsing ---
+        if (first == 'd') return new Door(raw.substring(2).trim(), false);
+
+        // --- Monster with HP parsing ---
+        int hp = 0;
+        for (int i = 2; i < length; i++) {
+            int d = raw.charAt(i) - '0';
+            if (d < 0 || d > 9 || hp > (Integer.MAX_VALUE - d) / 10) return null;
+            hp = hp * 10 + d;
+        }
+        return (length > 2) ? createMonster(first, hp) : null;
+    }
+
+    /**
+     * Creates a GameObject from the raw bytes of a CSV cell without building a String.
+     * Accepts the same grammar as createFromSymbol(String).
+     *
+     * @param raw buffer holding the trimmed cell, starting at index 0
+     * @param length number of bytes in the cell
+     * @return a GameObject instance, or null if symbol is unrecognized or empty
+     */
+    public static GameObject createFromSymbol(byte[] raw, int length) {
+        if (length == 0) return null;
+        char first = (char) (raw[0] & 0xFF);
+        if (length == 1) return createFromSymbol(first);
+        if (raw[1] != ':') return null; // unknown symbol
+
         // --- Door parsing ---
-        if (raw.startsWith("d:")) return new Door(raw.substring(2).trim(), false);
-        if (raw.equals("D")) return new Door("rooms/room1.csv", true);
+        if (first == 'd') {
+            return new Door(new String(raw, 2, length - 2, StandardCharsets.UTF_8).trim(), false);
+        }
 
         // --- Monster with HP parsing ---
-        if (raw.matches("^[GOT]:\\d+$")) {
-            char symbol = raw.charAt(0);
-            int hp = Integer.parseInt(raw.split(":")[1]);
-
-            switch (symbol) {
-                case 'G': return new Monster("Goblin", hp, 1, 'G');
-                case 'O': return new Monster("Orc", hp, 3, 'O');
-                case 'T': return new Monster("Troll", hp, 4, 'T');
-            }
+        try {
+            return createMonster(first, CSVTokenReader.parseDigits(raw, 2, length - 2));
+        } catch (NumberFormatException e) {
+            return null; // malformed HP, treated like an unknown symbol
+        }
+    }
+
+    /**
+     * Returns the GameObject for a single-character symbol.
+     * Stateless items are shared instances; monsters and the hero are new objects.
+     *
+     * @param symbol the symbol (e.g., 'G', 'W', '*')
+     * @return a GameObject instance, or null if symbol is unrecognized
+     */
+    public static GameObject createFromSymbol(char symbol) {
+        Entry entry = (symbol < TABLE.length) ? TABLE[symbol] : null;
+        if (entry == null) return null;
+        if (entry.shared != null) return entry.shared;
+        if (entry == HERO) return Hero.spawnPoint();
+        return new Monster(entry.name, entry.hp, entry.damage, symbol);
+    }
+
+    /**
+     * Creates a monster of the given type with the given HP.
+     *
+     * @param type monster type ('G', 'O', or 'T')
+     * @param hp starting health points
+     * @return a new Monster, or null if the type is unknown
+     */
+    public static Monster createMonster(char type, int hp) {
+        Entry entry = (type < TABLE.length) ? TABLE[type] : null;
+        if (entry == null || entry.name == null) return null;
+        return new Monster(entry.name, hp, entry.damage, type);
+    }
+
+    /**
+     * Returns the CSV symbol that recreates the given object.
+     * This is the inverse of createFromSymbol and reflects the object's current state
+     * (e.g., a damaged Goblin becomes "G:1").
+     *
+     * @param obj the object (may be null)
+     * @return the raw symbol string; a blank for empty tiles and the hero
+     */
+    public static String toSymbol(GameObject obj) {
+        if (obj == null || obj instanceof Hero) return " ";
+        if (obj instanceof Door) {
+            Door door = (Door) obj;
+            return door.requiresKey() ? "D" : "d:" + door.getTargetRoomFilename();
         }
-    
-        // --- Standard symbols ---
-        switch (raw) {
-            case "@": return new Hero();
-            case "S": return new Weapon("Stick", 1, 'S');
-            case "W": return new Weapon("Weak Sword", 2, 'W');
-            case "X": return new Weapon("Strong Sword", 3, 'X');
-            case "m": return new Potion("Minor Flask", 6, 'm');
-            case "B": return new Potion("Big Flask", 12, 'B');
-            case "G": return new Monster("Goblin", 3, 1, 'G');
-            case "O": return new Monster("Orc", 8, 3, 'O');
-            case "T": return new Monster("Troll", 15, 4, 'T');
-            case "*": return new Key();
-            default: return null; // unknown symbol
+        if (obj instanceof Monster) {
+            Monster monster = (Monster) obj;
+            return monster.getType() + ":" + monster.getHp();
         }
+        if (obj instanceof Weapon) return String.valueOf(((Weapon) obj).getType());
+        if (obj instanceof Potion) return String.valueOf(((Potion) obj).getType());
+        if (obj instanceof Key) return "*";
+        return " ";
     }
 }
\ No newline at end of file
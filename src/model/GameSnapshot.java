@@ -0,0 +1,387 @@
+package model;
+
+import util.Histogram;
+import util.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes a game snapshot: one binary file holding the hero and every room that
+ * changed during the game, so a session resumes from a single file instead of room files.
+ * Each save appends the rooms changed since the last one, then a new directory; rooms that
+ * did not change keep their earlier records. On resume only the header and directory are
+ * read; a room's record is memory-mapped and decoded when the game asks for it, so offsets
+ * are not limited to the 2 GB a single mapping can cover.
+ *
+ * Layout (big-endian):
+ *   int    magic        'GAME'
+ *   short  version      1
+ *   short  reserved     0
+ *   long   dirOffset    position of the current directory (0 before the first save)
+ *   int    dirLength
+ *   room records, each a binary room (see RoomBinary)
+ *   directory:
+ *     int   hp, byte weapon symbol (0 for none), byte key (0/1)
+ *     str   current room, int row, int col    where the hero is
+ *     int   count, then per remembered position: str key, int row, int col
+ *     int   count, then per room: str name, long offset, int length
+ *   (str is a short length and UTF-8 bytes)
+ *
+ * The header is pointed at a new directory only after its records and the directory itself
+ * are written and forced to disk, so a crash in the middle of a save leaves the previous save
+ * in use. Once stale
+ * records fill more than half of the file it is compacted into a new one.
+ */
+public class GameSnapshot {
+    private static final Histogram WRITE = Metrics.histogram("snapshot.write");
+    private static final Histogram LOAD_ROOM = Metrics.histogram("snapshot.load.room");
+
+    static final int MAGIC = 0x47414D45; // "GAME"
+    static final short VERSION = 1;
+    private static final int HEADER = 20;
+    private static final long MIN_COMPACT = 1 << 20; // Stale bytes tolerated before compacting
+
+    private final Path path;
+    private final Map<String, long[]> rooms = new LinkedHashMap<>(); // Room name to {offset, length}
+    private long fileSize;        // Bytes in use: header, records, and the current directory
+    private long liveBytes;       // Bytes of the records the directory points at
+    private int dirLength;
+
+    // Hero state of the last save
+    private int hp;
+    private char weapon;          // Weapon symbol, or 0 for none
+    private boolean key;
+    private String currentRoom;   // Null until the first save
+    private int row;
+    private int col;
+    private final Map<String, int[]> positions = new HashMap<>();
+
+    private GameSnapshot(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens a snapshot file, reading its header and directory.
+     * A missing or empty file gives an empty snapshot, which the first save creates.
+     * @param filename path of the snapshot file
+     * @throws IOException if the file exists but is not a valid snapshot
+     */
+    public static GameSnapshot open(String filename) throws IOException {
+        GameSnapshot snapshot = new GameSnapshot(Paths.get(filename));
+        if (Files.exists(snapshot.path) && Files.size(snapshot.path) > 0) {
+            snapshot.readDirectory();
+        }
+        return snapshot;
+    }
+
+    private void readDirectory() throws IOException {
+        ByteBuffer buf;
+        long dirOffset;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = (channel.size() >= HEADER) ? readFully(channel, 0, HEADER) : null;
+            if (header == null || header.getInt() != MAGIC) {
+                throw new IOException("Not a game snapshot: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported game snapshot version " + version + ": " + path);
+            }
+            header.getShort(); // reserved
+            dirOffset = header.getLong();
+            dirLength = header.getInt();
+            if (dirOffset == 0) {
+                fileSize = HEADER; // Nothing was saved yet
+                return;
+            }
+            buf = readFully(channel, dirOffset, dirLength);
+        }
+
+        hp = buf.getInt();
+        weapon = (char) (buf.get() & 0xFF);
+        key = buf.get() != 0;
+        currentRoom = getString(buf);
+        row = buf.getInt();
+        col = buf.getInt();
+        for (int i = buf.getInt(); i > 0; i--) {
+            String room = getString(buf);
+            positions.put(room, new int[]{ buf.getInt(), buf.getInt() });
+        }
+        for (int i = buf.getInt(); i > 0; i--) {
+            String room = getString(buf);
+            long offset = buf.getLong();
+            int length = buf.getInt();
+            rooms.put(room, new long[]{ offset, length });
+            liveBytes += length;
+        }
+        fileSize = dirOffset + dirLength; // Anything after it is left from an unfinished save
+    }
+
+    // === Rooms ===
+
+    /**
+     * Maps a room's record and decodes the room from it.
+     * @param name room file name (e.g., "room2.csv")
+     * @param storage how tiles are stored (not CHUNKED; chunked rooms keep their own chunk files)
+     * @return the room, named after its record, or null if the snapshot does not hold it
+     * @throws IOException if the record is damaged
+     */
+    public Room loadRoom(String name, Room.Storage storage) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer record;
+        synchronized (this) {
+            long[] entry = rooms.get(name);
+            if (entry == null) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                record = channel.map(FileChannel.MapMode.READ_ONLY, entry[0], entry[1]);
+            }
+        }
+        Room room = RoomBinary.load(record, name, storage); // The mapping outlives a compaction
+        LOAD_ROOM.recordSince(start);
+        return room;
+    }
+
+    /**
+     * Drops a room from the directory, e.g. because a newer copy of it was saved elsewhere.
+     * The file keeps pointing at the room until the next save.
+     */
+    public synchronized void forget(String name) {
+        long[] entry = rooms.remove(name);
+        if (entry != null) {
+            liveBytes -= entry[1];
+        }
+    }
+
+    // === Hero ===
+
+    /**
+     * Returns the room the hero was in at the last save, or null if nothing was saved.
+     */
+    public String getCurrentRoom() {
+        return currentRoom;
+    }
+
+    public int getHeroRow() {
+        return row;
+    }
+
+    public int getHeroCol() {
+        return col;
+    }
+
+    /**
+     * Gives a hero the stats and remembered positions of the last save.
+     */
+    public void restoreHero(Hero hero) {
+        hero.setHp(hp);
+        hero.setWeapon(weapon != 0 ? (Weapon) GameObjectFactory.createFromSymbol(weapon) : null);
+        if (key) {
+            hero.obtainKey();
+        }
+        for (Map.Entry<String, int[]> saved : positions.entrySet()) {
+            hero.savePosition(saved.getKey(), saved.getValue()[0], saved.getValue()[1]);
+        }
+    }
+
+    // === Saving ===
+
+    /**
+     * Saves the game: appends the given rooms and a new directory with the hero's state.
+     * Rooms not given keep their records from earlier saves.
+     * @param changed snapshots of the rooms changed since the last save
+     * @param hero the hero
+     * @param current file name of the hero's room
+     * @throws IOException if the file cannot be written; the previous save stays in use
+     */
+    public synchronized void write(Collection<RoomSnapshot> changed, Hero hero, String current) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (fileSize < HEADER) {
+                writeFully(channel, header(0, 0), 0);
+                fileSize = HEADER;
+            }
+            for (RoomSnapshot room : changed) {
+                byte[] record = encode(room); // A record's length is an int in the directory
+                writeFully(channel, ByteBuffer.wrap(record), fileSize);
+                long[] old = rooms.put(nameOf(room), new long[]{ fileSize, record.length });
+                liveBytes += record.length - (old != null ? old[1] : 0);
+                fileSize += record.length;
+            }
+
+            hp = hero.getHp();
+            weapon = (hero.getWeapon() != null) ? hero.getWeapon().getType() : 0;
+            key = hero.hasKey();
+            currentRoom = current;
+            row = hero.getRow();
+            col = hero.getCol();
+            positions.clear();
+            positions.putAll(hero.getSavedPositions());
+
+            // Point the header at the new directory only once everything it lists is on disk
+            byte[] directory = encodeDirectory(rooms);
+            writeFully(channel, ByteBuffer.wrap(directory), fileSize);
+            channel.force(true);
+            writeFully(channel, header(fileSize, directory.length), 0);
+            channel.force(false);
+            fileSize += directory.length;
+            dirLength = directory.length;
+        }
+        long stale = fileSize - HEADER - dirLength - liveBytes;
+        if (stale > liveBytes && stale > MIN_COMPACT) {
+            compact();
+        }
+        WRITE.recordSince(start);
+    }
+
+    /**
+     * Copies the current records into a new file, dropping the stale ones.
+     */
+    private void compact() throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = HEADER;
+            Map<String, long[]> moved = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> room : rooms.entrySet()) {
+                long[] entry = room.getValue();
+                copy(in, entry[0], entry[1], out, position);
+                moved.put(room.getKey(), new long[]{ position, entry[1] });
+                position += entry[1];
+            }
+            byte[] directory = encodeDirectory(moved);
+            writeFully(out, ByteBuffer.wrap(directory), position);
+            writeFully(out, header(position, directory.length), 0);
+            out.force(true); // The new file replaces the old one only once it is on disk
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            rooms.putAll(moved);
+            fileSize = position + directory.length;
+            dirLength = directory.length;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of rooms in the snapshot.
+     */
+    public synchronized int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Returns the bytes of the snapshot file in use.
+     */
+    public synchronized long getSize() {
+        return fileSize;
+    }
+
+    // === Encoding ===
+
+    private static byte[] encode(RoomSnapshot room) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(room.codes().length + 64 + room.entityCount() * 9);
+        RoomBinary.write(room, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeDirectory(Map<String, long[]> rooms) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + rooms.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(hp);
+        out.writeByte(weapon);
+        out.writeByte(key ? 1 : 0);
+        putString(out, currentRoom);
+        out.writeInt(row);
+        out.writeInt(col);
+        out.writeInt(positions.size());
+        for (Map.Entry<String, int[]> saved : positions.entrySet()) {
+            putString(out, saved.getKey());
+            out.writeInt(saved.getValue()[0]);
+            out.writeInt(saved.getValue()[1]);
+        }
+        out.writeInt(rooms.size());
+        for (Map.Entry<String, long[]> room : rooms.entrySet()) {
+            putString(out, room.getKey());
+            out.writeLong(room.getValue()[0]);
+            out.writeInt((int) room.getValue()[1]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer header(long dirOffset, int dirLength) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(dirOffset).putInt(dirLength).flip();
+        return buf;
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String nameOf(RoomSnapshot room) {
+        return Paths.get(room.getFileName()).getFileName().toString();
+    }
+
+    // === File helpers ===
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Game snapshot is truncated");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Copies a range of one file into another without holding it in memory.
+     */
+    private static void copy(FileChannel in, long from, long length, FileChannel out, long to) throws IOException {
+        out.position(to);
+        for (long done = 0; done < length; ) {
+            long count = in.transferTo(from + done, length - done, out);
+            if (count <= 0 && from + done >= in.size()) {
+                throw new IOException("Game snapshot is truncated");
+            }
+            done += count;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long at = position;
+        while (buf.hasRemaining()) {
+            at += channel.write(buf, at);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Storage backend for a room's tiles.
+ * Room reads and writes tiles only through this interface,
+ * so the object grid and the packed grid can be swapped freely.
+ */
+public interface Grid {
+
+    /**
+     * Returns the object on a tile.
+     * @return the object, or null if the tile is empty
+     */
+    GameObject get(int row, int col);
+
+    /**
+     * Places an object on a tile, replacing whatever was there.
+     * @param obj the object, or null to clear the tile
+     */
+    void set(int row, int col, GameObject obj);
+
+    /**
+     * Fills a tile while loading a room from file.
+     * @param obj the object created from the symbol (may be null)
+     * @param raw the raw symbol string from the file
+     */
+    void place(int row, int col, GameObject obj, String raw);
+
+    /**
+     * Returns a Cell for a tile.
+     * Packed storage returns a lightweight view backed by the grid.
+     */
+    Cell cellAt(int row, int col);
+}
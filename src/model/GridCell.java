@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * A Cell view over one tile of a Grid.
+ * Holds no tile state itself; every read and write goes to the grid.
+ */
+class GridCell extends Cell {
+    private final Grid grid;
+    private final int row;
+    private final int col;
+
+    GridCell(Grid grid, int row, int col) {
+        super(null, null);
+        this.grid = grid;
+        this.row = row;
+        this.col = col;
+    }
+
+    @Override
+    public GameObject getObject() {
+        return grid.get(row, col);
+    }
+
+    @Override
+    public void setObject(GameObject object) {
+        grid.set(row, col, object);
+    }
+
+    @Override
+    public String getOriginalSymbol() {
+        return GameObjectFactory.toSymbol(getObject());
+    }
+
+    @Override
+    public char getSymbol() {
+        GameObject object = getObject();
+        return (object != null) ? object.getSymbol() : ' ';
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getObject() == null;
+    }
+}
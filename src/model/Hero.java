@@ -1,17 +1,22 @@
 package model;
 
-import app.Game;
+import app.GameSession;
+import util.Histogram;
+import util.Metrics;
 
+import java.io.PrintStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
 
 /**
  * Represents the player's controllable hero character.
  * Handles movement, combat, inventory (weapon and key), and status.
  */
 public class Hero extends GameObject {
+    private static final Histogram MOVE = Metrics.histogram("hero.move");
+    private static final Histogram ATTACK = Metrics.histogram("hero.attack");
+
     private int maxHp = 25;
     private int currentHp = 25;
     private Weapon weapon = null;
@@ -23,11 +28,33 @@ public class Hero extends GameObject {
     // Stores the last known position per room
     private Map<String, int[]> roomPositions = new HashMap<>();
 
+    // Session this hero plays in (decisions, room loading, output)
+    private GameSession session;
+
+    private boolean spawnPoint = false; // Stands for an @ tile of a room file, not a player
+
     public Hero() {
         this.row = 0;
         this.col = 0;
     }
 
+    /**
+     * Creates the placeholder for an @ tile in a room file. The real hero replaces it
+     * when it spawns there (see Room.placeHero); unused ones are saved back as @.
+     */
+    static Hero spawnPoint() {
+        Hero hero = new Hero();
+        hero.spawnPoint = true;
+        return hero;
+    }
+
+    /**
+     * Checks whether this is a spawn placeholder rather than a hero in play.
+     */
+    boolean isSpawnPoint() {
+        return spawnPoint;
+    }
+
     // === Basic Getters and Setters ===
 
     public int getHp() { return currentHp; }
@@ -48,6 +75,16 @@ public class Hero extends GameObject {
         this.col = col;
     }
 
+    public GameSession getSession() { return session; }
+    public void setSession(GameSession session) { this.session = session; }
+
+    /**
+     * Returns the stream game messages are written to.
+     */
+    private PrintStream out() {
+        return session.out();
+    }
+
     @Override
     public char getSymbol() {
         return '\u263A'; // ☺
@@ -57,9 +94,17 @@ public class Hero extends GameObject {
      * Prints the hero's current stats to the console.
      */
     public void printStats() {
-        System.out.println("HP: " + currentHp + "/" + maxHp +
+        out().println(getStatsLine());
+    }
+
+    /**
+     * Returns the hero's stats as a single line.
+     * @return HP, weapon, and key status
+     */
+    public String getStatsLine() {
+        return "HP: " + currentHp + "/" + maxHp +
                 " | Weapon: " + (weapon != null ? weapon.getName() : "None") +
-                " | Key: " + (hasKey ? "Yes" : "No"));
+                " | Key: " + (hasKey ? "Yes" : "No");
     }
 
     /**
@@ -81,12 +126,30 @@ public class Hero extends GameObject {
         return roomPositions.getOrDefault(roomFilename, null);
     }
 
+    /**
+     * Returns the last known position per room (room file name to [row, col]).
+     */
+    public Map<String, int[]> getSavedPositions() {
+        return Collections.unmodifiableMap(roomPositions);
+    }
+
     /**
      * Handles movement logic for the hero.
      * Interacts with items, doors, monsters, and performs bounds checking.
      * Handles automatic item pickup and room transitions.
+     * The time taken is recorded, without the time spent waiting for prompt answers.
      */
     public void move(char direction, Room room) {
+        long start = System.nanoTime();
+        long prompted = promptNanos();
+        try {
+            doMove(direction, room);
+        } finally {
+            MOVE.record(System.nanoTime() - start - (promptNanos() - prompted));
+        }
+    }
+
+    private void doMove(char direction, Room room) {
         int newRow = row;
         int newCol = col;
 
@@ -97,19 +160,17 @@ public class Hero extends GameObject {
             case 'l': newCol--; break;
             case 'r': newCol++; break;
             default:
-                System.out.println("Invalid direction.");
+                out().println("Invalid direction.");
                 return;
         }
 
         // Check bounds
         if (newRow < 0 || newRow >= room.getRows() || newCol < 0 || newCol >= room.getCols()) {
-            System.out.println("You can't move there.");
+            out().println("You can't move there.");
             return;
         }
 
-        Cell[][] grid = room.getGrid();
-        Cell targetCell = grid[newRow][newCol];
-        GameObject obj = targetCell.getObject();
+        GameObject obj = room.getObject(newRow, newCol);
 
         // === Door logic ===
         if (obj instanceof Door) {
@@ -118,129 +179,201 @@ public class Hero extends GameObject {
 
             // Save current position before moving
             roomPositions.put(room.getFileName(), new int[]{row, col});
+            session.positionSaved(room.getFileName(), row, col);
 
             // Escape through Master Door
             if (door.requiresKey() && nextRoom.contains("room1")) {
                 if (hasKey) {
-                    System.out.println("You used the key and escaped the maze! Congratulations!");
-                    System.exit(0); // End the game
+                    out().println("You used the key and escaped the maze! Congratulations!");
+                    session.escape(); // End the game
+                    return;
                 } else {
-                    System.out.println("The Master Door is locked. You need a key to escape.");
+                    out().println("The Master Door is locked. You need a key to escape.");
                     return;
                 }
             }
 
             // Regular door or valid master door entry
             if (!door.requiresKey() || hasKey) {
-                System.out.println(
+                out().println(
                     (door.requiresKey() ? "You used the key" : "You entered") +
                     " and moved to the next room: " + nextRoom
                 );
 
-                // Save current room state
-                room.saveToCSV();
+                // Leave the current room and save its state. The hero is taken off its tile:
+                // a cached room would otherwise keep this object as a ghost that blocks the
+                // tile and counts as an @ spawn, and would differ from the room as saved
+                room.removeHero(this);
+                session.saveRoom(room);
 
                 // Load or retrieve the next room from cache
-                Room nextRoomObj = Game.getRoom(nextRoom);
+                Room nextRoomObj = session.enterRoom(nextRoom);
                 if (nextRoomObj == null) {
-                    System.out.println("[ERROR] Failed to load room: " + nextRoom);
+                    out().println("[ERROR] Failed to load room: " + nextRoom);
                     return;
                 }
 
                 // Determine position for re-entry if known
-                if (roomPositions.containsKey(nextRoom)) {
+                if (roomPositions.containsKey(nextRoom) && !nextRoomObj.isShared()) {
                     int[] pos = roomPositions.get(nextRoom);
                     this.setPosition(pos[0], pos[1]);
-                    nextRoomObj.getGrid()[pos[0]][pos[1]].setObject(this);
+                    nextRoomObj.setObject(pos[0], pos[1], this);
                 } else {
                     nextRoomObj.placeHero(this);
                 }
 
-                Game.setCurrentRoom(nextRoomObj);
+                session.setCurrentRoom(nextRoomObj);
                 return;
             } else {
-                System.out.println("The door is locked. You need a key.");
+                out().println("The door is locked. You need a key.");
                 return;
             }
         }
 
         // === Monster block check ===
         if (obj instanceof Monster) {
-            System.out.println("A monster blocks your way!");
+            out().println("A monster blocks your way!");
             return;
         }
 
-        // === Potion auto-healing ===
-        if (obj instanceof Potion) {
-            Potion potion = (Potion) obj;
-            if (currentHp < maxHp) {
-                int healed = potion.getHealAmount();
-                currentHp = Math.min(maxHp, currentHp + healed);
-                System.out.println("You drank a " + potion.getName() + " and restored " + healed + " HP!");
-                targetCell.setObject(null);  // Remove used potion
-            } else {
-                System.out.println("You're already at full health.");
-            }
+        // === Other heroes in a shared room ===
+        if (obj instanceof Hero && room.isOccupant((Hero) obj)) {
+            out().println("Another hero is in your way.");
+            return;
         }
 
-        // === Weapon pickup or swap ===
-        if (obj instanceof Weapon) {
+        // Ask before locking, so a waiting prompt never holds up other heroes
+        String switchAnswer = null;
+        if (obj instanceof Weapon && weapon != null) {
             Weapon newWeapon = (Weapon) obj;
-            if (weapon == null) {
-                weapon = newWeapon;
-                System.out.println("You picked up a " + newWeapon.getName() + "!");
-                targetCell.setObject(null);
-            } else {
-                System.out.println("Found a " + newWeapon.getName() + ". Current weapon: " + weapon.getName());
-                System.out.print("Do you want to switch? (y/n): ");
-                Scanner scanner = new Scanner(System.in);
-                String input = "";
-                try {
-                    input = scanner.nextLine().trim().toLowerCase();
-                } catch (NoSuchElementException e) {
-                    System.out.println("[ERROR] Unable to read your input.");
-                    return;
+            out().println("Found a " + newWeapon.getName() + ". Current weapon: " + weapon.getName());
+            out().print("Do you want to switch? (y/n): ");
+            switchAnswer = session.ask(InputSource.Prompt.SWITCH_WEAPON);
+            if (switchAnswer == null) {
+                out().println("[ERROR] Unable to read your input.");
+                return;
+            }
+            switchAnswer = switchAnswer.trim().toLowerCase();
+        }
+
+        // Pickups and the move itself happen together, so two heroes never take the same item
+        int oldRow = row;
+        int oldCol = col;
+        room.lock(oldRow, oldCol, newRow, newCol);
+        try {
+            if (room.getObject(newRow, newCol) != obj) {
+                out().println("Someone else got there first.");
+                return;
+            }
+
+            // === Potion auto-healing ===
+            if (obj instanceof Potion) {
+                Potion potion = (Potion) obj;
+                if (currentHp < maxHp) {
+                    int healed = potion.getHealAmount();
+                    currentHp = Math.min(maxHp, currentHp + healed);
+                    out().println("You drank a " + potion.getName() + " and restored " + healed + " HP!");
+                    room.setObject(newRow, newCol, null);  // Remove used potion
+                } else {
+                    out().println("You're already at full health.");
                 }
+            }
 
-                if (input.equals("y")) {
+            // === Weapon pickup or swap ===
+            if (obj instanceof Weapon) {
+                Weapon newWeapon = (Weapon) obj;
+                if (weapon == null) {
+                    weapon = newWeapon;
+                    out().println("You picked up a " + newWeapon.getName() + "!");
+                    room.setObject(newRow, newCol, null);
+                } else if (switchAnswer.equals("y")) {
                     // Drop current weapon and equip new one
-                    targetCell.setObject(weapon);
+                    room.setObject(newRow, newCol, weapon);
                     weapon = newWeapon;
-                    System.out.println("You switched weapons.");
-                } else if (input.equals("n")) {
-                    System.out.println("You kept your current weapon.");
+                    out().println("You switched weapons.");
+                } else if (switchAnswer.equals("n")) {
+                    out().println("You kept your current weapon.");
                 } else {
-                    System.out.println("[ERROR] Invalid input. Weapon not switched.");
+                    out().println("[ERROR] Invalid input. Weapon not switched.");
                 }
             }
-        }
 
-        // === Key pickup ===
-        if (obj instanceof Key) {
-            hasKey = true;
-            System.out.println("You picked up a key!");
-            targetCell.setObject(null);
+            // === Key pickup ===
+            if (obj instanceof Key) {
+                hasKey = true;
+                out().println("You picked up a key!");
+                room.setObject(newRow, newCol, null);
+            }
+
+            // === Perform movement ===
+            room.setObject(row, col, null); // Clear old position
+            row = newRow;
+            col = newCol;
+            room.setObject(row, col, this); // Move to new position
+        } finally {
+            room.unlock(oldRow, oldCol, newRow, newCol);
         }
+    }
 
-        // === Perform movement ===
-        grid[row][col].setObject(null); // Clear old position
-        row = newRow;
-        col = newCol;
-        grid[row][col].setObject(this); // Move to new position
+    /**
+     * Walks along a route one move at a time, with the same effects as typing each move.
+     * Stops early if a move does not land on the next tile (e.g., a prompt was declined),
+     * the hero leaves the room, or the game ends.
+     * @param route tile indexes (row * cols + col) from the first step to the goal
+     * @param room the room the route was planned in
+     * @return number of moves made
+     */
+    public int travel(int[] route, Room room) {
+        int cols = room.getCols();
+        int moves = 0;
+        for (int tile : route) {
+            int r = tile / cols;
+            int c = tile % cols;
+            if (Math.abs(r - row) + Math.abs(c - col) != 1) {
+                break; // Not next to the hero: the route no longer applies
+            }
+            char direction = (r < row) ? 'u' : (r > row) ? 'd' : (c < col) ? 'l' : 'r';
+            move(direction, room);
+            moves++;
+            if (session != null && (session.isOver() || session.getCurrentRoom() != room)) {
+                break;
+            }
+            if (row != r || col != c) {
+                break; // Blocked or stopped at a prompt
+            }
+        }
+        return moves;
     }
 
     /**
      * Attacks a monster in an adjacent cell (up/down/left/right).
      * Damage is exchanged between hero and monster.
      * Handles monster death and Troll's key drop.
+     * The time taken is recorded, without the time spent waiting for prompt answers.
      */
     public void attack(Room room) {
+        long start = System.nanoTime();
+        long prompted = promptNanos();
+        try {
+            doAttack(room);
+        } finally {
+            ATTACK.record(System.nanoTime() - start - (promptNanos() - prompted));
+        }
+    }
+
+    /**
+     * Returns the session's total time spent waiting for prompt answers.
+     */
+    private long promptNanos() {
+        return (session != null) ? session.getPromptNanos() : 0;
+    }
+
+    private void doAttack(Room room) {
         if (weapon == null) {
-            System.out.println("You have no weapon to attack with!");
+            out().println("You have no weapon to attack with!");
             return;
         }
 
-        Cell[][] grid = room.getGrid();
         int[][] directions = {
             {-1, -1}, {-1, 0}, {-1, 1},
             {0, -1},           {0, 1},
@@ -256,59 +389,68 @@ public class Hero extends GameObject {
 
             // Check bounds
             if (r >= 0 && r < room.getRows() && c >= 0 && c < room.getCols()) {
-                GameObject obj = grid[r][c].getObject();
+                GameObject obj = room.getObject(r, c);
 
                 if (obj instanceof Monster) {
                     Monster monster = (Monster) obj;
 
                     // Prompt user to attack
-                    System.out.println("You are next to a " + monster.getName() + " (HP: " + monster.getHp() + ")");
-                    System.out.print("Do you want to attack? (y/n): ");
-                    Scanner scanner = new Scanner(System.in);
-                    String input = "";
-                    try {
-                        input = scanner.nextLine();
-                    } catch (NoSuchElementException | IllegalStateException e) {
-                        System.out.println("[ERROR] Could not read your response. Attack canceled.");
+                    out().println("You are next to a " + monster.getName() + " (HP: " + monster.getHp() + ")");
+                    out().print("Do you want to attack? (y/n): ");
+                    String input = session.ask(InputSource.Prompt.ATTACK);
+                    if (input == null) {
+                        out().println("[ERROR] Could not read your response. Attack canceled.");
                         return;
                     }
 
                     if (input.equalsIgnoreCase("y")) {
-                        // Attack exchange
-                        monster.setHp(monster.getHp() - weapon.getDamage());
-                        this.damage(monster.getDamage());
-
-                        System.out.println("You attacked with " + weapon.getName() + " (Damage: " + weapon.getDamage() + ")");
-                        System.out.println("Monster retaliated! You took " + monster.getDamage() + " damage.");
-                        System.out.println("Your HP: " + currentHp + "/" + maxHp);
-                        System.out.println("Monster HP: " + monster.getHp());
-
-                        // If monster dies
-                        if (monster.isDead()) {
-                            System.out.println("You defeated the " + monster.getName() + "!");
-                            grid[r][c].setObject(null);
-                            room.getMonsters().remove(monster);
-
-                            if (room.getMonsters().isEmpty()) {
-                                System.out.println("🎉 You have cleared all monsters in this room!");
+                        // The exchange happens under the tile's lock, so a monster dies only once
+                        room.lock(r, c);
+                        try {
+                            if (room.getObject(r, c) != monster || monster.isDead()) {
+                                out().println("The " + monster.getName() + " is already gone.");
+                                attacked = true;
+                                break;
                             }
 
-                            // Only Troll drops a key
-                            if (monster.getName().equalsIgnoreCase("Troll")) {
-                                grid[r][c].setObject(new Key());
-                                System.out.println("The Troll dropped a key!");
-                                room.getItems().add(grid[r][c].getObject());
+                            // Attack exchange
+                            monster.setHp(monster.getHp() - weapon.getDamage());
+                            room.objectChanged(r, c);
+                            this.damage(monster.getDamage());
+
+                            out().println("You attacked with " + weapon.getName() + " (Damage: " + weapon.getDamage() + ")");
+                            out().println("Monster retaliated! You took " + monster.getDamage() + " damage.");
+                            out().println("Your HP: " + currentHp + "/" + maxHp);
+                            out().println("Monster HP: " + monster.getHp());
+
+                            // If monster dies
+                            if (monster.isDead()) {
+                                out().println("You defeated the " + monster.getName() + "!");
+                                room.setObject(r, c, null); // Also drops it from the room's monster index
+
+                                if (room.getMonsterCount() == 0) {
+                                    out().println("🎉 You have cleared all monsters in this room!");
+                                }
+
+                                // Only Troll drops a key
+                                if (monster.getName().equalsIgnoreCase("Troll")) {
+                                    GameObject key = GameObjectFactory.createFromSymbol('*');
+                                    room.setObject(r, c, key); // Indexed as an item by the room
+                                    out().println("The Troll dropped a key!");
+                                }
                             }
+                        } finally {
+                            room.unlock(r, c);
                         }
 
                         attacked = true;
                         break;
                     } else if (input.equalsIgnoreCase("n")) {
-                        System.out.println("You chose not to attack.");
+                        out().println("You chose not to attack.");
                         attacked = true;
                         break;
                     } else {
-                        System.out.println("[ERROR] Invalid input. Attack canceled.");
+                        out().println("[ERROR] Invalid input. Attack canceled.");
                         inputInvalid = true;
                         break;
                     }
@@ -317,7 +459,7 @@ public class Hero extends GameObject {
         }
 
         if (!attacked && !inputInvalid) {
-            System.out.println("There is no monster next to you.");
+            out().println("There is no monster next to you.");
         }
     }
 }
\ No newline at end of file
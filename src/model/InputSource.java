@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * Source of player decisions for a game session.
+ * Replaces direct Scanner(System.in) reads so the game can be driven
+ * by a terminal, a script, or an automated policy.
+ */
+public interface InputSource {
+
+    /**
+     * Kinds of yes/no questions the hero may ask during a turn.
+     */
+    enum Prompt {
+        SWITCH_WEAPON, // Found a weapon while already armed
+        ATTACK         // Adjacent monster, confirm the attack
+    }
+
+    /**
+     * Returns the next game command (e.g., "u", "a", "q").
+     * @return the command, or null if no more input is available
+     */
+    String nextCommand();
+
+    /**
+     * Returns the answer to a yes/no prompt.
+     * @param prompt the kind of question being asked
+     * @return the raw answer (e.g., "y" or "n"), or null if no answer could be read
+     */
+    String answer(Prompt prompt);
+}
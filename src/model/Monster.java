@@ -2,13 +2,15 @@ package model;
 
 /**
  * Represents a monster in the game with name, health points (HP), damage, and a unique symbol.
- * Monsters block movement and can be attacked by the hero.
+ * Monsters block movement and can be attacked by the hero. When monster AI is enabled
+ * they also walk about on their own (see app.MonsterScheduler).
  */
 public class Monster extends GameObject {
     private String name;
     private int hp;
     private int damage;
     private char symbol;
+    private long lastTick = 0; // Session turn this monster last moved on (not saved)
 
     /**
      * Constructs a monster with the given attributes.
@@ -57,6 +59,14 @@ public class Monster extends GameObject {
         return name;
     }
 
+    /**
+     * Returns the monster type character used in room files.
+     * @return 'G', 'O', or 'T'
+     */
+    public char getType() {
+        return symbol;
+    }
+
     /**
      * Returns the symbol representing the monster on the grid.
      * ☘ (Goblin), ⚉ (Orc), ♖ (Troll)
@@ -71,6 +81,17 @@ public class Monster extends GameObject {
         }
     }
 
+    /**
+     * Returns the turn the monster was last updated on, or 0 if it never was.
+     */
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    public void setLastTick(long turn) {
+        this.lastTick = turn;
+    }
+
     /**
      * Checks if the monster is dead (HP ≤ 0).
      */
@@ -0,0 +1,78 @@
+package model;
+
+import util.IntObjectMap;
+
+/**
+ * Grid storage backed by flat primitive arrays.
+ * Each tile is one byte type code (see TileCodes). Objects with per-tile state
+ * (monsters, regular doors, the hero) live in a side table keyed by tile index,
+ * and stateless items are the factory's shared instances.
+ * Empty tiles cost one byte instead of a Cell object.
+ */
+public class PackedGrid implements Grid {
+    private final int cols;
+    private final byte[] codes;
+    private final IntObjectMap<GameObject> entities = new IntObjectMap<>();
+
+    public PackedGrid(int rows, int cols) {
+        this.cols = cols;
+        this.codes = new byte[rows * cols];
+    }
+
+    @Override
+    public GameObject get(int row, int col) {
+        int index = row * cols + col;
+        byte code = codes[index];
+        if (code == TileCodes.EMPTY) {
+            return null;
+        }
+        if (TileCodes.isStateful(code)) {
+            return entities.get(index);
+        }
+        return GameObjectFactory.createFromSymbol(TileCodes.symbolOf(code).charAt(0));
+    }
+
+    @Override
+    public void set(int row, int col, GameObject obj) {
+        int index = row * cols + col;
+        byte code = TileCodes.encode(obj);
+        if (TileCodes.isStateful(codes[index])) {
+            entities.remove(index);
+        }
+        codes[index] = code;
+        if (TileCodes.isStateful(code)) {
+            entities.put(index, obj);
+        }
+    }
+
+    @Override
+    public void place(int row, int col, GameObject obj, String raw) {
+        set(row, col, obj);
+    }
+
+    @Override
+    public Cell cellAt(int row, int col) {
+        return new GridCell(this, row, col);
+    }
+
+    /**
+     * Returns the backing code array (row-major), for bulk loading and saving.
+     */
+    byte[] codes() {
+        return codes;
+    }
+
+    /**
+     * Stores the object for a stateful tile whose code was already written in bulk.
+     */
+    void putEntity(int index, GameObject obj) {
+        entities.put(index, obj);
+    }
+
+    /**
+     * Returns the type code of a tile.
+     */
+    public byte codeAt(int row, int col) {
+        return codes[row * cols + col];
+    }
+}
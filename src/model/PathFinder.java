@@ -0,0 +1,577 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds routes through a room for the hero's travel command.
+ * Point-to-point routes use A* with a Manhattan heuristic; "nearest door/item" routes follow
+ * a BFS distance field grown from every target tile. Both are cached per room and kept
+ * up to date as tiles change (Room.setObject reports every change here).
+ *
+ * Routes move in the four hero directions and only pass over empty tiles (or the hero's own);
+ * the last tile of a route may hold anything (a door, an item, a monster).
+ * A route is the list of tile indexes (row * cols + col) after the start, ending at the goal.
+ * Queries and updates are synchronized, so heroes in a shared room can use one finder.
+ *
+ * In a chunked room, searches only cover the chunks around the start tile (its chunk and the
+ * eight next to it, which ChunkedGrid keeps in memory around the hero), so a query never pages
+ * in the rest of the room and its arrays stay the size of that window. Goals and targets
+ * outside the window are not found. The caches are dropped when a query starts in another chunk.
+ */
+public class PathFinder {
+
+    /**
+     * Kinds of tiles a distance field leads to.
+     */
+    public enum Target {
+        DOORS, // Regular doors and the Master Door
+        ITEMS  // Weapons, potions, and keys
+    }
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int MAX_ROUTES = 64; // Cached point-to-point routes per room
+    private static final int[] ROW_STEP = { -1, 1, 0, 0 }; // u, d, l, r
+    private static final int[] COL_STEP = { 0, 0, -1, 1 };
+
+    // Per-tile flags, mirrored from the room so searches never touch tile objects
+    private static final byte PASSABLE = 1;
+    private static final byte DOOR = 2;
+    private static final byte ITEM = 4;
+
+    private final Room room;
+    private final int rows;
+    private final int cols;
+    private final int chunkSize; // Chunk side of a chunked room, or 0 to search the whole room
+
+    // Searched window of the room; the arrays below are indexed by tile within it
+    private int top = 0;
+    private int left = 0;
+    private int height;
+    private int width;
+    private byte[] flags; // Built on first use, then updated by cellChanged
+
+    // A* scratch space, reused between searches (allocated on first use)
+    private int[] cost; // base + g for tiles reached by the current search; anything below base is unvisited
+    private int base = 0;
+    private int[][] buckets = new int[8][];  // Open tiles by f - fMin (bucket queue)
+    private int[] bucketSizes = new int[8];
+    private int bucketsUsed = 0;             // Buckets touched by the current search
+
+    // Caches
+    private final LinkedHashMap<Long, int[]> routes = new LinkedHashMap<>(16, 0.75f, true);
+    private final int[][] fields = new int[Target.values().length][];
+    private int[] queue; // BFS queue shared by field builds and repairs
+
+    // Statistics
+    private long routeHits = 0;
+    private long routeMisses = 0;
+    private long fieldBuilds = 0;
+    private long fieldRepairs = 0;
+
+    PathFinder(Room room) {
+        this.room = room;
+        this.rows = room.getRows();
+        this.cols = room.getCols();
+        this.chunkSize = room.getChunkSize();
+        this.height = rows;
+        this.width = cols;
+    }
+
+    // === Point-to-point routes (A*) ===
+
+    /**
+     * Finds a shortest route between two tiles. A cached route is reused while it stays walkable,
+     * even if a tile that opened up since would now allow a shorter one.
+     * @return tile indexes from the first step to the goal (empty if start and goal are the same),
+     *         or null if the goal cannot be reached
+     */
+    public synchronized int[] findPath(int fromRow, int fromCol, int toRow, int toCol) {
+        moveWindow(fromRow, fromCol);
+        if (!inWindow(toRow, toCol)) {
+            return null;
+        }
+        Long key = ((long) fromRow * cols + fromCol) * rows * cols + (long) toRow * cols + toCol;
+        int[] cached = routes.get(key);
+        if (cached != null) {
+            routeHits++;
+            return cached.clone();
+        }
+        routeMisses++;
+
+        int[] route = search(local(fromRow, fromCol), local(toRow, toCol));
+        if (route != null) {
+            for (int i = 0; i < route.length; i++) {
+                route[i] = global(route[i]);
+            }
+            routes.put(key, route);
+            if (routes.size() > MAX_ROUTES) {
+                Iterator<Long> eldest = routes.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return route.clone();
+        }
+        return null;
+    }
+
+    /**
+     * A* search over the window, between tiles given as window indexes. Step costs are all 1,
+     * so the open set is a bucket queue indexed by f; each bucket is a stack, so among equal f
+     * the newest tile (the one closest to the goal) is expanded first, which keeps the search
+     * narrow in open rooms.
+     */
+    private int[] search(int from, int to) {
+        if (from == to) {
+            return new int[0];
+        }
+        flags();
+        int tiles = height * width;
+        if (cost == null) {
+            cost = new int[tiles];
+        }
+        // Each search gets a fresh range of cost values, so old marks never need clearing
+        if (base > Integer.MAX_VALUE - 2 * tiles - 2) {
+            Arrays.fill(cost, 0);
+            base = 0;
+        }
+        base += tiles + 1;
+        int toRow = to / width;
+        int toCol = to % width;
+
+        int fMin = heuristic(from, toRow, toCol);
+        Arrays.fill(bucketSizes, 0, bucketsUsed, 0);
+        bucketsUsed = 0;
+        cost[from] = base;
+        push(from, 0);
+
+        for (int b = 0; b < bucketsUsed; b++) {
+            while (bucketSizes[b] > 0) {
+                int tile = buckets[b][--bucketSizes[b]];
+                int g = cost[tile] - base;
+                if (g + heuristic(tile, toRow, toCol) - fMin != b) {
+                    continue; // Stale entry; the tile was reached more cheaply later
+                }
+                if (tile == to) {
+                    return reconstruct(from, to, g);
+                }
+                int r = tile / width;
+                int c = tile % width;
+                for (int d = 0; d < 4; d++) {
+                    int nr = r + ROW_STEP[d];
+                    int nc = c + COL_STEP[d];
+                    if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+                    int next = nr * width + nc;
+                    if (next != to && (flags[next] & PASSABLE) == 0) continue;
+                    if (cost[next] < base || base + g + 1 < cost[next]) {
+                        cost[next] = base + g + 1;
+                        push(next, g + 1 + heuristic(next, toRow, toCol) - fMin);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private int heuristic(int tile, int toRow, int toCol) {
+        return Math.abs(tile / width - toRow) + Math.abs(tile % width - toCol);
+    }
+
+    /**
+     * Walks back from the goal, each time to a neighbour reached one step earlier.
+     */
+    private int[] reconstruct(int from, int to, int length) {
+        int[] route = new int[length];
+        int tile = to;
+        for (int i = length - 1; i >= 0; i--) {
+            route[i] = tile;
+            int r = tile / width;
+            int c = tile % width;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr >= 0 && nr < height && nc >= 0 && nc < width && cost[nr * width + nc] == base + i) {
+                    tile = nr * width + nc;
+                    break;
+                }
+            }
+        }
+        return route;
+    }
+
+    private void push(int tile, int bucket) {
+        if (bucket >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(bucket + 1, buckets.length * 2));
+            bucketSizes = Arrays.copyOf(bucketSizes, buckets.length);
+        }
+        int[] stack = buckets[bucket];
+        if (stack == null) {
+            stack = buckets[bucket] = new int[64];
+        } else if (bucketSizes[bucket] == stack.length) {
+            stack = buckets[bucket] = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[bucketSizes[bucket]++] = tile;
+        bucketsUsed = Math.max(bucketsUsed, bucket + 1);
+    }
+
+    // === Nearest-target routes (BFS distance fields) ===
+
+    /**
+     * Finds a shortest route to the nearest tile of the given kind.
+     * @return tile indexes from the first step to the target, or null if none can be reached
+     */
+    public synchronized int[] routeToNearest(Target target, int fromRow, int fromCol) {
+        moveWindow(fromRow, fromCol);
+        int[] field = field(target);
+        int tile = local(fromRow, fromCol);
+        int distance = field[tile];
+        if (distance == UNREACHABLE || distance == 0) {
+            return null;
+        }
+
+        // Walk downhill: each step goes to a neighbour one closer to a target
+        int[] route = new int[distance];
+        for (int i = 0; i < distance; i++) {
+            int r = tile / width;
+            int c = tile % width;
+            int next = -1;
+            for (int d = 0; d < 4 && next < 0; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr >= 0 && nr < height && nc >= 0 && nc < width && field[nr * width + nc] == distance - i - 1) {
+                    next = nr * width + nc;
+                }
+            }
+            if (next < 0) {
+                return null; // Cannot happen with a consistent field
+            }
+            route[i] = global(next);
+            tile = next;
+        }
+        return route;
+    }
+
+    /**
+     * Returns the distance field for a target kind, building it if needed.
+     * Entries are steps to the nearest target, 0 on targets, UNREACHABLE where no target can be reached.
+     */
+    private int[] field(Target target) {
+        int k = target.ordinal();
+        if (fields[k] == null) {
+            fields[k] = buildField(target, null);
+        }
+        return fields[k];
+    }
+
+    private int[] buildField(Target target, int[] field) {
+        fieldBuilds++;
+        int tiles = height * width;
+        if (field == null) {
+            field = new int[tiles];
+        }
+        Arrays.fill(field, UNREACHABLE);
+        byte[] flags = flags();
+        byte mask = targetFlag(target);
+        int[] q = queue();
+        int head = 0, tail = 0;
+        for (int tile = 0; tile < tiles; tile++) {
+            if ((flags[tile] & mask) != 0) {
+                field[tile] = 0;
+                q[tail++] = tile;
+            }
+        }
+        spread(field, q, head, tail);
+        return field;
+    }
+
+    /**
+     * Breadth-first relaxation: lowers distances outward from the queued tiles.
+     */
+    private void spread(int[] field, int[] q, int head, int tail) {
+        while (head < tail) {
+            int tile = q[head++];
+            int r = tile / width;
+            int c = tile % width;
+            int next = field[tile] + 1;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+                int n = nr * width + nc;
+                if (field[n] > next && (flags[n] & PASSABLE) != 0) {
+                    field[n] = next;
+                    q[tail++] = n;
+                }
+            }
+        }
+    }
+
+    private int[] queue() {
+        if (queue == null) {
+            queue = new int[height * width];
+        }
+        return queue;
+    }
+
+    // === Invalidation ===
+
+    /**
+     * Updates the caches after a tile changed. Called by Room.setObject.
+     * Distance fields are repaired in place: distances spread out from a tile that opened up or
+     * became a target, and are recomputed around a target that went away or a tile that was blocked.
+     */
+    synchronized void cellChanged(int row, int col, GameObject oldObj, GameObject newObj) {
+        if (flags == null || !inWindow(row, col)) {
+            return; // Nothing built yet, or outside the searched window
+        }
+        boolean wasPassable = oldObj == null || oldObj instanceof Hero;
+        boolean nowPassable = newObj == null || newObj instanceof Hero;
+        int tile = local(row, col);
+        int roomTile = row * cols + col; // Routes hold room tile indexes
+        flags[tile] = flagsOf(newObj);
+
+        // Routes stay valid when a tile opens up; drop the ones a newly blocked tile cuts
+        if (wasPassable && !nowPassable && !routes.isEmpty()) {
+            Iterator<Map.Entry<Long, int[]>> it = routes.entrySet().iterator();
+            while (it.hasNext()) {
+                int[] route = it.next().getValue();
+                for (int i = 0; i < route.length - 1; i++) { // The goal itself may be occupied
+                    if (route[i] == roomTile) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+
+        for (Target target : Target.values()) {
+            int k = target.ordinal();
+            int[] field = fields[k];
+            if (field == null) {
+                continue;
+            }
+            boolean wasTarget = isTarget(target, oldObj);
+            boolean nowTarget = isTarget(target, newObj);
+            if (wasTarget && !nowTarget) {
+                repairGrown(field, tile);
+            } else if (nowTarget && !wasTarget) {
+                field[tile] = 0;
+                repair(field, tile);
+            } else if (wasPassable && !nowPassable) {
+                if (field[tile] != UNREACHABLE) {
+                    repairGrown(field, tile); // Routes through this tile may grow
+                }
+            } else if (!wasPassable && nowPassable) {
+                int best = UNREACHABLE;
+                for (int d = 0; d < 4; d++) {
+                    int nr = row - top + ROW_STEP[d];
+                    int nc = col - left + COL_STEP[d];
+                    if (nr >= 0 && nr < height && nc >= 0 && nc < width) {
+                        best = Math.min(best, field[nr * width + nc]);
+                    }
+                }
+                field[tile] = (best == UNREACHABLE) ? UNREACHABLE : best + 1;
+                if (field[tile] != UNREACHABLE) {
+                    repair(field, tile);
+                }
+            }
+        }
+    }
+
+    private void repair(int[] field, int tile) {
+        fieldRepairs++;
+        int[] q = queue();
+        q[0] = tile;
+        spread(field, q, 0, 1);
+    }
+
+    /**
+     * Repairs a field after a tile stopped passing on its distance (a target went away or the tile
+     * was blocked). Only the tiles whose distance led through it are touched: they are cleared in
+     * order of their old distance, then refilled from the tiles around them that kept theirs.
+     */
+    private void repairGrown(int[] field, int tile) {
+        fieldRepairs++;
+        byte[] flags = flags();
+        int[] q = queue();
+
+        // Clear the changed tile, then every tile left without a neighbour one step closer
+        int distance = field[tile]; // Old distance of the tiles in q[head..levelEnd)
+        field[tile] = UNREACHABLE;
+        q[0] = tile;
+        int head = 0, tail = 1, levelEnd = 1;
+        while (head < tail) {
+            if (head == levelEnd) {
+                distance++;
+                levelEnd = tail;
+            }
+            int u = q[head++];
+            int r = u / width;
+            int c = u % width;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+                int n = nr * width + nc;
+                if (field[n] == distance + 1 && !hasNeighbourAt(field, n, distance)) {
+                    field[n] = UNREACHABLE;
+                    q[tail++] = n;
+                }
+            }
+        }
+
+        // Seed the cleared tiles from the kept ones next to them, closest first
+        long[] seeds = new long[tail];
+        int count = 0;
+        for (int i = 0; i < tail; i++) {
+            int n = q[i];
+            if ((flags[n] & PASSABLE) == 0) continue;
+            int best = UNREACHABLE;
+            int r = n / width;
+            int c = n % width;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr >= 0 && nr < height && nc >= 0 && nc < width) {
+                    best = Math.min(best, field[nr * width + nc]);
+                }
+            }
+            if (best != UNREACHABLE) {
+                seeds[count++] = (long) (best + 1) << 32 | n;
+            }
+        }
+        Arrays.sort(seeds, 0, count);
+
+        // Breadth-first from the seeds, taking each seed once the queue reaches its distance
+        head = 0;
+        tail = 0;
+        int s = 0;
+        while (s < count || head < tail) {
+            int u;
+            if (s < count && (head == tail || (int) (seeds[s] >>> 32) <= field[q[head]])) {
+                u = (int) seeds[s];
+                int seeded = (int) (seeds[s++] >>> 32);
+                if (field[u] <= seeded) continue; // Already reached from a closer seed
+                field[u] = seeded;
+            } else {
+                u = q[head++];
+            }
+            int r = u / width;
+            int c = u % width;
+            int next = field[u] + 1;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + ROW_STEP[d];
+                int nc = c + COL_STEP[d];
+                if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+                int n = nr * width + nc;
+                if (field[n] > next && (flags[n] & PASSABLE) != 0) {
+                    field[n] = next;
+                    q[tail++] = n;
+                }
+            }
+        }
+    }
+
+    private boolean hasNeighbourAt(int[] field, int tile, int distance) {
+        int r = tile / width;
+        int c = tile % width;
+        for (int d = 0; d < 4; d++) {
+            int nr = r + ROW_STEP[d];
+            int nc = c + COL_STEP[d];
+            if (nr >= 0 && nr < height && nc >= 0 && nc < width && field[nr * width + nc] == distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // === Helpers ===
+
+    /**
+     * Returns the per-tile flags, reading the whole window once on first use.
+     */
+    private byte[] flags() {
+        if (flags == null) {
+            flags = new byte[height * width];
+            for (int r = 0; r < height; r++) {
+                for (int c = 0; c < width; c++) {
+                    int row = top + r;
+                    int col = left + c;
+                    flags[r * width + c] = room.isEmpty(row, col) ? PASSABLE : flagsOf(room.getObject(row, col));
+                }
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * In a chunked room, moves the searched window to the chunks around a tile, dropping
+     * everything built for the old window. Other rooms always search the whole room.
+     */
+    private void moveWindow(int row, int col) {
+        if (chunkSize == 0) {
+            return;
+        }
+        int newTop = Math.max(0, (row / chunkSize - 1) * chunkSize);
+        int newLeft = Math.max(0, (col / chunkSize - 1) * chunkSize);
+        int newHeight = Math.min(rows, (row / chunkSize + 2) * chunkSize) - newTop;
+        int newWidth = Math.min(cols, (col / chunkSize + 2) * chunkSize) - newLeft;
+        if (newTop == top && newLeft == left && newHeight == height && newWidth == width && flags != null) {
+            return;
+        }
+        top = newTop;
+        left = newLeft;
+        height = newHeight;
+        width = newWidth;
+        flags = null;
+        cost = null;
+        base = 0;
+        queue = null;
+        Arrays.fill(fields, null);
+        routes.clear();
+    }
+
+    /**
+     * Checks whether searches cover only part of the room (a chunked room).
+     */
+    public boolean isWindowed() {
+        return chunkSize > 0;
+    }
+
+    private boolean inWindow(int row, int col) {
+        return row >= top && row < top + height && col >= left && col < left + width;
+    }
+
+    private int local(int row, int col) {
+        return (row - top) * width + (col - left);
+    }
+
+    private int global(int tile) {
+        return (top + tile / width) * cols + left + tile % width;
+    }
+
+    private static byte flagsOf(GameObject obj) {
+        if (obj == null || obj instanceof Hero) return PASSABLE;
+        if (obj instanceof Door) return DOOR;
+        if (obj instanceof Weapon || obj instanceof Potion || obj instanceof Key) return ITEM;
+        return 0;
+    }
+
+    private static byte targetFlag(Target target) {
+        return (target == Target.DOORS) ? DOOR : ITEM;
+    }
+
+    private static boolean isTarget(Target target, GameObject obj) {
+        return (flagsOf(obj) & targetFlag(target)) != 0;
+    }
+
+    /**
+     * Returns a one-line summary of cache activity.
+     */
+    public synchronized String getStats() {
+        return String.format("[path] routes: %d hits, %d misses, %d cached | fields: %d builds, %d repairs",
+                routeHits, routeMisses, routes.size(), fieldBuilds, fieldRepairs);
+    }
+}
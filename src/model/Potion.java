@@ -5,9 +5,9 @@ package model;
  * There are two types: Minor Flask and Big Flask.
  */
 public class Potion extends GameObject {
-    private String name;
-    private int healAmount;
-    private char symbol;
+    private final String name;
+    private final int healAmount;
+    private final char symbol;
 
     /**
      * Constructs a potion with a name, healing value, and symbol type.
@@ -38,6 +38,14 @@ public class Potion extends GameObject {
         return name;
     }
 
+    /**
+     * Returns the potion type character used in room files.
+     * @return 'm' or 'B'
+     */
+    public char getType() {
+        return symbol;
+    }
+
     /**
      * Returns the character symbol representing the potion on the map.
      * Minor Flask: ♡ (U+2661), Big Flask: ♥ (U+2665)
@@ -1,22 +1,80 @@
 package model;
 
-import util.CSVUtils;
+import util.CSVTokenReader;
+import util.Histogram;
+import util.Metrics;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a single room in the game, composed of a 2D grid of cells.
- * Also maintains lists of all monsters and items in the room.
+ * Also keeps spatial indexes of the monsters and items in the room, updated on every tile change.
+ * Tiles are stored either as one Cell object per tile or packed into primitive arrays,
+ * or, for very large rooms, paged in and out of a chunk file around the hero (see ChunkedGrid).
+ *
+ * A room can be shared by several heroes, each on its own thread (see share()).
+ * Tiles are then guarded by stripe locks over grid regions (see RoomLocks): a caller that
+ * reads a tile and writes it based on what it saw holds the tile's stripe for both steps.
+ * The room's indexes (monsters, items, free tiles, routes) are updated under a short
+ * internal lock, so every tile write keeps them consistent.
  */
 public class Room {
+    private static final Histogram LOAD_CSV = Metrics.histogram("room.load.csv");
+    private static final Histogram LOAD_BINARY = Metrics.histogram("room.load.binary");
+    private static final Histogram SNAPSHOT = Metrics.histogram("room.snapshot");
+    private static final Histogram OPEN_CHUNKED = Metrics.histogram("room.open.chunked");
+
+    /** Chunks kept in memory by loadFromCSV(filename, Storage.CHUNKED). */
+    public static final int DEFAULT_RESIDENT_CHUNKS = 256;
+
+    /**
+     * Receives every change to the room's tiles, e.g. to journal them.
+     */
+    public interface TileListener {
+        /**
+         * Called after a tile changed.
+         * @param oldObj the object that was on the tile (may be null)
+         * @param newObj the object now on the tile (may be null); the same as oldObj
+         *               when the object itself changed (see objectChanged)
+         */
+        void tileChanged(Room room, int row, int col, GameObject oldObj, GameObject newObj);
+    }
+
+    /**
+     * How the room stores its tiles.
+     */
+    public enum Storage {
+        OBJECTS, // One Cell object per tile (original layout)
+        PACKED,  // One byte per tile plus a side table for monsters and doors
+        CHUNKED  // Packed chunks paged from a chunk file, only those near the hero in memory
+    }
+
     private int rows;
     private int cols;
-    private Cell[][] grid;
+    private Grid grid;
     private String filename;
-    private ArrayList<Monster> monsters = new ArrayList<>();
-    private List<GameObject> items = new ArrayList<>();
+    private SpatialIndex<Monster> monsters;   // Monsters by tile
+    private SpatialIndex<GameObject> items;   // Weapons, potions, and keys by tile
+    private int pagedOutMonsters = 0;         // Monsters in chunks that are not in memory (chunked rooms)
+    private Set<String> doorTargets = new LinkedHashSet<>(); // Rooms reachable through regular doors
+    private BitSet freeCells;          // Set bit = empty tile, updated on every tile change (null when chunked)
+    private int firstFree = 0;         // No empty tile below this index
+    private int[] spawns = new int[0]; // Tiles of the @ symbols found at load time, in tile order
+    private RoomRenderer renderer; // Reused by displayRoom()
+    private PathFinder pathFinder; // Created on the first route request
+    private TileListener listener; // Notified of every tile change, or null
+    private volatile boolean modified = false; // A tile changed since the room was loaded or last saved
+    private volatile RoomLocks locks; // Tile locks while the room is shared, else null
+    private final Object indexLock = new Object(); // Guards the indexes of a shared room
+    private Set<Hero> occupants = Collections.emptySet(); // Heroes playing in a shared room
 
     /**
      * Constructs an empty room with the given dimensions.
@@ -24,52 +82,146 @@ public class Room {
      * @param cols number of columns
      */
     public Room(int rows, int cols) {
+        this(rows, cols, Storage.OBJECTS);
+    }
+
+    /**
+     * Constructs an empty room with the given dimensions and tile storage.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param storage how tiles are stored
+     */
+    public Room(int rows, int cols, Storage storage) {
+        if (storage == Storage.CHUNKED) {
+            throw new IllegalArgumentException("Chunked rooms are opened from a file (see loadChunked)");
+        }
         this.rows = rows;
         this.cols = cols;
-        this.grid = new Cell[rows][cols];
+        this.grid = (storage == Storage.PACKED) ? new PackedGrid(rows, cols) : new CellGrid(rows, cols);
+        this.monsters = new SpatialIndex<>(rows, cols);
+        this.items = new SpatialIndex<>(rows, cols);
+        this.freeCells = new BitSet(rows * cols);
+        this.freeCells.set(0, rows * cols); // A new room is empty
     }
 
     /**
      * Loads a room from a CSV file, initializing the grid and registering monsters and items.
      * Supports extended symbols such as "d:room3.csv" or "D:room1.csv" for doors.
+     * The file is tokenized as a byte stream straight into the grid.
      * @param filename path to the CSV file
      * @return the loaded Room object, or null if an error occurred
      */
     public static Room loadFromCSV(String filename) {
+        return loadFromCSV(filename, Storage.OBJECTS);
+    }
+
+    /**
+     * Loads a room from a CSV file using the given tile storage.
+     * @param filename path to the CSV file
+     * @param storage how tiles are stored
+     * @return the loaded Room object, or null if an error occurred
+     */
+    public static Room loadFromCSV(String filename, Storage storage) {
+        long start = System.nanoTime();
         try {
             if (!filename.contains("/") && !filename.startsWith("sessions/")) {
                 filename = "sessions/active_session/" + filename;
             }
+            if (storage == Storage.CHUNKED) {
+                return loadChunked(filename, true, DEFAULT_RESIDENT_CHUNKS);
+            }
 
-            List<String[]> lines = CSVUtils.readCSV(filename);
-            String[] sizeInfo = lines.get(0); // First line: size info
-            int rows = Integer.parseInt(sizeInfo[0].trim());
-            int cols = Integer.parseInt(sizeInfo[1].trim());
+            try (CSVTokenReader in = new CSVTokenReader(new FileInputStream(filename))) {
+                // First line: size info
+                if (!in.next()) throw new NumberFormatException("Missing size line");
+                int rows = in.parseInt();
+                if (in.isEndOfLine() || !in.next()) throw new NumberFormatException("Missing column count");
+                int cols = in.parseInt();
+                in.skipLine();
+
+                Room room = new Room(rows, cols, storage);
+                room.filename = filename;
+                boolean keepRaw = (storage == Storage.OBJECTS); // Only Cell storage keeps raw symbols
+
+                // Grid data starts from second line, read cell by cell
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        if (!in.next() || (in.isEndOfLine() && c < cols - 1)) {
+                            throw new IOException("Row " + (r + 1) + " has fewer than " + cols + " cells");
+                        }
+                        GameObject obj = GameObjectFactory.createFromSymbol(in.bytes(), in.length());
+                        room.register(r, c, obj, keepRaw ? in.text() : null);
+                    }
+                    in.skipLine(); // Ignore any extra cells
+                }
+                LOAD_CSV.recordSince(start);
+                return room;
+            }
 
-            Room room = new Room(rows, cols);
-            room.filename = filename;
+        } catch (FileNotFoundException e) {
+            System.out.println("[ERROR] File not found: " + filename);
+        } catch (NumberFormatException e) {
+            System.out.println("[ERROR] Invalid row/col format in CSV: " + filename);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to load room: " + e.getMessage());
+        }
+        return null;
+    }
 
-            for (int r = 0; r < rows; r++) {
-                String[] row = lines.get(r + 1); // Grid data starts from second line
-                for (int c = 0; c < cols; c++) {
-                    String raw = row[c].trim(); // Read full string (e.g., "d:room3.csv")
-                    GameObject obj = GameObjectFactory.createFromSymbol(raw, filename);
-                    room.grid[r][c] = new Cell(obj, raw); 
+    /**
+     * Opens a room with chunked storage. The room's chunk file (e.g., "room2.chunks" next to
+     * "room2.csv") is built from the CSV first if it is missing or older than the CSV, which
+     * takes one streaming pass; after that opening a room reads only its header. A pristine
+     * room (writeBack false) uses a chunk file converted next to its CSV if there is a current
+     * one, and otherwise builds it into the chunk cache (see RoomChunks), never into the
+     * rooms directory.
+     * @param filename path to the CSV file
+     * @param writeBack true to write changed chunks back to the chunk file; false keeps them
+     *                  in memory, for rooms that must stay pristine
+     * @param maxResident chunks kept in memory at once (see ChunkedGrid)
+     * @return the opened Room object, or null if an error occurred
+     */
+    public static Room loadChunked(String filename, boolean writeBack, int maxResident) {
+        return loadChunked(filename, writeBack, null, maxResident);
+    }
 
-                    // Register monster in list
-                    if (obj instanceof Monster) {
-                        room.monsters.add((Monster) obj);
-                    }
+    /**
+     * Opens a pristine room with chunked storage, writing its changes to a copy. The chunk file
+     * is copied to the chunk path of copyPath the first time a changed chunk is written, so
+     * rooms that never change are never copied. The room is named after copyPath.
+     * @param filename path to the CSV file (with its chunk file) in the pristine rooms directory
+     * @param copyPath path of the room's CSV file in the session directory
+     * @param maxResident chunks kept in memory at once (see ChunkedGrid)
+     * @return the opened Room object, or null if an error occurred
+     */
+    public static Room loadChunked(String filename, String copyPath, int maxResident) {
+        return loadChunked(filename, true, copyPath, maxResident);
+    }
 
-                    // Register item in list (weapons, potions, keys)
-                    if (obj instanceof Weapon || obj instanceof Potion || obj instanceof Key) {
-                        room.items.add(obj);
-                    }
+    private static Room loadChunked(String filename, boolean writeBack, String copyPath, int maxResident) {
+        long start = System.nanoTime();
+        try {
+            String chunkPath = RoomChunks.chunkPathFor(filename);
+            if (!RoomChunks.isCurrent(filename, chunkPath)) {
+                if (!writeBack || copyPath != null) {
+                    // A pristine room: its directory is shared, so build into the cache
+                    chunkPath = RoomChunks.cachePathFor(filename);
+                }
+                if (!RoomChunks.isCurrent(filename, chunkPath)) {
+                    RoomChunks.build(filename, chunkPath, ChunkedGrid.SIZE);
                 }
             }
+            RoomChunks file = RoomChunks.open(chunkPath);
+            if (copyPath != null) {
+                file.copyOnWrite(RoomChunks.chunkPathFor(copyPath));
+            }
+            Room room = new Room(file, writeBack, maxResident);
+            room.filename = (copyPath != null) ? copyPath : filename;
+            OPEN_CHUNKED.recordSince(start);
             return room;
-
-        } catch (FileNotFoundException e) {
+        } catch (InterruptedIOException | ClosedByInterruptException e) {
+            return null; // Cancelled, e.g. a prefetch stopped at exit
+        } catch (FileNotFoundException | java.nio.file.NoSuchFileException e) {
             System.out.println("[ERROR] File not found: " + filename);
         } catch (NumberFormatException e) {
             System.out.println("[ERROR] Invalid row/col format in CSV: " + filename);
@@ -80,34 +232,147 @@ public class Room {
     }
 
     /**
-     * Displays the current room grid in the console with borders and symbols.
+     * Constructs a chunked room over an open chunk file. Monsters and items are indexed as
+     * their chunks are read and dropped from the indexes when the chunks are paged out.
      */
-    public void displayRoom() {
-        System.out.println(); // Blank line
+    private Room(RoomChunks file, boolean writeBack, int maxResident) {
+        this.rows = file.getRows();
+        this.cols = file.getCols();
+        this.monsters = new SpatialIndex<>(rows, cols);
+        this.items = new SpatialIndex<>(rows, cols);
+        this.spawns = file.getSpawns();
+        this.doorTargets.addAll(file.getDoorTargets());
+        this.pagedOutMonsters = file.getMonsterCount();
+        ChunkedGrid chunked = new ChunkedGrid(file, writeBack, maxResident);
+        chunked.setListener(new ChunkedGrid.Listener() {
+            @Override
+            public void chunkLoaded(int firstRow, int firstCol, int width, PackedGrid chunk) {
+                byte[] codes = chunk.codes();
+                synchronized (indexLock) {
+                    for (int i = 0; i < codes.length; i++) {
+                        if (codes[i] != TileCodes.EMPTY) {
+                            index(firstRow + i / width, firstCol + i % width, chunk.get(i / width, i % width));
+                        }
+                        if (TileCodes.isMonster(codes[i])) {
+                            pagedOutMonsters--;
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void chunkEvicted(int firstRow, int firstCol, int width, PackedGrid chunk) {
+                byte[] codes = chunk.codes();
+                synchronized (indexLock) {
+                    for (int i = 0; i < codes.length; i++) {
+                        if (codes[i] != TileCodes.EMPTY) {
+                            monsters.remove(firstRow + i / width, firstCol + i % width);
+                            items.remove(firstRow + i / width, firstCol + i % width);
+                        }
+                        if (TileCodes.isMonster(codes[i])) {
+                            pagedOutMonsters++;
+                        }
+                    }
+                }
+            }
+        });
+        this.grid = chunked;
+    }
 
-        // Top border
-        System.out.print("+");
-        for (int i = 0; i < cols; i++) {
-            System.out.print("---");
+    /**
+     * Loads a room from a binary room file (see RoomBinary).
+     * @param filename path to the binary file
+     * @param storage how tiles are stored
+     * @return the loaded Room object, or null if an error occurred
+     */
+    public static Room loadFromBinary(String filename, Storage storage) {
+        long start = System.nanoTime();
+        try {
+            Room room = RoomBinary.load(filename, storage);
+            LOAD_BINARY.recordSince(start);
+            return room;
+        } catch (FileNotFoundException | java.nio.file.NoSuchFileException e) {
+            System.out.println("[ERROR] File not found: " + filename);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to load room: " + e.getMessage());
         }
-        System.out.println("+");
+        return null;
+    }
 
-        // Grid rows
-        for (int r = 0; r < rows; r++) {
-            System.out.print("|");
-            for (int c = 0; c < cols; c++) {
-                char symbol = grid[r][c].getSymbol();
-                System.out.print(" " + symbol + " "); // Add spacing for alignment
-            }
-            System.out.println("|");
+    /**
+     * Returns the binary room file path that matches a CSV room path
+     * (e.g., "rooms/room2.csv" becomes "rooms/room2.room").
+     */
+    public static String binaryPathFor(String csvPath) {
+        return RoomBinary.binaryPathFor(csvPath);
+    }
+
+    /**
+     * Builds the chunk file next to a CSV room (e.g., "rooms/room2.chunks"), to convert a
+     * rooms directory ahead of time. Games open the converted file instead of building one.
+     * @param csvPath path to the CSV file
+     * @return true if the chunk file was written
+     */
+    public static boolean buildChunks(String csvPath) {
+        try {
+            RoomChunks.build(csvPath, RoomChunks.chunkPathFor(csvPath), ChunkedGrid.SIZE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("[ERROR] Failed to build chunks for " + csvPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the chunk file path that matches a CSV room path
+     * (e.g., "rooms/room2.csv" becomes "rooms/room2.chunks").
+     */
+    public static String chunkPathFor(String csvPath) {
+        return RoomChunks.chunkPathFor(csvPath);
+    }
+
+    /**
+     * Fills a tile while loading and registers monsters and items in the room's indexes.
+     * @param obj the object for the tile (may be null)
+     * @param raw the raw symbol, kept only by Cell storage
+     */
+    void register(int r, int c, GameObject obj, String raw) {
+        grid.place(r, c, obj, raw);
+        track(r, c, obj);
+    }
+
+    /**
+     * Records a loaded object in the room's indexes (monsters, items, door targets).
+     * Used when the tile itself was already filled.
+     */
+    void track(int r, int c, GameObject obj) {
+        if (obj == null) {
+            return;
         }
+        freeCells.clear(r * cols + c);
+        index(r, c, obj);
 
-        // Bottom border
-        System.out.print("+");
-        for (int i = 0; i < cols; i++) {
-            System.out.print("---");
+        // Remember the spawn point so placeHero does not have to search for it
+        if (obj instanceof Hero) {
+            spawns = Arrays.copyOf(spawns, spawns.length + 1);
+            spawns[spawns.length - 1] = r * cols + c;
         }
-        System.out.println("+");
+
+        // Remember where regular doors lead (the Master Door ends the game)
+        if (obj instanceof Door && !((Door) obj).requiresKey()) {
+            doorTargets.add(((Door) obj).getTargetRoomFilename());
+        }
+    }
+
+    /**
+     * Displays the current room grid in the console with borders and symbols.
+     * The frame is composed in a reusable buffer and written in one flush.
+     */
+    public void displayRoom() {
+        if (renderer == null) {
+            renderer = new RoomRenderer(System.out, false);
+        }
+        renderer.render(this, null, null);
     }
 
     /**
@@ -125,51 +390,189 @@ public class Room {
         if (saved != null) {
             int r = saved[0];
             int c = saved[1];
-            if (r >= 0 && r < rows && c >= 0 && c < cols && grid[r][c].isEmpty()) {
-                hero.setPosition(r, c);
-                grid[r][c].setObject(hero);
+            if (r >= 0 && r < rows && c >= 0 && c < cols && tryPlace(hero, r, c, false)) {
                 return;
             }
         }
 
         // 2. Use @ position if exists
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                GameObject obj = grid[r][c].getObject();
-                if (obj instanceof Hero) {
-                    hero.setPosition(r, c);
-                    grid[r][c].setObject(hero);
-                    return;
-                }
+        for (int spawn : spawns) {
+            if (tryPlace(hero, spawn / cols, spawn % cols, true)) {
+                return;
             }
         }
 
         // 3. Use (1,1) if empty
-        if (rows > 1 && cols > 1 && grid[1][1].isEmpty()) {
-            hero.setPosition(1, 1);
-            grid[1][1].setObject(hero);
+        if (rows > 1 && cols > 1 && tryPlace(hero, 1, 1, false)) {
             return;
         }
 
-        // 4. Use any empty cell
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (grid[r][c].isEmpty()) {
-                    hero.setPosition(r, c);
-                    grid[r][c].setObject(hero);
-                    return;
-                }
+        // 4. Use any empty cell (the first one in tile order)
+        int free = nextFree(firstFree);
+        while (free >= 0) {
+            if (locks == null) {
+                firstFree = free;
             }
+            if (tryPlace(hero, free / cols, free % cols, false)) {
+                return;
+            }
+            free = nextFree(free + 1); // Taken by another hero in the meantime
+        }
+        if (locks == null) {
+            firstFree = rows * cols;
         }
 
         // If no placement was possible
         System.out.println("[WARNING] Could not place hero in room: " + filename);
     }
 
+    /**
+     * Puts the hero on a tile if the tile is free for it.
+     * @param spawn true for a spawn point, which is free while it holds a placeholder hero
+     * @return true if the hero was placed
+     */
+    private boolean tryPlace(Hero hero, int r, int c, boolean spawn) {
+        lock(r, c);
+        try {
+            GameObject obj = getObject(r, c);
+            boolean free = spawn ? (obj instanceof Hero && !isOccupant((Hero) obj)) : isEmpty(r, c);
+            if (!free) {
+                return false;
+            }
+            hero.setPosition(r, c);
+            setObject(r, c, hero);
+            if (locks != null) {
+                occupants.add(hero);
+            }
+            return true;
+        } finally {
+            unlock(r, c);
+        }
+    }
+
+    /**
+     * Returns the first empty tile at or after the given index, or -1.
+     */
+    private int nextFree(int from) {
+        if (freeCells == null) {
+            for (int tile = from; tile < rows * cols; tile++) {
+                if (grid.get(tile / cols, tile % cols) == null) {
+                    return tile; // Chunked rooms keep no bitset; pages chunks in tile order
+                }
+            }
+            return -1;
+        }
+        if (locks == null) {
+            return freeCells.nextSetBit(from);
+        }
+        synchronized (indexLock) {
+            return freeCells.nextSetBit(from);
+        }
+    }
+
+    /**
+     * Takes the hero off its tile when it leaves the room.
+     */
+    public void removeHero(Hero hero) {
+        int r = hero.getRow();
+        int c = hero.getCol();
+        lock(r, c);
+        try {
+            if (locks == null || getObject(r, c) == hero) {
+                setObject(r, c, null);
+            }
+            occupants.remove(hero);
+        } finally {
+            unlock(r, c);
+        }
+    }
+
+    // === Sharing ===
+
+    /**
+     * Lets several heroes play in this room at once, each on its own thread.
+     * Call it before handing the room to other threads. Only Cell storage can be shared,
+     * because packed tiles keep monsters and doors in one side table for the whole grid.
+     * @throws IllegalStateException if the room uses packed storage
+     */
+    public void share() {
+        share(RoomLocks.MAX_STRIPES);
+    }
+
+    /**
+     * Shares the room with at most the given number of lock stripes (see share()).
+     * @param maxStripes upper bound on the stripes; 1 guards the whole room with one lock
+     */
+    public synchronized void share(int maxStripes) {
+        if (locks != null) {
+            return;
+        }
+        if (!(grid instanceof CellGrid)) {
+            throw new IllegalStateException("Only rooms with OBJECTS storage can be shared: " + filename);
+        }
+        occupants = ConcurrentHashMap.newKeySet();
+        locks = new RoomLocks(rows, cols, maxStripes);
+    }
+
+    /**
+     * Checks if the room is shared by several heroes.
+     */
+    public boolean isShared() {
+        return locks != null;
+    }
+
+    /**
+     * Checks if a hero is currently playing in this shared room (not a spawn placeholder).
+     */
+    public boolean isOccupant(Hero hero) {
+        return occupants.contains(hero);
+    }
+
+    /**
+     * Returns the stripe locks of a shared room, or null if the room is not shared.
+     */
+    public RoomLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * Locks a tile's stripe in a shared room (no-op otherwise).
+     */
+    public void lock(int row, int col) {
+        RoomLocks l = locks;
+        if (l != null) {
+            l.lock(row, col);
+        }
+    }
+
+    public void unlock(int row, int col) {
+        RoomLocks l = locks;
+        if (l != null) {
+            l.unlock(row, col);
+        }
+    }
+
+    /**
+     * Locks the stripes of two tiles in a shared room (no-op otherwise), e.g. for a move.
+     */
+    public void lock(int row1, int col1, int row2, int col2) {
+        RoomLocks l = locks;
+        if (l != null) {
+            l.lock(row1, col1, row2, col2);
+        }
+    }
+
+    public void unlock(int row1, int col1, int row2, int col2) {
+        RoomLocks l = locks;
+        if (l != null) {
+            l.unlock(row1, col1, row2, col2);
+        }
+    }
+
     /**
      * Saves the current state of the room into a CSV file.
      * This method ensures that the output is written to the session directory
-     * It serializes the grid using each cell's original raw symbol
+     * It serializes each tile's current object, so damaged monsters keep their HP
      */
     public void saveToCSV() {
         // Determine the session path for saving the file
@@ -181,39 +584,318 @@ public class Room {
             savePath = "sessions/active_session/" + baseName;
         }
 
-        // Create a 2D string array to store room data
-        String[][] data = new String[rows + 1][cols];
+        saveToCSV(savePath);
+    }
 
-        // First row stores the size information
-        data[0][0] = String.valueOf(rows);
-        data[0][1] = String.valueOf(cols);
+    /**
+     * Saves the current state of the room into the given CSV file.
+     * @param savePath path of the CSV file to write
+     */
+    public void saveToCSV(String savePath) {
+        try {
+            snapshot().writeCSV(savePath);
+        } catch (IOException e) {
+            System.out.println("Failed to write CSV: " + e.getMessage());
+        }
+    }
 
-        // Fill in the grid data using the original raw symbols
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                GameObject obj = grid[r][c].getObject();
-                String raw = grid[r][c].getOriginalSymbol();
-
-                // Do not save the hero — they are placed dynamically when the room loads
-                if (obj instanceof Hero) {
-                    data[r + 1][c] = " ";
-                } else if (obj != null) {
-                    data[r + 1][c] = raw;
-                //} else if (raw != null && !raw.trim().isEmpty()) {
-                   // data[r + 1][c] = raw;
-                } else {
-                    data[r + 1][c] = " ";
-                }
+    /**
+     * Captures the room's saveable state (tiles, monster HP, door targets).
+     * The snapshot is immutable and can be written on another thread.
+     * @return a snapshot of the room
+     */
+    public RoomSnapshot snapshot() {
+        long start = System.nanoTime();
+        RoomSnapshot snapshot = RoomSnapshot.of(this);
+        SNAPSHOT.recordSince(start);
+        return snapshot;
+    }
+
+    /**
+     * Returns a hash of the room's changing state: the tile and HP of every monster and the
+     * tile and kind of every item. Walls and doors never change, and the hero is hashed by
+     * its session. Entries are summed, so the hash does not depend on index order.
+     * Chunked rooms only count the monsters and items of their resident chunks.
+     */
+    public long stateHash() {
+        long[] hash = { (long) rows * 31 + cols };
+        int radius = Math.max(rows, cols);
+        synchronized (indexLock) {
+            monsters.forEachWithin(0, 0, radius, (r, c, monster) ->
+                    hash[0] += mix(((long) r * cols + c) * 0x9E3779B97F4A7C15L + ((long) monster.getSymbol() << 32) + monster.getHp()));
+            items.forEachWithin(0, 0, radius, (r, c, item) ->
+                    hash[0] += mix(((long) r * cols + c) * 0x9E3779B97F4A7C15L + item.getSymbol()));
+        }
+        return hash[0];
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads every input bit over the whole hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Saves the current state of the room into a binary room file.
+     * @param savePath path of the binary file to write
+     */
+    public void saveToBinary(String savePath) {
+        try {
+            snapshot().writeBinary(savePath);
+        } catch (IOException e) {
+            System.out.println("Failed to write room: " + e.getMessage());
+        }
+    }
+
+    // === Tile access ===
+
+    /**
+     * Returns the object on a tile.
+     * @return the object, or null if the tile is empty
+     */
+    public GameObject getObject(int row, int col) {
+        return grid.get(row, col);
+    }
+
+    /**
+     * Places an object on a tile, replacing whatever was there.
+     * @param obj the object, or null to clear the tile
+     */
+    public void setObject(int row, int col, GameObject obj) {
+        if (locks == null) {
+            updateTile(row, col, obj);
+            return;
+        }
+        synchronized (indexLock) {
+            updateTile(row, col, obj);
+        }
+    }
+
+    /**
+     * Writes a tile and updates the indexes that depend on it.
+     */
+    private void updateTile(int row, int col, GameObject obj) {
+        GameObject old = grid.get(row, col);
+        if (old instanceof Monster) {
+            monsters.remove(row, col);
+        } else if (isItem(old)) {
+            items.remove(row, col);
+        }
+        grid.set(row, col, obj);
+        index(row, col, obj);
+        modified = true;
+
+        // Keep the free-cell bitset in step with the tile
+        int tile = row * cols + col;
+        if (freeCells == null) {
+            if (obj instanceof Hero) {
+                ((ChunkedGrid) grid).focus(row, col); // Page in the chunks around the hero
             }
+        } else if (obj == null) {
+            freeCells.set(tile);
+            firstFree = Math.min(firstFree, tile);
+        } else if (old == null) {
+            freeCells.clear(tile);
+        }
+        if (pathFinder != null) {
+            pathFinder.cellChanged(row, col, old, obj);
+        }
+        if (listener != null) {
+            listener.tileChanged(this, row, col, old, obj);
+        }
+    }
+
+    /**
+     * Moves the object on one tile onto an empty tile (e.g., a monster walking).
+     * In a shared room the caller holds both tiles' locks.
+     * @return false if the target tile is taken or the source is empty
+     */
+    public boolean moveObject(int fromRow, int fromCol, int toRow, int toCol) {
+        if (locks == null) {
+            return relocate(fromRow, fromCol, toRow, toCol);
+        }
+        synchronized (indexLock) {
+            return relocate(fromRow, fromCol, toRow, toCol);
+        }
+    }
+
+    private boolean relocate(int fromRow, int fromCol, int toRow, int toCol) {
+        GameObject obj = grid.get(fromRow, fromCol);
+        if (obj == null || grid.get(toRow, toCol) != null) {
+            return false;
+        }
+        updateTile(toRow, toCol, obj);   // Arrive first, so the object is never off the grid
+        updateTile(fromRow, fromCol, null);
+        return true;
+    }
+
+    /**
+     * Reports that the object on a tile changed without being replaced (e.g., a monster lost HP).
+     */
+    public void objectChanged(int row, int col) {
+        modified = true;
+        if (grid instanceof ChunkedGrid) {
+            ((ChunkedGrid) grid).changed(row, col); // The chunk must be written back
+        }
+        if (listener != null) {
+            GameObject obj = grid.get(row, col);
+            listener.tileChanged(this, row, col, obj, obj);
+        }
+    }
+
+    /**
+     * Sets the listener notified of every tile change (null to remove it).
+     */
+    public void setTileListener(TileListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a monster or item to its spatial index.
+     */
+    private void index(int row, int col, GameObject obj) {
+        if (obj instanceof Monster) {
+            monsters.add(row, col, (Monster) obj);
+        } else if (isItem(obj)) {
+            items.add(row, col, obj);
+        }
+    }
+
+    private static boolean isItem(GameObject obj) {
+        return obj instanceof Weapon || obj instanceof Potion || obj instanceof Key;
+    }
+
+    /**
+     * Checks if a tile is empty.
+     */
+    public boolean isEmpty(int row, int col) {
+        if (locks != null || freeCells == null) {
+            return grid.get(row, col) == null; // The bitset is only read under the index lock
         }
+        return freeCells.get(row * cols + col);
+    }
 
-        // Write the CSV data to file
-        util.CSVUtils.writeCSV(savePath, data);
+    /**
+     * Returns the display symbol of a tile, or a space if it is empty.
+     */
+    public char getSymbol(int row, int col) {
+        GameObject obj = grid.get(row, col);
+        return (obj != null) ? obj.getSymbol() : ' ';
+    }
+
+    /**
+     * Returns the Cell for a tile (a view when tiles are packed).
+     */
+    public Cell getCell(int row, int col) {
+        return grid.cellAt(row, col);
     }
 
     // === Getters ===
 
+    /**
+     * Returns the tiles as a Cell array.
+     * With packed storage this builds a view array on every call,
+     * so prefer getObject/setObject on large rooms.
+     */
     public Cell[][] getGrid() {
+        if (grid instanceof CellGrid) {
+            return ((CellGrid) grid).getCells();
+        }
+        Cell[][] view = new Cell[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                view[r][c] = grid.cellAt(r, c);
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Estimates the heap used by this room, for memory-bounded caches.
+     * @return approximate size in bytes
+     */
+    public long estimateBytes() {
+        if (grid instanceof ChunkedGrid) {
+            return ((ChunkedGrid) grid).estimateBytes() + (monsters.size() + items.size()) * 48L + 256;
+        }
+        long tiles = (long) rows * cols;
+        long perTile = (grid instanceof PackedGrid) ? 1 : 32; // One byte code vs Cell + reference
+        return tiles * perTile + tiles / 8 + (monsters.size() + items.size()) * 48L + 256;
+    }
+
+    /**
+     * Returns the room's route finder, creating it on first use.
+     */
+    public PathFinder getPathFinder() {
+        synchronized (indexLock) {
+            if (pathFinder == null) {
+                pathFinder = new PathFinder(this);
+            }
+            return pathFinder;
+        }
+    }
+
+    /**
+     * Checks whether any tile changed since the room was loaded or last marked saved.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Records that the room's current state is being saved. Call it before taking the
+     * snapshot, so a change made while saving marks the room modified again.
+     */
+    public void markSaved() {
+        modified = false;
+    }
+
+    /**
+     * Checks if the room pages its tiles from a chunk file.
+     */
+    public boolean isChunked() {
+        return grid instanceof ChunkedGrid;
+    }
+
+    /**
+     * Returns the side of a chunked room's chunks in tiles, or 0 if the room is not chunked.
+     */
+    int getChunkSize() {
+        return (grid instanceof ChunkedGrid) ? ((ChunkedGrid) grid).getChunkSize() : 0;
+    }
+
+    /**
+     * Checks whether a tile can be read without paging in its chunk (always true unless chunked).
+     */
+    public boolean isLoaded(int row, int col) {
+        return !(grid instanceof ChunkedGrid) || ((ChunkedGrid) grid).isLoaded(row, col);
+    }
+
+    /**
+     * Writes the changed chunks of a chunked room back to its chunk file.
+     * The chunk file then holds the room's state; the CSV is left as it was.
+     * @return true if the room is on disk (always true for other storage, which is saved by snapshot)
+     */
+    public boolean flushChunks() {
+        if (!(grid instanceof ChunkedGrid)) {
+            return true;
+        }
+        try {
+            ((ChunkedGrid) grid).flush();
+            return true;
+        } catch (UncheckedIOException e) {
+            System.out.println("[ERROR] Failed to save room " + filename + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the tile storage backing this room.
+     */
+    public Grid getStorage() {
         return grid;
     }
 
@@ -230,16 +912,61 @@ public class Room {
     }
 
     /**
-     * Returns the list of monsters currently in the room.
+     * Renames the room, e.g. after the path it will be saved to rather than the one it was read from.
+     */
+    public void setFileName(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Returns the monsters currently in the room, in tile order. In a chunked room these
+     * are the monsters of the chunks in memory.
+     * The list is a copy; use setObject to add or remove monsters.
      */
     public List<Monster> getMonsters() {
+        synchronized (indexLock) {
+            return monsters.values();
+        }
+    }
+
+    /**
+     * Returns the number of monsters currently in the room. In a chunked room this also
+     * counts the monsters of chunks that are paged out.
+     */
+    public int getMonsterCount() {
+        synchronized (indexLock) {
+            return monsters.size() + pagedOutMonsters;
+        }
+    }
+
+    /**
+     * Returns the spatial index of the room's monsters (for range and nearest queries).
+     */
+    public SpatialIndex<Monster> getMonsterIndex() {
         return monsters;
     }
 
     /**
-     * Returns the list of items currently in the room.
+     * Returns the rooms this room's regular doors lead to (e.g., "room3.csv").
+     */
+    public Set<String> getDoorTargets() {
+        return Collections.unmodifiableSet(doorTargets);
+    }
+
+    /**
+     * Returns the items currently in the room, in tile order.
+     * The list is a copy; use setObject to add or remove items.
      */
     public List<GameObject> getItems() {
+        synchronized (indexLock) {
+            return items.values();
+        }
+    }
+
+    /**
+     * Returns the spatial index of the room's items (for range and nearest queries).
+     */
+    public SpatialIndex<GameObject> getItemIndex() {
         return items;
     }
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package model;
+
+import util.IntObjectMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the binary room format.
+ * CSV stays the authoring format; binary files are a faster copy of the same room.
+ *
+ * Layout (big-endian):
+ *   int    magic      'ROOM'
+ *   short  version    1
+ *   short  reserved   0
+ *   int    rows
+ *   int    cols
+ *   byte[] codes      rows * cols tile codes (see TileCodes), row-major
+ *   int    count      number of entity entries
+ *   entries, in tile order:
+ *     int  index      row * cols + col
+ *     byte code       tile code of the entity
+ *     monsters: int hp
+ *     doors:    short length, UTF-8 target file name
+ * Spawn points (@ tiles) are stored as hero codes without an entity entry. The hero itself
+ * is never stored; its tile is saved as empty.
+ */
+class RoomBinary {
+    static final int MAGIC = 0x524F4F4D; // "ROOM"
+    static final short VERSION = 1;
+    static final String EXTENSION = ".room";
+
+    // Files smaller than this are read into the heap instead of being mapped
+    private static final long MAP_THRESHOLD = 1 << 16;
+
+    /**
+     * Loads a room from a binary file.
+     * Large files are read through a FileChannel memory map.
+     * @param filename path to the binary file
+     * @param storage how tiles are stored
+     * @return the loaded room
+     * @throws IOException if the file cannot be read or is not a valid room file
+     */
+    static Room load(String filename, Room.Storage storage) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buf = ByteBuffer.allocate((int) size);
+                while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                    // Keep reading until full
+                }
+                buf.flip();
+            }
+        }
+        return load(buf, filename, storage);
+    }
+
+    /**
+     * Loads a room from binary room data, e.g. a record of a game snapshot (see GameSnapshot).
+     * @param buf the room data, starting at its magic number
+     * @param filename name given to the room, and used in error messages
+     * @param storage how tiles are stored
+     * @return the loaded room
+     * @throws IOException if the data is not a valid room
+     */
+    static Room load(ByteBuffer buf, String filename, Room.Storage storage) throws IOException {
+        if (buf.remaining() < 16 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a binary room file: " + filename);
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported room file version " + version + ": " + filename);
+        }
+        buf.getShort(); // reserved
+        int rows = buf.getInt();
+        int cols = buf.getInt();
+        int tiles = rows * cols;
+        int codesStart = buf.position();
+
+        // Read the entity table that follows the tile codes
+        buf.position(codesStart + tiles);
+        int count = buf.getInt();
+        IntObjectMap<GameObject> entities = new IntObjectMap<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = buf.getInt();
+            byte code = buf.get();
+            entities.put(index, readEntity(buf, code));
+        }
+
+        Room room = new Room(rows, cols, storage);
+        room.setFileName(filename);
+        Grid grid = room.getStorage();
+
+        if (grid instanceof PackedGrid) {
+            // Copy the codes in one block, then attach entities and register items
+            PackedGrid packed = (PackedGrid) grid;
+            byte[] codes = packed.codes();
+            buf.position(codesStart);
+            buf.get(codes, 0, tiles);
+            for (int index = 0; index < tiles; index++) {
+                byte code = codes[index];
+                if (code == TileCodes.EMPTY) {
+                    continue;
+                }
+                if (code == TileCodes.HERO) {
+                    Hero spawn = Hero.spawnPoint();
+                    packed.putEntity(index, spawn);
+                    room.track(index / cols, index % cols, spawn); // Also records the spawn point
+                    continue;
+                }
+                GameObject obj = TileCodes.isStateful(code)
+                        ? entities.get(index)
+                        : packed.get(index / cols, index % cols);
+                if (obj == null) {
+                    throw new IOException("Missing entity for tile " + index + ": " + filename);
+                }
+                if (TileCodes.isStateful(code)) {
+                    packed.putEntity(index, obj);
+                }
+                room.track(index / cols, index % cols, obj);
+            }
+        } else {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int index = r * cols + c;
+                    byte code = buf.get(codesStart + index);
+                    if (code == TileCodes.EMPTY) {
+                        room.register(r, c, null, "");
+                    } else if (code == TileCodes.HERO) {
+                        room.register(r, c, Hero.spawnPoint(), "@");
+                    } else if (TileCodes.isStateful(code)) {
+                        GameObject obj = entities.get(index);
+                        if (obj == null) {
+                            throw new IOException("Missing entity for tile " + index + ": " + filename);
+                        }
+                        room.register(r, c, obj, GameObjectFactory.toSymbol(obj));
+                    } else {
+                        String raw = TileCodes.symbolOf(code);
+                        room.register(r, c, GameObjectFactory.createFromSymbol(raw.charAt(0)), raw);
+                    }
+                }
+            }
+        }
+        return room;
+    }
+
+    /**
+     * Reads one entity entry's payload (chunk files use the same entries, see RoomChunks).
+     */
+    static GameObject readEntity(ByteBuffer buf, byte code) throws IOException {
+        switch (code) {
+            case TileCodes.GOBLIN: return GameObjectFactory.createMonster('G', buf.getInt());
+            case TileCodes.ORC: return GameObjectFactory.createMonster('O', buf.getInt());
+            case TileCodes.TROLL: return GameObjectFactory.createMonster('T', buf.getInt());
+            case TileCodes.DOOR: {
+                byte[] target = new byte[buf.getShort() & 0xFFFF];
+                buf.get(target);
+                return new Door(new String(target, StandardCharsets.UTF_8), false);
+            }
+            default:
+                throw new IOException("Invalid entity code " + code);
+        }
+    }
+
+    /**
+     * Writes a room snapshot to a binary file.
+     * @param snapshot the room state to save
+     * @param savePath path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void write(RoomSnapshot snapshot, String savePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(savePath), 1 << 16))) {
+            write(snapshot, out);
+        }
+    }
+
+    /**
+     * Writes a room snapshot in the binary format to a stream.
+     */
+    static void write(RoomSnapshot snapshot, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeInt(snapshot.getRows());
+        out.writeInt(snapshot.getCols());
+
+        // Tile codes (the snapshot already records the hero's tile as empty)
+        out.write(snapshot.codes());
+
+        // Entity table in tile order
+        int count = snapshot.entityCount();
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int index = snapshot.entityIndex(i);
+            byte code = snapshot.codes()[index];
+            out.writeInt(index);
+            out.writeByte(code);
+            if (code == TileCodes.DOOR) {
+                byte[] target = snapshot.entityTarget(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(target.length);
+                out.write(target);
+            } else {
+                out.writeInt(snapshot.entityHp(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the binary file path matching a CSV room path ("room2.csv" to "room2.room").
+     */
+    static String binaryPathFor(String csvPath) {
+        String base = csvPath.endsWith(".csv") ? csvPath.substring(0, csvPath.length() - 4) : csvPath;
+        return base + EXTENSION;
+    }
+}
@@ -0,0 +1,587 @@
+package model;
+
+import util.CSVTokenReader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads and writes chunk files, the paged form of a room used by chunked storage (see ChunkedGrid).
+ * A chunk file is built from a room's CSV in one streaming pass, then read and rewritten one
+ * chunk at a time, so the room never has to be in memory as a whole.
+ *
+ * Layout (big-endian):
+ *   int    magic       'CHNK'
+ *   short  version     2
+ *   short  size        chunk side in tiles (a power of two)
+ *   int    rows
+ *   int    cols
+ *   long   metaOffset  position of the meta record
+ *   int    metaLength
+ *   directory, one entry per chunk in row-major chunk order:
+ *     long offset, int length    where the chunk's current record is
+ *     int  monsters               monsters in that record, so the room's total is known
+ *                                 without reading every chunk
+ *   chunk records:
+ *     byte[] codes       tile codes (see TileCodes), row-major, clipped at the room's edges;
+ *                        a hero code marks a spawn point from the CSV
+ *     int    count       number of entity entries
+ *     entries as in RoomBinary, with the tile index relative to the chunk
+ *   meta record:
+ *     int count, then the spawn tiles (row * cols + col)
+ *     int count, then the regular door targets, each a short length and UTF-8
+ *
+ * A rewritten chunk is appended before its directory entry is pointed at it, so a crash in
+ * the middle of a write leaves the previous record in use. Once stale records fill more than
+ * half of the file it is compacted into a new one. A file opened from the pristine rooms
+ * directory can be given a copy-on-write path: the first write compacts it into that path
+ * and all later reads and writes use the copy.
+ *
+ * Chunk files for pristine rooms are never built in the rooms directory while a game runs:
+ * they go to a cache directory (game.chunks.cache, by default "adventure-chunks" in the
+ * system's temporary directory). Builds are written under a temporary name and renamed into
+ * place, so sessions that build the same room at once each see a complete file.
+ */
+class RoomChunks {
+    static final int MAGIC = 0x43484E4B; // "CHNK"
+    static final short VERSION = 2;
+    static final String EXTENSION = ".chunks";
+    private static final int HEADER = 32;
+    private static final int ENTRY = 16;
+    private static final long MIN_COMPACT = 1 << 20; // Stale bytes tolerated before compacting
+    private static final String CACHE_DIR = System.getProperty("game.chunks.cache",
+            new File(System.getProperty("java.io.tmpdir"), "adventure-chunks").getPath());
+    private static boolean cacheSwept = false; // Orphaned builds were removed (see sweepCache)
+
+    private Path path;       // File read and written; moves to copyTo on the first write
+    private Path copyTo;     // Where the first write copies the file, or null to write in place
+    private final int size;
+    private final int rows;
+    private final int cols;
+    private final int chunkRows;
+    private final int chunkCols;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] monsters; // Monsters in each chunk's current record
+    private final int[] spawns;
+    private final Set<String> doorTargets;
+    private byte[] meta;     // Encoded meta record, rewritten as is on compaction
+    private long fileSize;
+    private long liveBytes;  // Bytes of the records the directory points at
+
+    private RoomChunks(Path path, int size, int rows, int cols, long[] offsets, int[] lengths,
+                       int[] monsters, byte[] meta, long fileSize) throws IOException {
+        this.path = path;
+        this.size = size;
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkRows = (rows + size - 1) / size;
+        this.chunkCols = (cols + size - 1) / size;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.monsters = monsters;
+        this.meta = meta;
+        this.fileSize = fileSize;
+        for (int length : lengths) {
+            liveBytes += length;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(meta);
+        spawns = new int[buf.getInt()];
+        for (int i = 0; i < spawns.length; i++) {
+            spawns[i] = buf.getInt();
+        }
+        Set<String> targets = new LinkedHashSet<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            byte[] target = new byte[buf.getShort() & 0xFFFF];
+            buf.get(target);
+            targets.add(new String(target, StandardCharsets.UTF_8));
+        }
+        doorTargets = Collections.unmodifiableSet(targets);
+    }
+
+    /**
+     * Returns the chunk file path that matches a CSV room path ("room2.csv" to "room2.chunks").
+     */
+    static String chunkPathFor(String csvPath) {
+        String base = csvPath.endsWith(".csv") ? csvPath.substring(0, csvPath.length() - 4) : csvPath;
+        return base + EXTENSION;
+    }
+
+    /**
+     * Returns where the chunk file of a pristine CSV room is built when none was converted next
+     * to it (see RoomConverter): a cache directory outside the rooms directory, which sessions
+     * share read-only. The name carries a hash of the CSV's full path, so rooms of the same
+     * name in different directories do not share a file.
+     */
+    static String cachePathFor(String csvPath) {
+        sweepCache();
+        File csv = new File(csvPath).getAbsoluteFile();
+        String name = new File(chunkPathFor(csv.getName())).getName();
+        String hash = Integer.toHexString(csv.getPath().hashCode());
+        return new File(CACHE_DIR, name.substring(0, name.length() - EXTENSION.length()) + "-" + hash + EXTENSION).getPath();
+    }
+
+    /**
+     * Deletes temporary build files left in the cache by processes that are gone, e.g. killed
+     * in the middle of a build. Runs once per process, when the cache is first used; builds
+     * of live processes (named with their pid, see tempFor) are left alone.
+     */
+    private static synchronized void sweepCache() {
+        if (cacheSwept) {
+            return;
+        }
+        cacheSwept = true;
+        File[] temps = new File(CACHE_DIR).listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (temps == null) {
+            return;
+        }
+        long self = ProcessHandle.current().pid();
+        for (File temp : temps) {
+            String name = temp.getName();
+            int dot = name.lastIndexOf('.', name.length() - 5);
+            int dash = name.indexOf('-', dot + 1);
+            long pid;
+            try {
+                pid = Long.parseLong(name.substring(dot + 1, dash));
+            } catch (RuntimeException e) {
+                continue; // Not one of ours
+            }
+            if (pid == self || !ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                temp.delete(); // Nothing was built here yet, so a file with our pid is from a reused one
+            }
+        }
+    }
+
+    /**
+     * Checks whether a chunk file exists and is not older than the CSV it was built from.
+     * A file in an older format counts as out of date when it can be rebuilt from the CSV.
+     */
+    static boolean isCurrent(String csvPath, String chunkPath) {
+        File csv = new File(csvPath);
+        File chunks = new File(chunkPath);
+        if (!chunks.exists() || !csv.exists()) {
+            return chunks.exists();
+        }
+        return chunks.lastModified() >= csv.lastModified() && versionOf(chunks.toPath()) == VERSION;
+    }
+
+    private static int versionOf(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, 6);
+            return (header.getInt() == MAGIC) ? header.getShort() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // === Building ===
+
+    /**
+     * Converts a CSV room into a chunk file, reading one band of chunks at a time.
+     * The file is written under a temporary name and moved into place when complete; a build
+     * that fails or is interrupted (e.g. a prefetch cancelled at exit) deletes it.
+     * @param csvPath the room's CSV file
+     * @param chunkPath the chunk file to create
+     * @param size chunk side in tiles (a power of two)
+     * @throws InterruptedIOException if the building thread was interrupted
+     * @throws IOException if the CSV cannot be read or is malformed, or the file cannot be written
+     */
+    static void build(String csvPath, String chunkPath, int size) throws IOException {
+        Path target = Paths.get(chunkPath);
+        Path temp = tempFor(target);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        boolean built = false;
+        try (CSVTokenReader in = new CSVTokenReader(new FileInputStream(csvPath))) {
+            if (!in.next()) throw new IOException("Missing size line: " + csvPath);
+            int rows = in.parseInt();
+            if (in.isEndOfLine() || !in.next()) throw new IOException("Missing column count: " + csvPath);
+            int cols = in.parseInt();
+            in.skipLine();
+
+            int chunkRows = (rows + size - 1) / size;
+            int chunkCols = (cols + size - 1) / size;
+            long[] offsets = new long[chunkRows * chunkCols];
+            int[] lengths = new int[offsets.length];
+            int[] monsters = new int[offsets.length];
+            int[] spawns = new int[0];
+            Set<String> targets = new LinkedHashSet<>();
+
+            long position = HEADER + (long) offsets.length * ENTRY;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.write(new byte[(int) position]); // Header and directory are filled in at the end
+
+                for (int band = 0; band < chunkRows; band++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Chunk build of " + csvPath + " was interrupted");
+                    }
+                    int bandRows = Math.min(size, rows - band * size);
+                    PackedGrid[] chunks = new PackedGrid[chunkCols];
+                    for (int cc = 0; cc < chunkCols; cc++) {
+                        chunks[cc] = new PackedGrid(bandRows, Math.min(size, cols - cc * size));
+                    }
+                    for (int r = band * size; r < band * size + bandRows; r++) {
+                        for (int c = 0; c < cols; c++) {
+                            if (!in.next() || (in.isEndOfLine() && c < cols - 1)) {
+                                throw new IOException("Row " + (r + 1) + " has fewer than " + cols + " cells");
+                            }
+                            GameObject obj = GameObjectFactory.createFromSymbol(in.bytes(), in.length());
+                            if (obj == null) {
+                                continue;
+                            }
+                            chunks[c / size].set(r % size, c % size, obj);
+                            if (obj instanceof Hero) {
+                                spawns = Arrays.copyOf(spawns, spawns.length + 1);
+                                spawns[spawns.length - 1] = r * cols + c;
+                            } else if (obj instanceof Door && !((Door) obj).requiresKey()) {
+                                targets.add(((Door) obj).getTargetRoomFilename());
+                            }
+                        }
+                        in.skipLine(); // Ignore any extra cells
+                    }
+                    for (int cc = 0; cc < chunkCols; cc++) {
+                        byte[] record = encode(chunks[cc], chunks[cc].codes().length / bandRows, true);
+                        out.write(record);
+                        offsets[band * chunkCols + cc] = position;
+                        lengths[band * chunkCols + cc] = record.length;
+                        monsters[band * chunkCols + cc] = countMonsters(chunks[cc]);
+                        position += record.length;
+                    }
+                }
+                byte[] meta = encodeMeta(spawns, targets);
+                out.write(meta);
+                out.flush();
+
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    writeHeader(channel, size, rows, cols, position, meta.length, offsets, lengths, monsters);
+                }
+            }
+            move(temp, target);
+            built = true;
+        } finally {
+            if (!built) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static byte[] encodeMeta(int[] spawns, Set<String> targets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(spawns.length);
+        for (int spawn : spawns) {
+            out.writeInt(spawn);
+        }
+        out.writeInt(targets.size());
+        for (String target : targets) {
+            byte[] name = target.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeHeader(FileChannel channel, int size, int rows, int cols, long metaOffset,
+                                    int metaLength, long[] offsets, int[] lengths, int[] monsters) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + offsets.length * ENTRY);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) size).putInt(rows).putInt(cols)
+                .putLong(metaOffset).putInt(metaLength).putInt(0);
+        for (int i = 0; i < offsets.length; i++) {
+            buf.putLong(offsets[i]).putInt(lengths[i]).putInt(monsters[i]);
+        }
+        buf.flip();
+        writeFully(channel, buf, 0);
+    }
+
+    // === Opening ===
+
+    /**
+     * Opens a chunk file, reading its header, directory, and meta record.
+     * @throws IOException if the file cannot be read or is not a valid chunk file
+     */
+    static RoomChunks open(String chunkPath) throws IOException {
+        Path path = Paths.get(chunkPath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a chunk file: " + chunkPath);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported chunk file version " + version + ": " + chunkPath);
+            }
+            int size = header.getShort();
+            int rows = header.getInt();
+            int cols = header.getInt();
+            long metaOffset = header.getLong();
+            int metaLength = header.getInt();
+            if (size <= 0 || Integer.bitCount(size) != 1 || rows <= 0 || cols <= 0) {
+                throw new IOException("Invalid chunk file header: " + chunkPath);
+            }
+
+            int count = ((rows + size - 1) / size) * ((cols + size - 1) / size);
+            ByteBuffer directory = readFully(channel, HEADER, count * ENTRY);
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            int[] monsters = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = directory.getLong();
+                lengths[i] = directory.getInt();
+                monsters[i] = directory.getInt();
+            }
+            byte[] meta = new byte[metaLength];
+            readFully(channel, metaOffset, metaLength).get(meta);
+            return new RoomChunks(path, size, rows, cols, offsets, lengths, monsters, meta, channel.size());
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the tiles of the @ symbols in the CSV, in tile order.
+     */
+    int[] getSpawns() {
+        return spawns;
+    }
+
+    /**
+     * Returns where the room's regular doors lead.
+     */
+    Set<String> getDoorTargets() {
+        return doorTargets;
+    }
+
+    /**
+     * Returns the number of monsters in the file, over all chunks, as last written.
+     */
+    synchronized int getMonsterCount() {
+        int total = 0;
+        for (int count : monsters) {
+            total += count;
+        }
+        return total;
+    }
+
+    // === Chunks ===
+
+    /**
+     * Reads one chunk.
+     * @param chunk chunk index (chunk row * chunk columns + chunk column)
+     * @return the chunk's tiles; spawn points hold placeholder heroes, as in a CSV load
+     */
+    synchronized PackedGrid read(int chunk) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buf = readFully(channel, offsets[chunk], lengths[chunk]);
+        }
+        int height = Math.min(size, rows - (chunk / chunkCols) * size);
+        int width = Math.min(size, cols - (chunk % chunkCols) * size);
+        PackedGrid grid = new PackedGrid(height, width);
+        byte[] codes = grid.codes();
+        buf.get(codes);
+        for (int i = buf.getInt(); i > 0; i--) {
+            int index = buf.getInt();
+            byte code = buf.get();
+            grid.putEntity(index, RoomBinary.readEntity(buf, code));
+        }
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == TileCodes.HERO) {
+                grid.putEntity(i, Hero.spawnPoint());
+            } else if (TileCodes.isStateful(codes[i]) && grid.get(i / width, i % width) == null) {
+                throw new IOException("Missing entity in chunk " + chunk + ": " + path);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Writes back changed chunks. Heroes are not stored; their tiles are written as empty.
+     * @param chunks chunk indexes
+     * @param grids the chunks' tiles, in the same order
+     */
+    synchronized void write(int[] chunks, PackedGrid[] grids) throws IOException {
+        if (copyTo != null) {
+            compact(copyTo); // The original stays untouched
+            copyTo = null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long[] written = new long[chunks.length];
+            int[] sizes = new int[chunks.length];
+            int[] counts = new int[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                int width = Math.min(size, cols - (chunks[i] % chunkCols) * size);
+                byte[] record = encode(grids[i], width, false);
+                writeFully(channel, ByteBuffer.wrap(record), fileSize);
+                written[i] = fileSize;
+                sizes[i] = record.length;
+                counts[i] = countMonsters(grids[i]);
+                fileSize += record.length;
+            }
+
+            // Point the directory at the new records only once they are all written
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY);
+            for (int i = 0; i < chunks.length; i++) {
+                entry.clear();
+                entry.putLong(written[i]).putInt(sizes[i]).putInt(counts[i]).flip();
+                writeFully(channel, entry, HEADER + (long) chunks[i] * ENTRY);
+                liveBytes += sizes[i] - lengths[chunks[i]];
+                offsets[chunks[i]] = written[i];
+                lengths[chunks[i]] = sizes[i];
+                monsters[chunks[i]] = counts[i];
+            }
+        }
+        long stale = fileSize - HEADER - (long) offsets.length * ENTRY - meta.length - liveBytes;
+        if (stale > liveBytes && stale > MIN_COMPACT) {
+            compact(path);
+        }
+    }
+
+    /**
+     * Makes the first write copy the file to the given path instead of changing it.
+     */
+    synchronized void copyOnWrite(String chunkPath) {
+        copyTo = Paths.get(chunkPath);
+    }
+
+    /**
+     * Copies the current records into a new file, dropping the stale ones, and switches to it.
+     * @param target the new file; the current path to compact in place
+     */
+    private void compact(Path target) throws IOException {
+        Path temp = tempFor(target);
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = HEADER + (long) offsets.length * ENTRY;
+            long[] moved = new long[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                moved[i] = position;
+                writeFully(out, readFully(in, offsets[i], lengths[i]), position);
+                position += lengths[i];
+            }
+            writeFully(out, ByteBuffer.wrap(meta), position);
+            writeHeader(out, size, rows, cols, position, meta.length, moved, lengths, monsters);
+            move(temp, target);
+            path = target;
+            System.arraycopy(moved, 0, offsets, 0, offsets.length);
+            fileSize = position + meta.length;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static int countMonsters(PackedGrid grid) {
+        int count = 0;
+        for (byte code : grid.codes()) {
+            if (TileCodes.isMonster(code)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encodes a chunk record.
+     * @param width the chunk's width in tiles
+     * @param keepSpawns true to store heroes as spawn points, false to store their tiles as empty
+     */
+    private static byte[] encode(PackedGrid grid, int width, boolean keepSpawns) throws IOException {
+        byte[] codes = grid.codes();
+        int count = 0;
+        for (byte code : codes) {
+            if (TileCodes.isStateful(code) && code != TileCodes.HERO) {
+                count++;
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(codes.length + 4 + count * 9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (byte code : codes) {
+            out.writeByte(code == TileCodes.HERO && !keepSpawns ? TileCodes.EMPTY : code);
+        }
+        out.writeInt(count);
+        for (int i = 0; i < codes.length; i++) {
+            byte code = codes[i];
+            if (!TileCodes.isStateful(code) || code == TileCodes.HERO) {
+                continue;
+            }
+            GameObject obj = grid.get(i / width, i % width);
+            out.writeInt(i);
+            out.writeByte(code);
+            if (code == TileCodes.DOOR) {
+                byte[] target = ((Door) obj).getTargetRoomFilename().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(target.length);
+                out.write(target);
+            } else {
+                out.writeInt(((Monster) obj).getHp());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // === File helpers ===
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Chunk file is truncated");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long at = position;
+        while (buf.hasRemaining()) {
+            at += channel.write(buf, at);
+        }
+    }
+
+    /**
+     * Returns a temporary file name next to a chunk file, unique per thread, since rooms
+     * loaded from a shared directory may be built by several sessions at once.
+     */
+    private static Path tempFor(Path file) {
+        return Paths.get(file + "." + ProcessHandle.current().pid() + "-" + Thread.currentThread().getId() + ".tmp");
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
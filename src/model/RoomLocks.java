@@ -0,0 +1,128 @@
+package model;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock striping over the tiles of a shared room.
+ * The grid is cut into square regions of REGION x REGION tiles, and each region is guarded
+ * by one of a fixed number of stripes (neighbouring regions get different stripes).
+ * A hero locks the stripes of the tiles it reads and writes, so heroes in different parts
+ * of the room never wait for each other.
+ *
+ * Two-tile operations always take their stripes in ascending order, so they cannot deadlock.
+ */
+public class RoomLocks {
+    static final int REGION = 8;          // Tiles per region side
+    public static final int MAX_STRIPES = 256;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final int regionCols;
+
+    // Statistics
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder contended = new LongAdder(); // Acquisitions that had to wait
+
+    /**
+     * Creates the stripes for a room of the given size.
+     * @param maxStripes upper bound on the number of stripes (1 makes one room-wide lock)
+     */
+    RoomLocks(int rows, int cols, int maxStripes) {
+        this.regionCols = (cols + REGION - 1) / REGION;
+        int regions = ((rows + REGION - 1) / REGION) * regionCols;
+        int count = 1;
+        while (count < regions && count * 2 <= maxStripes) {
+            count <<= 1;
+        }
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Returns the stripe that guards a tile.
+     */
+    int stripeOf(int row, int col) {
+        return ((row / REGION) * regionCols + col / REGION) & mask;
+    }
+
+    /**
+     * Locks the stripe of one tile.
+     */
+    public void lock(int row, int col) {
+        acquire(stripes[stripeOf(row, col)]);
+    }
+
+    /**
+     * Unlocks the stripe of one tile.
+     */
+    public void unlock(int row, int col) {
+        stripes[stripeOf(row, col)].unlock();
+    }
+
+    /**
+     * Locks the stripes of two tiles (once if they share a stripe), lowest stripe first.
+     */
+    public void lock(int row1, int col1, int row2, int col2) {
+        int a = stripeOf(row1, col1);
+        int b = stripeOf(row2, col2);
+        acquire(stripes[Math.min(a, b)]);
+        if (a != b) {
+            acquire(stripes[Math.max(a, b)]);
+        }
+    }
+
+    /**
+     * Unlocks the stripes taken by lock(row1, col1, row2, col2).
+     */
+    public void unlock(int row1, int col1, int row2, int col2) {
+        int a = stripeOf(row1, col1);
+        int b = stripeOf(row2, col2);
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquired.increment();
+        if (!lock.tryLock()) {
+            contended.increment();
+            lock.lock();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the number of stripe acquisitions so far.
+     */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * Returns the number of acquisitions that found the stripe held by another thread.
+     */
+    public long getContended() {
+        return contended.sum();
+    }
+
+    /**
+     * Returns a one-line summary of lock use.
+     */
+    public String getStats() {
+        long total = acquired.sum();
+        long waited = contended.sum();
+        return String.format("[locks] %d stripes | %d acquired | %d contended (%.2f%%)",
+                stripes.length, total, waited, total > 0 ? 100.0 * waited / total : 0.0);
+    }
+}
@@ -0,0 +1,468 @@
+package model;
+
+import util.Histogram;
+import util.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Draws rooms to a terminal.
+ * Each frame is composed into a reusable character buffer, encoded into a reusable
+ * byte buffer, and written with a single write and flush.
+ *
+ * In plain mode every frame is a full redraw in the classic bordered layout.
+ * In ANSI mode the frame is pinned to the top of the screen (messages scroll below it)
+ * and, after the first full frame, only the cells and header lines that changed
+ * are sent as cursor-addressed updates.
+ *
+ * Rooms larger than the viewport (-Dgame.view.rows / -Dgame.view.cols, default 20 x 24 tiles)
+ * are drawn as a window onto the room. The window starts centred on the hero and scrolls once
+ * the hero comes within a quarter of the window of its edge, so most moves still redraw only
+ * a few cells. A minimap below the grid shows where the window and the hero are. The cost of
+ * a frame depends on the viewport and minimap sizes, not on the room's.
+ */
+public class RoomRenderer {
+    private static final Histogram RENDER = Metrics.histogram("render.frame");
+    private static final char ESC = '\u001B';
+    private static final int HEADER_ROWS = 3; // Title, status, blank line (ANSI layout)
+    private static final int MINIMAP_ROWS = 6;
+    private static final int MINIMAP_COLS = 24;
+    private static final char[] NO_MINIMAP = new char[0];
+
+    private final OutputStream out;
+    private final boolean ansi;
+    private final CharsetEncoder encoder;
+    private final boolean debug = Boolean.getBoolean("game.render.stats");
+
+    private CharBuffer chars = CharBuffer.allocate(4096);
+    private ByteBuffer bytes = ByteBuffer.allocate(8192);
+
+    // Viewport: the window of the room that is drawn
+    private int viewRows = Integer.getInteger("game.view.rows", 20); // 0 draws every row
+    private int viewCols = Integer.getInteger("game.view.cols", 24); // 0 draws every column
+    private Room viewRoom = null; // Room the window was last placed in
+    private int top = 0;          // First room row in the window
+    private int left = 0;         // First room column in the window
+    private int height = 0;       // Rows in the window
+    private int width = 0;        // Columns in the window
+    private char[] minimap = NO_MINIMAP; // Minimap lines of the current frame, or empty if none
+    private int minimapRows = 0;
+    private int minimapCols = 0;
+
+    // Previous frame (ANSI mode), used to find changed cells
+    private Room lastRoom = null;
+    private int lastTop = 0;
+    private int lastLeft = 0;
+    private char[] lastSymbols = new char[0]; // Window cells, row-major
+    private char[] lastMinimap = new char[0];
+    private String lastTitle = null;
+    private String lastStatus = null;
+
+    // Statistics
+    private long frames = 0;
+    private long totalBytes = 0;
+    private int lastFrameBytes = 0;
+    private boolean lastFrameFull = true;
+
+    /**
+     * Creates a renderer.
+     * @param out stream the frames are written to
+     * @param ansi whether to use ANSI cursor addressing and delta updates
+     */
+    public RoomRenderer(OutputStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Guesses whether standard output is an ANSI terminal.
+     * Can be forced with -Dgame.render=ansi or -Dgame.render=plain.
+     */
+    public static boolean detectAnsi() {
+        String mode = System.getProperty("game.render", "auto");
+        if (mode.equals("ansi")) return true;
+        if (mode.equals("plain")) return false;
+        String term = System.getenv("TERM");
+        return System.console() != null && term != null && !term.equals("dumb");
+    }
+
+    /**
+     * Sets the viewport size in tiles. Rooms that fit are drawn whole.
+     * @param rows rows in the window, or 0 to draw every row
+     * @param cols columns in the window, or 0 to draw every column
+     */
+    public void setViewport(int rows, int cols) {
+        viewRows = rows;
+        viewCols = cols;
+        viewRoom = null; // Place the window afresh on the next frame
+    }
+
+    /**
+     * Draws a frame without a hero to follow; the window stays where it was.
+     * @param room the room to draw
+     * @param title first header line, or null for none
+     * @param status second header line (e.g., hero stats), or null for none
+     * @return number of bytes written for this frame
+     */
+    public int render(Room room, String title, String status) {
+        return render(room, -1, -1, title, status);
+    }
+
+    /**
+     * Draws a frame with the viewport following the hero.
+     * @param room the room to draw
+     * @param heroRow the hero's row, or -1 if unknown
+     * @param heroCol the hero's column, or -1 if unknown
+     * @param title first header line, or null for none
+     * @param status second header line (e.g., hero stats), or null for none
+     * @return number of bytes written for this frame
+     */
+    public int render(Room room, int heroRow, int heroCol, String title, String status) {
+        long start = System.nanoTime();
+        chars.clear();
+        placeWindow(room, heroRow, heroCol);
+        composeMinimap(room, heroRow, heroCol);
+        boolean full = !ansi || room != lastRoom || top != lastTop || left != lastLeft
+                || lastSymbols.length != height * width || lastMinimap.length != minimap.length;
+        if (!ansi) {
+            composePlain(room, title, status);
+        } else if (full) {
+            composeAnsiFull(room, title, status);
+        } else {
+            composeAnsiDelta(room, title, status);
+        }
+        lastFrameFull = full;
+        int length = flush();
+
+        frames++;
+        totalBytes += length;
+        lastFrameBytes = length;
+        if (debug && out instanceof PrintStream) {
+            ((PrintStream) out).println("[render] frame " + frames + ": " + length + " bytes ("
+                    + (full ? "full" : "delta") + ")");
+        }
+        RENDER.recordSince(start);
+        return length;
+    }
+
+    /**
+     * Forces the next frame to be a full redraw.
+     */
+    public void reset() {
+        lastRoom = null;
+    }
+
+    /**
+     * Restores the terminal scrolling region (ANSI mode). Call when the game ends.
+     */
+    public void finish() {
+        if (ansi && lastRoom != null) {
+            chars.clear();
+            put(ESC).put("[r");
+            flush();
+            lastRoom = null;
+        }
+    }
+
+    // === Viewport ===
+
+    /**
+     * Positions the window: centred on the hero in a new room, then scrolled only when the
+     * hero comes within a quarter of the window of its edge. The window never leaves the room.
+     */
+    private void placeWindow(Room room, int heroRow, int heroCol) {
+        int rows = room.getRows();
+        int cols = room.getCols();
+        height = (viewRows > 0) ? Math.min(viewRows, rows) : rows;
+        width = (viewCols > 0) ? Math.min(viewCols, cols) : cols;
+        boolean fresh = room != viewRoom;
+        viewRoom = room;
+        if (heroRow >= 0 && heroCol >= 0) {
+            top = scroll(fresh, top, height, heroRow);
+            left = scroll(fresh, left, width, heroCol);
+        } else if (fresh) {
+            top = 0;
+            left = 0;
+        }
+        top = Math.max(0, Math.min(top, rows - height));
+        left = Math.max(0, Math.min(left, cols - width));
+    }
+
+    /**
+     * Returns the new first row (or column) of a window of the given size along one axis.
+     */
+    private static int scroll(boolean centre, int first, int size, int hero) {
+        if (centre) {
+            return hero - size / 2;
+        }
+        int margin = size / 4;
+        if (hero < first + margin) {
+            return hero - margin;
+        }
+        if (hero > first + size - 1 - margin) {
+            return hero - size + 1 + margin;
+        }
+        return first;
+    }
+
+    /**
+     * Builds the minimap lines for a room larger than the window, or none if it fits:
+     * a caption with the window's position, then the room scaled down to at most
+     * MINIMAP_ROWS x MINIMAP_COLS, with '#' for the window, '@' for the hero, '.' elsewhere.
+     */
+    private void composeMinimap(Room room, int heroRow, int heroCol) {
+        int rows = room.getRows();
+        int cols = room.getCols();
+        if (height == rows && width == cols) {
+            minimapRows = 0;
+            minimapCols = 0;
+            minimap = NO_MINIMAP;
+            return;
+        }
+        String caption = "Map: rows " + top + "-" + (top + height - 1) + " of " + rows
+                + ", cols " + left + "-" + (left + width - 1) + " of " + cols;
+        int mapRows = Math.min(MINIMAP_ROWS, rows);
+        int mapCols = Math.min(MINIMAP_COLS, cols);
+        minimapCols = Math.max(caption.length(), mapCols + 1);
+        minimapRows = mapRows + 1;
+        if (minimap.length != minimapRows * minimapCols) {
+            minimap = new char[minimapRows * minimapCols];
+        }
+        Arrays.fill(minimap, ' ');
+        caption.getChars(0, caption.length(), minimap, 0);
+
+        for (int i = 0; i < mapRows; i++) {
+            // Room rows [firstRow, endRow) are drawn as minimap line i
+            long firstRow = (long) i * rows / mapRows;
+            long endRow = (long) (i + 1) * rows / mapRows;
+            for (int j = 0; j < mapCols; j++) {
+                long firstCol = (long) j * cols / mapCols;
+                long endCol = (long) (j + 1) * cols / mapCols;
+                char mark = '.';
+                if (heroRow >= firstRow && heroRow < endRow && heroCol >= firstCol && heroCol < endCol) {
+                    mark = '@';
+                } else if (firstRow < top + height && endRow > top && firstCol < left + width && endCol > left) {
+                    mark = '#';
+                }
+                minimap[(i + 1) * minimapCols + 1 + j] = mark;
+            }
+        }
+    }
+
+    // === Frame composition ===
+
+    private void composePlain(Room room, String title, String status) {
+        put('\n');
+        if (title != null) put(title).put('\n');
+        if (status != null) put(status).put('\n');
+        if (title != null || status != null) put('\n');
+        composeGrid(room);
+    }
+
+    private void composeAnsiFull(Room room, String title, String status) {
+        // Reset scrolling, clear, and draw from the top-left corner
+        put(ESC).put("[r").put(ESC).put("[2J").put(ESC).put("[H");
+        put(title != null ? title : "").put('\n');
+        put(status != null ? status : "").put("\n\n");
+        composeGrid(room);
+
+        // Keep the frame fixed and let messages scroll below it
+        int frameHeight = HEADER_ROWS + height + 2 + minimapRows;
+        put(ESC).put('[').putInt(frameHeight + 1).put('r');
+        moveTo(frameHeight + 1, 1);
+
+        if (lastSymbols.length != height * width) {
+            lastSymbols = new char[height * width];
+        }
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                lastSymbols[r * width + c] = room.getSymbol(top + r, left + c);
+            }
+        }
+        lastMinimap = minimap.clone();
+        lastRoom = room;
+        lastTop = top;
+        lastLeft = left;
+        lastTitle = title;
+        lastStatus = status;
+    }
+
+    private void composeAnsiDelta(Room room, String title, String status) {
+        put(ESC).put('7'); // Save cursor
+
+        if (!same(title, lastTitle)) {
+            moveTo(1, 1);
+            put(title != null ? title : "").put(ESC).put("[K");
+            lastTitle = title;
+        }
+        if (!same(status, lastStatus)) {
+            moveTo(2, 1);
+            put(status != null ? status : "").put(ESC).put("[K");
+            lastStatus = status;
+        }
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                char symbol = room.getSymbol(top + r, left + c);
+                int index = r * width + c;
+                if (symbol != lastSymbols[index]) {
+                    moveTo(HEADER_ROWS + 2 + r, 3 + c * 3);
+                    put(symbol);
+                    lastSymbols[index] = symbol;
+                }
+            }
+        }
+
+        // Minimap lines that changed (the hero moved to another minimap cell)
+        for (int line = 0; line < minimapRows; line++) {
+            int from = line * minimapCols;
+            if (!Arrays.equals(minimap, from, from + minimapCols, lastMinimap, from, from + minimapCols)) {
+                moveTo(HEADER_ROWS + height + 3 + line, 1);
+                putLine(line);
+                put(ESC).put("[K");
+                System.arraycopy(minimap, from, lastMinimap, from, minimapCols);
+            }
+        }
+
+        put(ESC).put('8'); // Restore cursor
+    }
+
+    /**
+     * Writes the window in the classic bordered layout, followed by the minimap if any.
+     */
+    private void composeGrid(Room room) {
+        ensureChars((height + 2) * (width * 3 + 3) + minimap.length + minimapRows + 64);
+
+        // Top border
+        put('+');
+        for (int i = 0; i < width; i++) put("---");
+        put("+\n");
+
+        // Grid rows
+        for (int r = top; r < top + height; r++) {
+            put('|');
+            for (int c = left; c < left + width; c++) {
+                put(' ').put(room.getSymbol(r, c)).put(' '); // Add spacing for alignment
+            }
+            put("|\n");
+        }
+
+        // Bottom border
+        put('+');
+        for (int i = 0; i < width; i++) put("---");
+        put("+\n");
+
+        for (int line = 0; line < minimapRows; line++) {
+            putLine(line);
+            put('\n');
+        }
+    }
+
+    /**
+     * Writes one minimap line without its trailing blanks.
+     */
+    private void putLine(int line) {
+        int from = line * minimapCols;
+        int end = from + minimapCols;
+        while (end > from && minimap[end - 1] == ' ') {
+            end--;
+        }
+        ensureChars(end - from);
+        chars.put(minimap, from, end - from);
+    }
+
+    // === Output ===
+
+    /**
+     * Encodes the composed frame and writes it in one call.
+     */
+    private int flush() {
+        chars.flip();
+        bytes.clear();
+        encoder.reset();
+        while (encoder.encode(chars, bytes, true).isOverflow()) {
+            growBytes();
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            growBytes();
+        }
+
+        int length = bytes.position();
+        try {
+            out.write(bytes.array(), 0, length);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("[ERROR] Failed to draw the room: " + e.getMessage());
+        }
+        return length;
+    }
+
+    private void growBytes() {
+        ByteBuffer bigger = ByteBuffer.allocate(bytes.capacity() * 2);
+        bytes.flip();
+        bigger.put(bytes);
+        bytes = bigger;
+    }
+
+    private void ensureChars(int extra) {
+        if (chars.remaining() < extra) {
+            CharBuffer bigger = CharBuffer.allocate(chars.position() + extra + chars.capacity());
+            chars.flip();
+            bigger.put(chars);
+            chars = bigger;
+        }
+    }
+
+    private RoomRenderer put(char c) {
+        if (!chars.hasRemaining()) ensureChars(1);
+        chars.put(c);
+        return this;
+    }
+
+    private RoomRenderer put(String s) {
+        ensureChars(s.length());
+        chars.put(s);
+        return this;
+    }
+
+    private RoomRenderer putInt(int value) {
+        if (value >= 10) putInt(value / 10);
+        return put((char) ('0' + value % 10));
+    }
+
+    private void moveTo(int row, int col) {
+        put(ESC).put('[').putInt(row).put(';').putInt(col).put('H');
+    }
+
+    private static boolean same(String a, String b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    // === Statistics ===
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    public boolean wasLastFrameFull() {
+        return lastFrameFull;
+    }
+}
@@ -0,0 +1,185 @@
+package model;
+
+import util.Histogram;
+import util.Metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable copy of a room's saveable state.
+ * Holds one tile code per tile plus the per-tile state of monsters (HP) and doors (target),
+ * so it can be written to CSV or binary on another thread while the room keeps changing.
+ * The hero is not part of a snapshot; its tile is recorded as empty. Unused spawn points
+ * (the @ tiles of the room file) are kept as hero codes.
+ */
+public final class RoomSnapshot {
+    private static final Histogram SAVE_CSV = Metrics.histogram("room.save.csv");
+    private static final Histogram SAVE_BINARY = Metrics.histogram("room.save.binary");
+
+    private final String filename;
+    private final int rows;
+    private final int cols;
+    private final byte[] codes;
+
+    // Stateful tiles in tile order
+    private final int count;
+    private final int[] entityIndexes;
+    private final int[] hps;        // Monster HP (unused for doors)
+    private final String[] targets; // Door target (null for monsters)
+
+    private RoomSnapshot(String filename, int rows, int cols, byte[] codes,
+                         int count, int[] entityIndexes, int[] hps, String[] targets) {
+        this.filename = filename;
+        this.rows = rows;
+        this.cols = cols;
+        this.codes = codes;
+        this.count = count;
+        this.entityIndexes = entityIndexes;
+        this.hps = hps;
+        this.targets = targets;
+    }
+
+    /**
+     * Captures the current state of a room.
+     * @param room the room
+     * @return a snapshot that no longer depends on the room
+     */
+    static RoomSnapshot of(Room room) {
+        int rows = room.getRows();
+        int cols = room.getCols();
+        int tiles = rows * cols;
+        Grid grid = room.getStorage();
+
+        byte[] codes;
+        if (grid instanceof PackedGrid) {
+            codes = ((PackedGrid) grid).codes().clone();
+        } else {
+            codes = new byte[tiles];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    codes[r * cols + c] = TileCodes.encode(grid.get(r, c));
+                }
+            }
+        }
+
+        int count = 0;
+        int[] indexes = new int[16];
+        int[] hps = new int[16];
+        String[] targets = new String[16];
+        for (int index = 0; index < tiles; index++) {
+            byte code = codes[index];
+            if (code == TileCodes.HERO) {
+                Hero hero = (Hero) grid.get(index / cols, index % cols);
+                if (!hero.isSpawnPoint()) {
+                    codes[index] = TileCodes.EMPTY; // The hero is placed dynamically when the room loads
+                }
+            } else if (TileCodes.isStateful(code)) {
+                if (count == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, count * 2);
+                    hps = Arrays.copyOf(hps, count * 2);
+                    targets = Arrays.copyOf(targets, count * 2);
+                }
+                GameObject obj = grid.get(index / cols, index % cols);
+                indexes[count] = index;
+                if (obj instanceof Monster) {
+                    hps[count] = ((Monster) obj).getHp();
+                } else {
+                    targets[count] = ((Door) obj).getTargetRoomFilename();
+                }
+                count++;
+            }
+        }
+        return new RoomSnapshot(room.getFileName(), rows, cols, codes, count, indexes, hps, targets);
+    }
+
+    /**
+     * Writes the snapshot as a CSV room file.
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCSV(String path) throws IOException {
+        long start = System.nanoTime();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path), 1 << 16)) {
+            // First row stores the size information
+            writer.write(rows + "," + cols);
+            writer.newLine();
+
+            int entity = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (c > 0) writer.write(',');
+                    int index = r * cols + c;
+                    byte code = codes[index];
+                    if (code == TileCodes.HERO) {
+                        writer.write('@'); // Spawn point
+                    } else if (TileCodes.isStateful(code)) {
+                        writer.write(entitySymbol(entity++));
+                    } else {
+                        writer.write(TileCodes.symbolOf(code));
+                    }
+                }
+                writer.newLine();
+            }
+        }
+        SAVE_CSV.recordSince(start);
+    }
+
+    /**
+     * Writes the snapshot as a binary room file.
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(String path) throws IOException {
+        long start = System.nanoTime();
+        RoomBinary.write(this, path);
+        SAVE_BINARY.recordSince(start);
+    }
+
+    /**
+     * Returns the CSV symbol of the i-th stateful tile (e.g., "G:2", "d:room3.csv").
+     */
+    private String entitySymbol(int i) {
+        byte code = codes[entityIndexes[i]];
+        if (code == TileCodes.DOOR) {
+            return "d:" + targets[i];
+        }
+        return TileCodes.symbolOf(code) + ":" + hps[i];
+    }
+
+    // === Getters (package-private for the binary writer) ===
+
+    public String getFileName() {
+        return filename;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    byte[] codes() {
+        return codes;
+    }
+
+    int entityCount() {
+        return count;
+    }
+
+    int entityIndex(int i) {
+        return entityIndexes[i];
+    }
+
+    int entityHp(int i) {
+        return hps[i];
+    }
+
+    String entityTarget(int i) {
+        return targets[i];
+    }
+}
@@ -0,0 +1,237 @@
+package model;
+
+import util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform bucket grid over a room's tiles, used to find monsters and items by position.
+ * Objects are keyed by tile (row * cols + col); each bucket covers a BUCKET x BUCKET block
+ * and lists the occupied tiles in it, so add, remove, and move are constant time and range
+ * and nearest queries only look at the buckets they overlap.
+ *
+ * Distances are Chebyshev (king-move) distances: radius 1 is the 8 tiles around a tile,
+ * matching how the hero finds adjacent monsters.
+ *
+ * @param <T> indexed object type
+ */
+public class SpatialIndex<T extends GameObject> {
+    private static final int SHIFT = 4;
+    private static final int BUCKET = 1 << SHIFT; // Tiles per bucket side
+
+    /**
+     * Receives query results.
+     */
+    public interface Visitor<T> {
+        void visit(int row, int col, T obj);
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int bucketCols;
+    private final int bucketRows;
+    private final int[][] buckets;  // Occupied tile indexes per bucket (allocated on first use)
+    private final int[] counts;     // Entries used in each bucket
+    private final IntObjectMap<T> byTile = new IntObjectMap<>();
+
+    /**
+     * Creates an empty index for a room of the given size.
+     */
+    public SpatialIndex(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bucketRows = (rows + BUCKET - 1) >> SHIFT;
+        this.bucketCols = (cols + BUCKET - 1) >> SHIFT;
+        this.buckets = new int[bucketRows * bucketCols][];
+        this.counts = new int[bucketRows * bucketCols];
+    }
+
+    /**
+     * Adds an object on a tile, replacing any object already indexed there.
+     */
+    public void add(int row, int col, T obj) {
+        int tile = row * cols + col;
+        if (byTile.get(tile) == null) {
+            int bucket = bucketOf(row, col);
+            int[] tiles = buckets[bucket];
+            if (tiles == null) {
+                tiles = buckets[bucket] = new int[4];
+            } else if (counts[bucket] == tiles.length) {
+                tiles = buckets[bucket] = Arrays.copyOf(tiles, tiles.length * 2);
+            }
+            tiles[counts[bucket]++] = tile;
+        }
+        byTile.put(tile, obj);
+    }
+
+    /**
+     * Removes the object on a tile.
+     * @return the removed object, or null if none was indexed there
+     */
+    public T remove(int row, int col) {
+        int tile = row * cols + col;
+        T obj = byTile.remove(tile);
+        if (obj != null) {
+            int bucket = bucketOf(row, col);
+            int[] tiles = buckets[bucket];
+            int last = --counts[bucket];
+            for (int i = 0; i <= last; i++) {
+                if (tiles[i] == tile) {
+                    tiles[i] = tiles[last]; // Swap-remove; order within a bucket does not matter
+                    break;
+                }
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * Moves the object on one tile to another.
+     * @return the moved object, or null if none was indexed on the source tile
+     */
+    public T move(int fromRow, int fromCol, int toRow, int toCol) {
+        T obj = remove(fromRow, fromCol);
+        if (obj != null) {
+            add(toRow, toCol, obj);
+        }
+        return obj;
+    }
+
+    /**
+     * Returns the object indexed on a tile, or null.
+     */
+    public T get(int row, int col) {
+        return byTile.get(row * cols + col);
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     */
+    public int size() {
+        return byTile.size();
+    }
+
+    /**
+     * Visits every object within the given distance of a tile.
+     * @param row center row
+     * @param col center column
+     * @param radius maximum Chebyshev distance
+     * @param visitor receives each object and its tile
+     */
+    public void forEachWithin(int row, int col, int radius, Visitor<? super T> visitor) {
+        int r0 = Math.max(0, row - radius), r1 = Math.min(rows - 1, row + radius);
+        int c0 = Math.max(0, col - radius), c1 = Math.min(cols - 1, col + radius);
+        if (r0 > r1 || c0 > c1) {
+            return;
+        }
+        for (int br = r0 >> SHIFT; br <= r1 >> SHIFT; br++) {
+            for (int bc = c0 >> SHIFT; bc <= c1 >> SHIFT; bc++) {
+                int bucket = br * bucketCols + bc;
+                int[] tiles = buckets[bucket];
+                for (int i = 0; i < counts[bucket]; i++) {
+                    int r = tiles[i] / cols;
+                    int c = tiles[i] % cols;
+                    if (r >= r0 && r <= r1 && c >= c0 && c <= c1) {
+                        visitor.visit(r, c, byTile.get(tiles[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buckets, for callers that sweep the index a few buckets at a time.
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * Visits every object in one bucket, in no particular order.
+     * The visitor must not add or remove objects; collect them first instead.
+     * @param bucket bucket number, from 0 to getBucketCount() - 1 in row-major order
+     * @return the number of objects visited
+     */
+    public int forEachInBucket(int bucket, Visitor<? super T> visitor) {
+        int[] tiles = buckets[bucket];
+        for (int i = 0; i < counts[bucket]; i++) {
+            visitor.visit(tiles[i] / cols, tiles[i] % cols, byTile.get(tiles[i]));
+        }
+        return counts[bucket];
+    }
+
+    /**
+     * Returns every object within the given distance of a tile.
+     */
+    public List<T> within(int row, int col, int radius) {
+        List<T> result = new ArrayList<>();
+        forEachWithin(row, col, radius, (r, c, obj) -> result.add(obj));
+        return result;
+    }
+
+    /**
+     * Finds the indexed object closest to a tile, ignoring the tile itself.
+     * Searches rings of buckets outward and stops once no closer object can exist.
+     * @return {row, col} of the nearest object, or null if the index is empty
+     */
+    public int[] nearest(int row, int col) {
+        int centerRow = row >> SHIFT;
+        int centerCol = col >> SHIFT;
+        int maxRing = Math.max(Math.max(centerRow, bucketRows - 1 - centerRow),
+                Math.max(centerCol, bucketCols - 1 - centerCol));
+        int bestTile = -1;
+        int bestDistance = Integer.MAX_VALUE;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every tile in this ring is at least (ring - 1) * BUCKET + 1 away
+            if (bestTile >= 0 && (ring - 1) * BUCKET + 1 > bestDistance) {
+                break;
+            }
+            for (int br = centerRow - ring; br <= centerRow + ring; br++) {
+                if (br < 0 || br >= bucketRows) continue;
+                boolean edgeRow = br == centerRow - ring || br == centerRow + ring;
+                for (int bc = centerCol - ring; bc <= centerCol + ring; bc++) {
+                    if (bc < 0 || bc >= bucketCols) continue;
+                    if (!edgeRow && bc != centerCol - ring && bc != centerCol + ring) continue; // Inner buckets were searched already
+                    int bucket = br * bucketCols + bc;
+                    int[] tiles = buckets[bucket];
+                    for (int i = 0; i < counts[bucket]; i++) {
+                        int r = tiles[i] / cols;
+                        int c = tiles[i] % cols;
+                        int distance = Math.max(Math.abs(r - row), Math.abs(c - col));
+                        if (distance > 0 && (distance < bestDistance || (distance == bestDistance && tiles[i] < bestTile))) {
+                            bestDistance = distance;
+                            bestTile = tiles[i];
+                        }
+                    }
+                }
+            }
+        }
+        return (bestTile >= 0) ? new int[]{ bestTile / cols, bestTile % cols } : null;
+    }
+
+    /**
+     * Returns all indexed objects in tile order.
+     */
+    public List<T> values() {
+        int[] tiles = new int[byTile.size()];
+        int n = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            for (int i = 0; i < counts[bucket]; i++) {
+                tiles[n++] = buckets[bucket][i];
+            }
+        }
+        Arrays.sort(tiles, 0, n);
+        List<T> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(byTile.get(tiles[i]));
+        }
+        return result;
+    }
+
+    private int bucketOf(int row, int col) {
+        return (row >> SHIFT) * bucketCols + (col >> SHIFT);
+    }
+}
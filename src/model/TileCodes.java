@@ -0,0 +1,90 @@
+package model;
+
+/**
+ * Compact one-byte type codes for room tiles.
+ * Used by packed room storage to describe a tile without allocating an object for it.
+ * Stateful tiles (hero, monsters, regular doors) also keep their object in a side table;
+ * stateless items are described by the code alone.
+ */
+public final class TileCodes {
+    public static final byte EMPTY = 0;
+    public static final byte HERO = 1;
+    public static final byte STICK = 2;
+    public static final byte WEAK_SWORD = 3;
+    public static final byte STRONG_SWORD = 4;
+    public static final byte MINOR_FLASK = 5;
+    public static final byte BIG_FLASK = 6;
+    public static final byte KEY = 7;
+    public static final byte GOBLIN = 8;
+    public static final byte ORC = 9;
+    public static final byte TROLL = 10;
+    public static final byte DOOR = 11;
+    public static final byte MASTER_DOOR = 12;
+
+    /** Number of defined codes. */
+    public static final int COUNT = 13;
+
+    // CSV symbol for each code (null where the symbol depends on per-tile state)
+    private static final String[] SYMBOLS = {
+        " ", "@", "S", "W", "X", "m", "B", "*", "G", "O", "T", null, "D"
+    };
+
+    private TileCodes() {
+    }
+
+    /**
+     * Returns the type code for an object.
+     * @param obj the object (may be null)
+     * @return the tile code
+     * @throws IllegalArgumentException if the object type has no code
+     */
+    public static byte encode(GameObject obj) {
+        if (obj == null) return EMPTY;
+        if (obj instanceof Hero) return HERO;
+        if (obj instanceof Key) return KEY;
+        if (obj instanceof Door) return ((Door) obj).requiresKey() ? MASTER_DOOR : DOOR;
+        if (obj instanceof Weapon) {
+            switch (((Weapon) obj).getType()) {
+                case 'S': return STICK;
+                case 'W': return WEAK_SWORD;
+                case 'X': return STRONG_SWORD;
+            }
+        }
+        if (obj instanceof Potion) {
+            return ((Potion) obj).getType() == 'm' ? MINOR_FLASK : BIG_FLASK;
+        }
+        if (obj instanceof Monster) {
+            switch (((Monster) obj).getType()) {
+                case 'G': return GOBLIN;
+                case 'O': return ORC;
+                case 'T': return TROLL;
+            }
+        }
+        throw new IllegalArgumentException("No tile code for " + obj.getClass().getSimpleName());
+    }
+
+    /**
+     * Checks whether tiles with this code carry per-tile state (HP, door target, hero).
+     * @param code the tile code
+     * @return true if the object must be kept in a side table
+     */
+    public static boolean isStateful(byte code) {
+        return code == HERO || code == GOBLIN || code == ORC || code == TROLL || code == DOOR;
+    }
+
+    /**
+     * Checks whether a code is a monster (goblin, orc, or troll).
+     */
+    public static boolean isMonster(byte code) {
+        return code == GOBLIN || code == ORC || code == TROLL;
+    }
+
+    /**
+     * Returns the CSV symbol for a stateless code.
+     * @param code the tile code
+     * @return the symbol (e.g., "W"), or null if the code needs per-tile state
+     */
+    public static String symbolOf(byte code) {
+        return SYMBOLS[code];
+    }
+}
@@ -5,9 +5,9 @@ package model;
  * Each weapon has a name, damage value, and a visual symbol.
  */
 public class Weapon extends GameObject {
-    private String name;
-    private int damage;
-    private char symbol;
+    private final String name;
+    private final int damage;
+    private final char symbol;
 
     /**
      * Constructs a weapon with the given name, damage, and type symbol.
@@ -38,6 +38,14 @@ public class Weapon extends GameObject {
         return name;
     }
 
+    /**
+     * Returns the weapon type character used in room files.
+     * @return 'S', 'W', or 'X'
+     */
+    public char getType() {
+        return symbol;
+    }
+
     /**
      * Returns the character symbol representing the weapon on the grid.
      * Stick: † (U+2020), Weak Sword: ⚔ (U+2694), Strong Sword: ⚒ (U+2692)
@@ -0,0 +1,155 @@
+package sim;
+
+import app.GameSession;
+import app.MonsterScheduler;
+import model.InputSource;
+import model.Room;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs many headless game sessions in parallel and reports throughput.
+ * Each session keeps its rooms in memory, so sessions never touch each other's state.
+ *
+ * Usage:
+ *   java sim.BatchRunner [--sessions N] [--threads N] [--max-turns N] [--seed N]
+ *                        [--rooms DIR] [--start FILE] [--script FILE] [--storage objects|packed|chunked]
+ *                        [--monsters true|false]
+ *
+ * Without --script every session plays a RandomPolicy seeded with seed + session index.
+ * With --script, session i replays line (i mod lines) of the script file.
+ * Monsters stay put unless --monsters is true, so results stay comparable with earlier runs.
+ */
+public class BatchRunner {
+    private int sessions = 1000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxTurns = 500;
+    private long seed = 42;
+    private String roomsDir = "rooms";
+    private String startRoom = "room1.csv";
+    private List<String> scripts = null;
+    private Room.Storage storage = Room.Storage.OBJECTS;
+    private boolean monsters = false;
+
+    // Aggregated results
+    private final LongAdder totalTurns = new LongAdder();
+    private final LongAdder escaped = new LongAdder();
+    private final LongAdder died = new LongAdder();
+    private final LongAdder unfinished = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+            return;
+        }
+        runner.run();
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) throws IOException {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sessions": sessions = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--max-turns": maxTurns = Long.parseLong(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--rooms": roomsDir = value; break;
+                case "--start": startRoom = value; break;
+                case "--script": scripts = Files.readAllLines(Paths.get(value)); break;
+                case "--storage": storage = Room.Storage.valueOf(value.toUpperCase()); break;
+                case "--monsters": monsters = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (scripts != null && scripts.isEmpty()) {
+            throw new IllegalArgumentException("Script file is empty.");
+        }
+    }
+
+    /**
+     * Runs all sessions on a fixed thread pool and prints the report.
+     */
+    public void run() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            final int index = i;
+            futures.add(pool.submit(() -> playSession(index)));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (Exception e) {
+                failed.increment();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        report(elapsed);
+    }
+
+    /**
+     * Plays one session to completion or until the turn limit.
+     */
+    private void playSession(int index) {
+        InputSource input = (scripts != null)
+                ? ScriptedInput.parse(scripts.get(index % scripts.size()))
+                : new RandomPolicy(seed + index);
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+
+        GameSession session = new GameSession(roomsDir, null, input, sink);
+        session.setStorage(storage);
+        if (monsters) {
+            session.enableMonsters(MonsterScheduler.DEFAULT_RADIUS, MonsterScheduler.DEFAULT_BUDGET);
+        }
+        if (!session.start(startRoom)) {
+            failed.increment();
+            return;
+        }
+        session.run(false, maxTurns);
+
+        totalTurns.add(session.getTurns());
+        if (session.hasEscaped()) {
+            escaped.increment();
+        } else if (session.getHero().getHp() <= 0) {
+            died.increment();
+        } else {
+            unfinished.increment();
+        }
+    }
+
+    /**
+     * Prints outcome counts and throughput.
+     */
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("=== Batch simulation ===");
+        System.out.println("Sessions: " + sessions + " on " + threads + " threads");
+        System.out.println("Escaped: " + escaped.sum() + " | Died: " + died.sum()
+                + " | Unfinished: " + unfinished.sum() + " | Failed: " + failed.sum());
+        System.out.println("Turns: " + totalTurns.sum());
+        System.out.printf("Elapsed: %.3f s%n", seconds);
+        System.out.printf("Throughput: %.1f sessions/s, %.1f turns/s%n",
+                sessions / seconds, totalTurns.sum() / seconds);
+    }
+}
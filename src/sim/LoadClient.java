@@ -0,0 +1,227 @@
+package sim;
+
+import app.SessionThreads;
+import model.InputSource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for GameServer: keeps many players connected at once, each playing a RandomPolicy
+ * with a think time between commands, and reports how many sessions were held open and
+ * the command latency (from sending a line to receiving the next prompt).
+ * Players whose game ends reconnect and start a new session until the test is over.
+ *
+ * Usage:
+ *   java sim.LoadClient [--host H] [--port N] [--clients N] [--duration SECONDS]
+ *                       [--think MILLIS] [--ramp MILLIS] [--seed N]
+ */
+public class LoadClient {
+    private static final String COMMAND_PROMPT = "q to quit): ";
+    private static final String ANSWER_PROMPT = "(y/n): ";
+
+    private String host = "localhost";
+    private int port = 4000;
+    private int clients = 100;
+    private long durationMillis = 10_000;
+    private long thinkMillis = 100;
+    private long rampMillis = 2_000;
+    private long seed = 42;
+
+    // Aggregated results
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder gamesOver = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final List<long[]> latencies = new ArrayList<>(); // One array per player (guarded by itself)
+
+    /**
+     * What the server is waiting for after a read.
+     */
+    private enum Wait { COMMAND, ANSWER, CLOSED }
+
+    public static void main(String[] args) {
+        LoadClient client = new LoadClient();
+        try {
+            client.parseArgs(args);
+        } catch (RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+            return;
+        }
+        client.run();
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--host": host = value; break;
+                case "--port": port = Integer.parseInt(value); break;
+                case "--clients": clients = Integer.parseInt(value); break;
+                case "--duration": durationMillis = Long.parseLong(value) * 1000; break;
+                case "--think": thinkMillis = Long.parseLong(value); break;
+                case "--ramp": rampMillis = Long.parseLong(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Starts all players, waits for the test to end, and prints the report.
+     */
+    public void run() {
+        ExecutorService executor = SessionThreads.newExecutor("player");
+        long start = System.currentTimeMillis();
+        long deadline = start + rampMillis + durationMillis;
+        for (int i = 0; i < clients; i++) {
+            long startAt = start + rampMillis * i / clients; // Spread connections over the ramp
+            final int index = i;
+            executor.execute(() -> play(index, startAt, deadline));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(durationMillis + rampMillis + 60_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report((System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    /**
+     * One player: plays sessions back to back until the deadline.
+     */
+    private void play(int index, long startAt, long deadline) {
+        InputSource policy = new RandomPolicy(seed + index);
+        long[] samples = new long[256];
+        int count = 0;
+        sleepUntil(startAt);
+
+        while (System.currentTimeMillis() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 10_000);
+                socket.setTcpNoDelay(true);
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                sessions.increment();
+                peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                try {
+                    Wait wait = readUntilPrompt(in);
+                    while (wait != Wait.CLOSED && System.currentTimeMillis() < deadline) {
+                        String line = (wait == Wait.COMMAND)
+                                ? policy.nextCommand()
+                                : policy.answer(InputSource.Prompt.ATTACK);
+                        long sent = System.nanoTime();
+                        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                        wait = readUntilPrompt(in);
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - sent;
+                        if (thinkMillis > 0 && wait == Wait.COMMAND) {
+                            Thread.sleep(thinkMillis / 2 + (long) (Math.random() * thinkMillis));
+                        }
+                    }
+                    if (wait == Wait.CLOSED) {
+                        gamesOver.increment(); // Died or escaped; reconnect for a new game
+                    } else {
+                        // Out of time: decline any open question, then quit
+                        while (wait != Wait.CLOSED) {
+                            out.write((wait == Wait.COMMAND ? "q\n" : "n\n").getBytes(StandardCharsets.UTF_8));
+                            wait = readUntilPrompt(in);
+                        }
+                    }
+                } finally {
+                    open.decrementAndGet();
+                }
+            } catch (IOException e) {
+                errors.increment();
+                sleepUntil(System.currentTimeMillis() + 100); // Back off before reconnecting
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        synchronized (latencies) {
+            latencies.add(Arrays.copyOf(samples, count));
+        }
+    }
+
+    /**
+     * Reads server output until it asks for a command or an answer, or closes the connection.
+     */
+    private static Wait readUntilPrompt(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                line.setLength(0);
+                continue;
+            }
+            line.append((char) b);
+            if (b == ' ' && line.length() >= ANSWER_PROMPT.length()) {
+                if (endsWith(line, COMMAND_PROMPT)) return Wait.COMMAND;
+                if (endsWith(line, ANSWER_PROMPT)) return Wait.ANSWER;
+            }
+        }
+        return Wait.CLOSED;
+    }
+
+    private static boolean endsWith(StringBuilder s, String suffix) {
+        int offset = s.length() - suffix.length();
+        return offset >= 0 && s.indexOf(suffix, offset) == offset;
+    }
+
+    private static void sleepUntil(long time) {
+        long delay = time - System.currentTimeMillis();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Prints session counts, throughput, and latency percentiles.
+     */
+    private void report(double seconds) {
+        long[] all;
+        synchronized (latencies) {
+            all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        }
+        System.out.println("=== Load test ===");
+        System.out.println("Clients: " + clients + " on " + SessionThreads.describe());
+        System.out.println("Sessions: " + sessions.sum() + " opened, peak " + peakOpen.get()
+                + " open at once, " + gamesOver.sum() + " games over | Errors: " + errors.sum());
+        System.out.printf("Commands: %d in %.1f s (%.1f/s)%n", all.length, seconds, all.length / seconds);
+        if (all.length > 0) {
+            System.out.printf("Latency ms: p50 %.2f | p90 %.2f | p99 %.2f | p99.9 %.2f | max %.2f%n",
+                    percentile(all, 50), percentile(all, 90), percentile(all, 99),
+                    percentile(all, 99.9), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
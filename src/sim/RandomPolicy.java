@@ -0,0 +1,51 @@
+package sim;
+
+import model.InputSource;
+
+import java.util.Random;
+
+/**
+ * InputSource that plays randomly from a seed.
+ * Mostly moves, sometimes attacks, and usually accepts prompts.
+ * The same seed always produces the same sequence of decisions.
+ */
+public class RandomPolicy implements InputSource {
+    private static final String[] MOVES = { "u", "d", "l", "r" };
+
+    private final Random random;
+    private final double attackChance; // Probability of choosing "a" instead of a move
+    private final double yesChance;    // Probability of answering "y" to a prompt
+
+    /**
+     * Creates a random policy with default weights.
+     * @param seed random seed
+     */
+    public RandomPolicy(long seed) {
+        this(seed, 0.2, 0.8);
+    }
+
+    /**
+     * Creates a random policy.
+     * @param seed random seed
+     * @param attackChance probability that a command is an attack
+     * @param yesChance probability that a prompt is answered with "y"
+     */
+    public RandomPolicy(long seed, double attackChance, double yesChance) {
+        this.random = new Random(seed);
+        this.attackChance = attackChance;
+        this.yesChance = yesChance;
+    }
+
+    @Override
+    public String nextCommand() {
+        if (random.nextDouble() < attackChance) {
+            return "a";
+        }
+        return MOVES[random.nextInt(MOVES.length)];
+    }
+
+    @Override
+    public String answer(Prompt prompt) {
+        return random.nextDouble() < yesChance ? "y" : "n";
+    }
+}
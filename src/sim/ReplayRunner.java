@@ -0,0 +1,196 @@
+package sim;
+
+import app.GameSession;
+import app.InputLog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Replays a recorded game (see InputLog) as fast as the engine runs, with rendering off,
+ * and checks that every session of it ends in the recorded state. Used to reproduce a
+ * reported game exactly, and as a performance and regression test over long sessions.
+ *
+ * The replay plays in a temporary session directory with the recorded settings, so large
+ * rooms are paged exactly as they were. Where the recorded game was quit (or crashed) and
+ * resumed, the replay saves and resumes its own session at the same point.
+ *
+ * Usage:
+ *   java sim.ReplayRunner --log FILE [--rooms DIR] [--repeat N] [--render true|false]
+ *
+ *   --log      input log to replay (a game writes sessions/active_session/input.rec)
+ *   --rooms    rooms directory the game was played with (default: rooms)
+ *   --repeat   replay the log N times and report the fastest run (default: 1)
+ *   --render   draw every turn to the terminal, to watch the game (default: false)
+ */
+public class ReplayRunner {
+    private static final long JOURNAL_BYTES = 64 * 1024; // Same as the game's default
+
+    private String logPath = null;
+    private String roomsDir = "rooms";
+    private int repeat = 1;
+    private boolean render = false;
+
+    // Results of the last replay
+    private long turns = 0;
+    private int sessions = 0;
+    private int verified = 0;
+    private int mismatches = 0;
+    private long lastHash = 0;
+
+    public static void main(String[] args) {
+        ReplayRunner runner = new ReplayRunner();
+        InputLog log;
+        try {
+            runner.parseArgs(args);
+            log = InputLog.read(runner.logPath);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+            return;
+        }
+        runner.run(log);
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--log": logPath = value; break;
+                case "--rooms": roomsDir = value; break;
+                case "--repeat": repeat = Math.max(1, Integer.parseInt(value)); break;
+                case "--render": render = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (logPath == null) {
+            throw new IllegalArgumentException("Usage: java sim.ReplayRunner --log FILE [--rooms DIR] [--repeat N] [--render true|false]");
+        }
+    }
+
+    /**
+     * Replays the log the requested number of times and prints the report.
+     */
+    public void run(InputLog log) {
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < repeat; i++) {
+            long elapsed;
+            try {
+                elapsed = replay(log);
+            } catch (IOException e) {
+                System.out.println("[ERROR] Replay failed: " + e.getMessage());
+                return;
+            }
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        report(log, best, total);
+    }
+
+    /**
+     * Plays the whole log once in a fresh session directory.
+     * @return the time spent playing, in nanoseconds
+     */
+    private long replay(InputLog log) throws IOException {
+        InputLog.Settings settings = log.getSettings();
+        InputLog.Player input = log.player();
+        PrintStream out = render ? System.out : new PrintStream(OutputStream.nullOutputStream());
+        boolean journal = log.hasResumes(); // Only needed to save and resume like the game did
+        Path dir = Files.createTempDirectory("replay");
+        turns = 0;
+        sessions = 0;
+        verified = 0;
+        mismatches = 0;
+        try {
+            long start = System.nanoTime();
+            GameSession session = open(settings, dir, input, out, journal, false);
+            while (session != null) {
+                session.run(render);
+                sessions++;
+                turns += session.getTurns();
+                lastHash = session.stateHash();
+
+                InputLog.Record event = input.nextEvent();
+                if (event != null && event.isEnd()) {
+                    check(event, session);
+                    session.close(0); // Saved as the game saved it when it ended
+                    event = input.nextEvent();
+                }
+                // A resume without an end is a crash: the session is dropped as it is
+                session = (event != null) ? open(settings, dir, input, out, journal, true) : null;
+            }
+            return System.nanoTime() - start;
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Starts (or resumes) a session the way the game does, with the recorded settings.
+     * @return the session, or null if it could not be started
+     */
+    private GameSession open(InputLog.Settings settings, Path dir, InputLog.Player input, PrintStream out,
+                             boolean journal, boolean resume) {
+        if (!resume && !GameSession.prepareSessionDir(roomsDir, dir.toString())) {
+            return null;
+        }
+        GameSession session = new GameSession(roomsDir, dir.toString(), input, out);
+        session.setChunking(settings.chunkedBytes, settings.residentChunks);
+        if (journal && !session.enableJournal(JOURNAL_BYTES, !resume)) {
+            return null;
+        }
+        boolean ready = resume ? session.resume() : session.start(settings.startRoom);
+        if (!ready) {
+            System.out.println("[ERROR] Could not " + (resume ? "resume the session" : "load " + settings.startRoom) + ".");
+            return null;
+        }
+        if (settings.monsters) {
+            session.enableMonsters(settings.radius, settings.budget);
+        }
+        return session;
+    }
+
+    /**
+     * Compares a session's end state with the recorded one.
+     */
+    private void check(InputLog.Record end, GameSession session) {
+        if (lastHash == end.getStateHash() && session.getTurns() == end.getTurns()) {
+            verified++;
+            return;
+        }
+        mismatches++;
+        System.out.printf("[ERROR] Session %d ended differently: recorded %d turns, hash %016x; replayed %d turns, hash %016x%n",
+                sessions, end.getTurns(), end.getStateHash(), session.getTurns(), lastHash);
+    }
+
+    /**
+     * Prints the outcome and throughput.
+     */
+    private void report(InputLog log, long bestNanos, long totalNanos) {
+        double seconds = bestNanos / 1e9;
+        System.out.println("=== Replay ===");
+        System.out.println("Log: " + logPath + " (" + log.getInputCount() + " inputs, start " + log.getSettings().startRoom
+                + ", monsters " + (log.getSettings().monsters ? "on" : "off") + ")");
+        System.out.println("Sessions: " + sessions + " | Turns: " + turns);
+        System.out.printf("Final state hash: %016x%n", lastHash);
+        System.out.printf("Elapsed: %.3f s (best of %d, avg %.3f s)%n", seconds, repeat, totalNanos / 1e9 / repeat);
+        System.out.printf("Throughput: %.1f turns/s%n", turns / seconds);
+        if (mismatches > 0) {
+            System.out.println("Result: MISMATCH (" + mismatches + " of " + (verified + mismatches) + " sessions)");
+        } else if (verified > 0) {
+            System.out.println("Result: OK (" + verified + (verified == 1 ? " session" : " sessions") + " verified)");
+        } else {
+            System.out.println("Result: not verified (the log has no recorded end state)");
+        }
+    }
+}
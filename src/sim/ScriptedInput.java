@@ -0,0 +1,48 @@
+package sim;
+
+import model.InputSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * InputSource that replays a fixed sequence of tokens, exactly as a player
+ * would type them: commands and prompt answers share one stream.
+ * Example script: "r r d a y l" (move, move, move, attack, confirm, move).
+ */
+public class ScriptedInput implements InputSource {
+    private final List<String> tokens;
+    private int next = 0;
+
+    /**
+     * Creates a scripted input from a list of tokens.
+     * @param tokens commands and answers in the order they will be read
+     */
+    public ScriptedInput(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a whitespace-separated script.
+     * @param script the script text
+     * @return a scripted input reading the script's tokens
+     */
+    public static ScriptedInput parse(String script) {
+        String trimmed = script.trim();
+        if (trimmed.isEmpty()) {
+            return new ScriptedInput(new ArrayList<>());
+        }
+        return new ScriptedInput(Arrays.asList(trimmed.split("\\s+")));
+    }
+
+    @Override
+    public String nextCommand() {
+        return next < tokens.size() ? tokens.get(next++) : null;
+    }
+
+    @Override
+    public String answer(Prompt prompt) {
+        return nextCommand();
+    }
+}
@@ -0,0 +1,76 @@
+package tools;
+
+import model.Room;
+
+import java.io.File;
+
+/**
+ * Converts every room in a directory between the CSV and binary formats.
+ * CSV stays the authoring format; binary files load and save faster.
+ * Chunk files are the paged form used by chunked storage; building them ahead of time
+ * spares the first session that opens a large room the conversion.
+ *
+ * Usage:
+ *   java tools.RoomConverter to-binary [DIR]   (room*.csv  -> room*.room, default DIR: rooms)
+ *   java tools.RoomConverter to-csv [DIR]      (room*.room -> room*.csv)
+ *   java tools.RoomConverter to-chunks [DIR]   (room*.csv  -> room*.chunks)
+ */
+public class RoomConverter {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !(args[0].equals("to-binary") || args[0].equals("to-csv") || args[0].equals("to-chunks"))) {
+            System.out.println("Usage: java tools.RoomConverter to-binary|to-csv|to-chunks [DIR]");
+            return;
+        }
+        boolean toBinary = args[0].equals("to-binary");
+        boolean toChunks = args[0].equals("to-chunks");
+        File dir = new File(args.length > 1 ? args[1] : "rooms");
+
+        File[] files = dir.listFiles((d, name) -> name.endsWith(toBinary || toChunks ? ".csv" : ".room"));
+        if (files == null) {
+            System.out.println("[ERROR] Not a directory: " + dir);
+            return;
+        }
+
+        int converted = 0;
+        for (File file : files) {
+            boolean done = toChunks ? convertToChunks(file) : toBinary ? convertToBinary(file) : convertToCSV(file);
+            if (done) {
+                converted++;
+            }
+        }
+        System.out.println("Converted " + converted + " of " + files.length + " rooms in " + dir);
+    }
+
+    /**
+     * Converts one CSV room to a binary file next to it.
+     */
+    private static boolean convertToBinary(File csv) {
+        Room room = Room.loadFromCSV(csv.getPath(), Room.Storage.PACKED);
+        if (room == null) {
+            return false;
+        }
+        room.saveToBinary(Room.binaryPathFor(csv.getPath()));
+        return true;
+    }
+
+    /**
+     * Builds the chunk file for one CSV room next to it.
+     */
+    private static boolean convertToChunks(File csv) {
+        return Room.buildChunks(csv.getPath());
+    }
+
+    /**
+     * Converts one binary room to a CSV file next to it.
+     */
+    private static boolean convertToCSV(File binary) {
+        Room room = Room.loadFromBinary(binary.getPath(), Room.Storage.PACKED);
+        if (room == null) {
+            return false;
+        }
+        String path = binary.getPath();
+        room.saveToCSV(path.substring(0, path.length() - ".room".length()) + ".csv");
+        return true;
+    }
+}
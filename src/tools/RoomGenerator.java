@@ -0,0 +1,380 @@
+package tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a seeded set of rooms in the CSV room format, for testing at scale.
+ *
+ * The rooms form one connected door graph: a random spanning tree over all rooms plus
+ * extra random connections, with every connection a pair of doors (one in each room).
+ * Every set holds exactly one Troll (whose key opens the Master Door) and one Master Door.
+ * Doors, the Troll, and the Master Door are kept off a walkable spine: row 1, every third
+ * row after it (and the last row when it is two rows past the previous spine row), and, with
+ * more than one spine row, column 0 joining them. Every other row lies next to a spine row, so
+ * every tile off the spine, fixed or not, touches the spine, and the walkable tiles of a room
+ * are 4-connected. From the tile the hero enters on, (1,1), every door, the Troll, and the
+ * Master Door can be reached, and so every room, the Troll, and the Master Door are reachable
+ * from room1.csv (see tools.WorldAnalyzer). The random monsters and items on the way are
+ * walked over or fought, never walls, and (1,1) is always left empty.
+ * Sizes are drawn log-uniformly between the minimum and maximum, so most rooms are small
+ * and a few are very large.
+ *
+ * The layout is planned on one thread; the rooms are then written in parallel, largest
+ * first. Each room's tiles come from its own seed, so the output depends only on the
+ * options and never on the number of threads.
+ *
+ * Usage:
+ *   java tools.RoomGenerator [--out DIR] [--rooms N] [--min-size N] [--max-size N]
+ *                            [--monsters F] [--items F] [--extra-doors F] [--seed N] [--threads N]
+ *
+ *   --out          directory to create the rooms in; must not hold rooms yet (default: generated)
+ *   --rooms        number of rooms (default 100)
+ *   --min-size     smallest number of rows or columns (default 5)
+ *   --max-size     largest number of rows or columns (default 64, at most 10000)
+ *   --monsters     fraction of tiles holding a monster (default 0.02)
+ *   --items        fraction of tiles holding a weapon or potion (default 0.02)
+ *   --extra-doors  connections per room beyond the spanning tree (default 0.5)
+ */
+public class RoomGenerator {
+    private static final int MIN_SIZE = 2;      // A 2x2 room fits the hero and two doors
+    private static final int MAX_SIZE = 10_000;
+    private static final String[] MONSTERS = { "G", "G:2", "O", "O:5" }; // The one Troll is planned
+    private static final String[] ITEMS = { "S", "W", "X", "m", "B" };
+
+    private Path outDir = Paths.get("generated");
+    private int roomCount = 100;
+    private int minSize = 5;
+    private int maxSize = 64;
+    private double monsterDensity = 0.02;
+    private double itemDensity = 0.02;
+    private double extraDoors = 0.5;
+    private long seed = 42;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Layout of one room: its size and the fixed tiles (doors, the Troll, the Master Door).
+     * Fixed tokens go on slots: tiles of the rows off the spine, from column 0, or from
+     * column 1 when column 0 joins several spine rows.
+     */
+    private static class Plan {
+        final int index; // 0-based; the file is room(index + 1).csv
+        final int rows;
+        final int cols;
+        final long capacity; // Number of slots, and so of fixed tokens the room can hold
+        final List<String> fixed = new ArrayList<>(); // Tokens placed on distinct random slots
+
+        Plan(int index, int rows, int cols) {
+            this.index = index;
+            this.rows = rows;
+            this.cols = cols;
+            this.capacity = (long) slotRows().length * (cols - slotColStart());
+        }
+
+        /** Checks whether a row is kept walkable from one side of the room to the other. */
+        boolean isSpine(int row) {
+            return row % 3 == 1 || (row == rows - 1 && row % 3 == 0 && row > 0);
+        }
+
+        /** Returns the rows off the spine, in order. */
+        int[] slotRows() {
+            int[] slotRows = new int[rows];
+            int count = 0;
+            for (int r = 0; r < rows; r++) {
+                if (!isSpine(r)) {
+                    slotRows[count++] = r;
+                }
+            }
+            return Arrays.copyOf(slotRows, count);
+        }
+
+        /** First column of the slots: column 0 is part of the spine once there are two spine rows. */
+        int slotColStart() {
+            return (rows >= 4) ? 1 : 0;
+        }
+
+        /** Slots still free for fixed tokens. */
+        boolean hasRoom() {
+            return fixed.size() < capacity;
+        }
+    }
+
+    public static void main(String[] args) {
+        RoomGenerator generator = new RoomGenerator();
+        try {
+            generator.parseArgs(args);
+            generator.run();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out": outDir = Paths.get(value); break;
+                case "--rooms": roomCount = Integer.parseInt(value); break;
+                case "--min-size": minSize = Integer.parseInt(value); break;
+                case "--max-size": maxSize = Integer.parseInt(value); break;
+                case "--monsters": monsterDensity = Double.parseDouble(value); break;
+                case "--items": itemDensity = Double.parseDouble(value); break;
+                case "--extra-doors": extraDoors = Double.parseDouble(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (roomCount < 1) {
+            throw new IllegalArgumentException("--rooms must be at least 1.");
+        }
+        if (minSize < MIN_SIZE || maxSize > MAX_SIZE || minSize > maxSize) {
+            throw new IllegalArgumentException("Room sizes must satisfy " + MIN_SIZE
+                    + " <= min-size <= max-size <= " + MAX_SIZE + ".");
+        }
+        if (monsterDensity < 0 || itemDensity < 0 || monsterDensity + itemDensity > 0.9) {
+            throw new IllegalArgumentException("Monster and item densities must be non-negative and add up to at most 0.9.");
+        }
+        if (extraDoors < 0 || threads < 1) {
+            throw new IllegalArgumentException("--extra-doors must be non-negative and --threads positive.");
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        String[] existing = outDir.toFile().list((dir, name) -> name.endsWith(".csv") || name.endsWith(".room"));
+        if (existing != null && existing.length > 0) {
+            throw new IOException("'" + outDir + "' already holds rooms. Please choose an empty directory.");
+        }
+
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        Plan[] plans = plan(random);
+
+        // Write the largest rooms first so one big room does not finish last on its own
+        Plan[] order = plans.clone();
+        Arrays.sort(order, Comparator.comparingLong((Plan p) -> (long) p.rows * p.cols).reversed());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        for (Plan plan : order) {
+            results.add(pool.submit(() -> write(plan)));
+        }
+        long bytes = 0;
+        try {
+            for (Future<Long> result : results) {
+                bytes += result.get();
+            }
+        } catch (Exception e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            throw new IOException("Could not write rooms: " + cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long tiles = 0;
+        int doors = 0;
+        for (Plan plan : plans) {
+            tiles += (long) plan.rows * plan.cols;
+            doors += plan.fixed.size();
+        }
+        System.out.printf("Generated %d rooms in %s: %d tiles, %d doors and specials, %.1f MB in %d ms (%d threads)%n",
+                plans.length, outDir, tiles, doors, bytes / 1e6, (System.nanoTime() - start) / 1_000_000, threads);
+    }
+
+    // === Layout ===
+
+    /**
+     * Chooses room sizes, places the Troll and the Master Door, and connects all rooms.
+     */
+    private Plan[] plan(Random random) {
+        Plan[] plans = new Plan[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            plans[i] = new Plan(i, size(random), size(random));
+        }
+
+        // Spanning tree, so all rooms are reachable from room1: rooms are linked in order of
+        // capacity, each to a random room linked before it, so the smallest rooms end up as leaves
+        Plan[] bySize = plans.clone();
+        Arrays.sort(bySize, Comparator.comparingLong((Plan p) -> p.capacity).reversed());
+        for (int i = 1; i < roomCount; i++) {
+            int parent = random.nextInt(i);
+            for (int tried = 1; !bySize[parent].hasRoom(); tried++) {
+                if (tried == i) {
+                    throw new IllegalStateException("Rooms are too small for their doors; raise --min-size.");
+                }
+                parent = (parent + 1) % i;
+            }
+            connect(bySize[i], bySize[parent]);
+        }
+
+        // The Troll and the Master Door go into rooms other than the first where possible
+        place(plans, "T", random);
+        place(plans, "D", random);
+
+        // Extra connections, skipped when either room is full
+        long extra = Math.round(extraDoors * roomCount);
+        for (long e = 0; e < extra && roomCount > 1; e++) {
+            Plan a = plans[random.nextInt(roomCount)];
+            Plan b = plans[random.nextInt(roomCount)];
+            if (a != b && a.hasRoom() && b.hasRoom()) {
+                connect(a, b);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * Puts a token into a random room with a free slot, other than room1 if any other has one.
+     */
+    private void place(Plan[] plans, String token, Random random) {
+        int others = roomCount - 1;
+        int first = (others > 0) ? random.nextInt(others) : 0;
+        for (int tried = 0; tried < others; tried++) {
+            Plan plan = plans[1 + (first + tried) % others];
+            if (plan.hasRoom()) {
+                plan.fixed.add(token);
+                return;
+            }
+        }
+        if (!plans[0].hasRoom()) {
+            throw new IllegalStateException("Rooms are too small for the Troll and the Master Door; raise --min-size.");
+        }
+        plans[0].fixed.add(token);
+    }
+
+    /**
+     * Returns a size between minSize and maxSize, drawn log-uniformly.
+     */
+    private int size(Random random) {
+        double log = Math.log(minSize) + random.nextDouble() * (Math.log(maxSize + 1) - Math.log(minSize));
+        return Math.min(maxSize, (int) Math.exp(log));
+    }
+
+    private static void connect(Plan a, Plan b) {
+        a.fixed.add("d:" + fileName(b.index));
+        b.fixed.add("d:" + fileName(a.index));
+    }
+
+    private static String fileName(int index) {
+        return "room" + (index + 1) + ".csv";
+    }
+
+    // === Writing ===
+
+    /**
+     * Writes one room file.
+     * @return the number of bytes written
+     */
+    private long write(Plan plan) throws IOException {
+        Random random = new Random(seed * 0x9E3779B97F4A7C15L + plan.index);
+
+        // Distinct slots for the fixed tokens, sorted so they are met in writing order
+        Set<Integer> taken = new HashSet<>();
+        int[] slotRows = plan.slotRows();
+        int colStart = plan.slotColStart();
+        int slotCols = plan.cols - colStart;
+        int slots = slotRows.length * slotCols;
+        int[] fixedTiles = new int[plan.fixed.size()];
+        for (int i = 0; i < fixedTiles.length; i++) {
+            int slot;
+            do {
+                slot = random.nextInt(slots);
+            } while (!taken.add(slot));
+            fixedTiles[i] = slotRows[slot / slotCols] * plan.cols + colStart + slot % slotCols;
+        }
+        Integer[] order = new Integer[fixedTiles.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> fixedTiles[i]));
+
+        byte[][] monsters = tokens(MONSTERS);
+        byte[][] items = tokens(ITEMS);
+        File file = outDir.resolve(fileName(plan.index)).toFile();
+        CountingStream counter = new CountingStream(Files.newOutputStream(file.toPath()));
+        try (OutputStream out = new BufferedOutputStream(counter, 1 << 16)) {
+            out.write((plan.rows + "," + plan.cols + "\n").getBytes(StandardCharsets.UTF_8));
+            int next = 0; // Next fixed token in tile order
+            int heroTile = plan.cols + 1; // (1,1), where Room.placeHero puts the hero
+            for (int r = 0, tile = 0; r < plan.rows; r++) {
+                for (int c = 0; c < plan.cols; c++, tile++) {
+                    if (c > 0) {
+                        out.write(',');
+                    }
+                    double roll = random.nextDouble();
+                    if (next < order.length && fixedTiles[order[next]] == tile) {
+                        out.write(plan.fixed.get(order[next++]).getBytes(StandardCharsets.UTF_8));
+                    } else if (tile == heroTile) {
+                        out.write(' ');
+                    } else if (roll < monsterDensity) {
+                        out.write(monsters[random.nextInt(monsters.length)]);
+                    } else if (roll < monsterDensity + itemDensity) {
+                        out.write(items[random.nextInt(items.length)]);
+                    } else {
+                        out.write(' ');
+                    }
+                }
+                out.write('\n');
+            }
+        }
+        return counter.count;
+    }
+
+    private static byte[][] tokens(String[] symbols) {
+        byte[][] tokens = new byte[symbols.length][];
+        for (int i = 0; i < symbols.length; i++) {
+            tokens[i] = symbols[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return tokens;
+    }
+
+    /**
+     * Counts the bytes passed through to a file.
+     */
+    private static class CountingStream extends OutputStream {
+        private final OutputStream out;
+        long count;
+
+        CountingStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
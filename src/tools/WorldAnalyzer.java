@@ -0,0 +1,497 @@
+package tools;
+
+import model.Door;
+import model.GameObject;
+import model.GameObjectFactory;
+import model.Hero;
+import model.Key;
+import model.Monster;
+import util.CSVTokenReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks whether a set of room CSV files can be won, without playing it.
+ *
+ * Every room is read once, in parallel. For each room the analyzer finds the tile the hero
+ * first appears on (as Room.placeHero picks it: the first '@', else (1,1) if empty, else the
+ * first empty tile) and flood-fills the tiles the hero can walk to from there, one row span at
+ * a time over bitsets. Doors cannot be walked over, since stepping on one leaves the room;
+ * monsters and items can, so the analysis assumes every fight is won. Coming back to a room puts
+ * the hero next to the door it left by, inside the same area, so this area is all of the room
+ * the hero can ever reach.
+ *
+ * The doors next to a room's area are its live doors, and they form the door graph. The world is
+ * winnable when a key (a '*', or a Troll, which drops one) lies in the area of a room reachable
+ * from the start room, and a room with a live Master Door can be reached from there.
+ *
+ * Reported besides the verdict: orphan rooms (not reachable from the start room) and dead doors
+ * (walled off by other doors, or leading to a room that is missing or has no tile to stand on).
+ * Door targets are matched by file name within the rooms directory.
+ *
+ * Usage:
+ *   java tools.WorldAnalyzer [--rooms DIR] [--start FILE] [--threads N] [--list N]
+ *
+ *   --rooms    directory holding the room CSV files (default: rooms)
+ *   --start    room the hero starts in (default room1.csv)
+ *   --list     most orphan rooms and dead doors printed (default 20)
+ */
+public class WorldAnalyzer {
+    private String roomsDir = "rooms";
+    private String startRoom = "room1.csv";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int listLimit = 20;
+
+    /**
+     * A door found in a room.
+     */
+    private static class DoorInfo {
+        final int row;
+        final int col;
+        final String target; // File name of the room behind it, or null for the Master Door
+        boolean live;        // Next to the area the hero can reach
+
+        DoorInfo(int row, int col, String target) {
+            this.row = row;
+            this.col = col;
+            this.target = target;
+        }
+    }
+
+    /**
+     * What one room contributes to the world: its live doors, and whether a key or a usable
+     * Master Door lies within reach inside it.
+     */
+    private static class RoomInfo {
+        final String name;
+        String error;      // Why the room could not be read, or null
+        int rows;
+        int cols;
+        int entry = -1;    // Tile the hero first appears on, or -1 if none is free
+        long reachable;    // Tiles in the hero's area
+        boolean key;       // A key or a Troll in the area
+        boolean master;    // A live Master Door
+        final List<DoorInfo> doors = new ArrayList<>();
+
+        RoomInfo(String name) {
+            this.name = name;
+        }
+
+        boolean enterable() {
+            return error == null && entry >= 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        WorldAnalyzer analyzer = new WorldAnalyzer();
+        try {
+            analyzer.parseArgs(args);
+            analyzer.run();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[ERROR] " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads command-line options.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rooms": roomsDir = value; break;
+                case "--start": startRoom = value; break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--list": listLimit = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be positive.");
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        File[] files = new File(roomsDir).listFiles((dir, name) -> name.endsWith(".csv"));
+        if (files == null || files.length == 0) {
+            throw new IOException("No room files found in '" + roomsDir + "'.");
+        }
+        long start = System.nanoTime();
+
+        // Read the largest rooms first so one big room does not finish last on its own
+        File[] order = files.clone();
+        Arrays.sort(order, Comparator.comparingLong(File::length).reversed());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<RoomInfo>> results = new ArrayList<>();
+        for (File file : order) {
+            results.add(pool.submit(() -> analyze(file)));
+        }
+        Map<String, RoomInfo> rooms = new LinkedHashMap<>();
+        try {
+            for (Future<RoomInfo> result : results) {
+                RoomInfo info = result.get();
+                rooms.put(info.name, info);
+            }
+        } catch (Exception e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            throw new IOException("Could not analyze rooms: " + cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long tiles = 0;
+        for (RoomInfo info : rooms.values()) {
+            tiles += (long) info.rows * info.cols;
+        }
+        System.out.printf("Analyzed %d rooms (%d tiles) in %d ms on %d threads%n",
+                rooms.size(), tiles, (System.nanoTime() - start) / 1_000_000, threads);
+        report(rooms);
+    }
+
+    // === World ===
+
+    /**
+     * Puts the rooms together through their live doors and prints the verdict and problems.
+     */
+    private void report(Map<String, RoomInfo> rooms) {
+        RoomInfo first = rooms.get(startRoom);
+        Set<String> reachable = (first != null && first.enterable()) ? reach(rooms, List.of(startRoom)) : Set.of();
+
+        List<String> keyRooms = new ArrayList<>();
+        for (String name : reachable) {
+            if (rooms.get(name).key) {
+                keyRooms.add(name);
+            }
+        }
+        int masterRooms = 0;
+        boolean winnable = false;
+        for (String name : reach(rooms, keyRooms)) {
+            if (rooms.get(name).master) {
+                masterRooms++;
+                winnable = true;
+            }
+        }
+
+        System.out.println("Reachable from " + startRoom + ": " + reachable.size() + " of " + rooms.size() + " rooms");
+        System.out.println("Rooms with a reachable key: " + keyRooms.size()
+                + " | Rooms with a Master Door reachable with a key: " + masterRooms);
+        if (first == null) {
+            System.out.println("Result: UNWINNABLE (start room " + startRoom + " is missing)");
+        } else if (!first.enterable()) {
+            System.out.println("Result: UNWINNABLE (start room " + startRoom + " " + whyNotEnterable(first) + ")");
+        } else if (keyRooms.isEmpty()) {
+            System.out.println("Result: UNWINNABLE (no key or Troll can be reached)");
+        } else if (!winnable) {
+            System.out.println("Result: UNWINNABLE (no Master Door can be reached after finding a key)");
+        } else {
+            System.out.println("Result: winnable");
+        }
+
+        // Rooms the hero can never enter
+        Set<String> targeted = new HashSet<>();
+        for (RoomInfo info : rooms.values()) {
+            for (DoorInfo door : info.doors) {
+                if (door.target != null) {
+                    targeted.add(door.target);
+                }
+            }
+        }
+        List<String> orphans = new ArrayList<>();
+        for (RoomInfo info : sorted(rooms)) {
+            if (!reachable.contains(info.name)) {
+                orphans.add(info.name + (info.error != null ? " (unreadable: " + info.error + ")"
+                        : !targeted.contains(info.name) ? " (no door leads here)" : " (only behind unreachable or dead doors)"));
+            }
+        }
+        printList("Orphan rooms", orphans);
+
+        // Doors that can never take the hero anywhere
+        List<String> dead = new ArrayList<>();
+        for (RoomInfo info : sorted(rooms)) {
+            for (DoorInfo door : info.doors) {
+                String where = info.name + " (" + door.row + "," + door.col + ") -> "
+                        + (door.target != null ? door.target : "Master Door") + ": ";
+                RoomInfo target = (door.target != null) ? rooms.get(door.target) : null;
+                if (!door.live && info.enterable()) {
+                    dead.add(where + "walled off by other doors");
+                } else if (door.target != null && target == null) {
+                    dead.add(where + "target room is missing");
+                } else if (target != null && !target.enterable()) {
+                    dead.add(where + "target room " + whyNotEnterable(target));
+                }
+            }
+        }
+        printList("Dead doors", dead);
+    }
+
+    /**
+     * Returns the rooms reachable from the given ones through live doors into enterable rooms.
+     */
+    private static Set<String> reach(Map<String, RoomInfo> rooms, List<String> from) {
+        Set<String> seen = new HashSet<>(from);
+        Deque<String> queue = new ArrayDeque<>(from);
+        while (!queue.isEmpty()) {
+            RoomInfo info = rooms.get(queue.poll());
+            for (DoorInfo door : info.doors) {
+                RoomInfo target = (door.live && door.target != null) ? rooms.get(door.target) : null;
+                if (target != null && target.enterable() && seen.add(target.name)) {
+                    queue.add(target.name);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static String whyNotEnterable(RoomInfo info) {
+        return (info.error != null) ? "is unreadable: " + info.error : "has no free tile for the hero";
+    }
+
+    private static List<RoomInfo> sorted(Map<String, RoomInfo> rooms) {
+        List<RoomInfo> list = new ArrayList<>(rooms.values());
+        list.sort(Comparator.comparing((RoomInfo info) -> info.name.length()).thenComparing(info -> info.name));
+        return list;
+    }
+
+    private void printList(String title, List<String> entries) {
+        System.out.println(title + ": " + entries.size());
+        for (int i = 0; i < entries.size() && i < listLimit; i++) {
+            System.out.println("  " + entries.get(i));
+        }
+        if (entries.size() > listLimit) {
+            System.out.println("  ... and " + (entries.size() - listLimit) + " more");
+        }
+    }
+
+    // === Rooms ===
+
+    /**
+     * Reads one room and flood-fills the area the hero can reach in it.
+     * A room that cannot be read is returned with its error set.
+     */
+    private static RoomInfo analyze(File file) {
+        RoomInfo info = new RoomInfo(file.getName());
+        try (CSVTokenReader in = new CSVTokenReader(new FileInputStream(file))) {
+            if (!in.next()) throw new IOException("missing size line");
+            int rows = in.parseInt();
+            if (in.isEndOfLine() || !in.next()) throw new IOException("missing column count");
+            int cols = in.parseInt();
+            in.skipLine();
+            if ((long) rows * cols > Integer.MAX_VALUE) throw new IOException("room is too large");
+            info.rows = rows;
+            info.cols = cols;
+
+            TileBits walkable = new TileBits(rows, cols);
+            List<Integer> keys = new ArrayList<>(); // Keys and Trolls
+            int spawn = -1;
+            int firstEmpty = -1;
+            boolean oneOneEmpty = false;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (!in.next() || (in.isEndOfLine() && c < cols - 1)) {
+                        throw new IOException("row " + (r + 1) + " has fewer than " + cols + " cells");
+                    }
+                    GameObject obj = GameObjectFactory.createFromSymbol(in.bytes(), in.length());
+                    int tile = r * cols + c;
+                    if (obj instanceof Door) {
+                        Door door = (Door) obj;
+                        info.doors.add(new DoorInfo(r, c, door.requiresKey() ? null
+                                : Paths.get(door.getTargetRoomFilename()).getFileName().toString()));
+                        continue;
+                    }
+                    walkable.set(r, c);
+                    if (obj == null) {
+                        firstEmpty = (firstEmpty < 0) ? tile : firstEmpty;
+                        oneOneEmpty |= (r == 1 && c == 1);
+                    } else if (obj instanceof Hero) {
+                        spawn = (spawn < 0) ? tile : spawn;
+                    } else if (obj instanceof Key || (obj instanceof Monster && ((Monster) obj).getType() == 'T')) {
+                        keys.add(tile);
+                    }
+                }
+                in.skipLine(); // Ignore any extra cells
+            }
+
+            // Where Room.placeHero puts a hero entering for the first time
+            info.entry = (spawn >= 0) ? spawn : (oneOneEmpty && rows > 1 && cols > 1) ? cols + 1 : firstEmpty;
+            if (info.entry < 0) {
+                return info;
+            }
+
+            TileBits open = walkable.copy();
+            info.reachable = open.fill(info.entry / cols, info.entry % cols);
+            for (int tile : keys) {
+                info.key |= reached(walkable, open, tile / cols, tile % cols);
+            }
+            for (DoorInfo door : info.doors) {
+                door.live = reached(walkable, open, door.row - 1, door.col) || reached(walkable, open, door.row + 1, door.col)
+                        || reached(walkable, open, door.row, door.col - 1) || reached(walkable, open, door.row, door.col + 1);
+                info.master |= door.live && door.target == null;
+            }
+        } catch (IOException | RuntimeException e) {
+            info.error = e.getMessage();
+        }
+        return info;
+    }
+
+    /**
+     * Checks whether a tile is in the filled area: walkable, and no longer open after the fill.
+     */
+    private static boolean reached(TileBits walkable, TileBits open, int row, int col) {
+        return row >= 0 && row < walkable.rows && col >= 0 && col < walkable.cols
+                && walkable.get(row, col) && !open.get(row, col);
+    }
+
+    /**
+     * One bit per tile, each row starting on a fresh word so row spans are found a word at a time.
+     */
+    static class TileBits {
+        final int rows;
+        final int cols;
+        private final int wordsPerRow;
+        private final long[] words;
+
+        TileBits(int rows, int cols) {
+            this(rows, cols, new long[rows * ((cols + 63) >> 6)]);
+        }
+
+        private TileBits(int rows, int cols, long[] words) {
+            this.rows = rows;
+            this.cols = cols;
+            this.wordsPerRow = (cols + 63) >> 6;
+            this.words = words;
+        }
+
+        TileBits copy() {
+            return new TileBits(rows, cols, words.clone());
+        }
+
+        boolean get(int row, int col) {
+            return (words[row * wordsPerRow + (col >> 6)] & (1L << col)) != 0;
+        }
+
+        void set(int row, int col) {
+            words[row * wordsPerRow + (col >> 6)] |= 1L << col;
+        }
+
+        /**
+         * Clears columns from..to (inclusive) of a row.
+         */
+        void clear(int row, int from, int to) {
+            int base = row * wordsPerRow;
+            for (int w = from >> 6; w <= to >> 6; w++) {
+                long mask = -1L;
+                if (w == from >> 6) mask &= -1L << from;
+                if (w == to >> 6) mask &= -1L >>> (63 - (to & 63));
+                words[base + w] &= ~mask;
+            }
+        }
+
+        /**
+         * Returns the first set column in from..to of a row, or -1.
+         */
+        int nextSet(int row, int from, int to) {
+            int base = row * wordsPerRow;
+            int w = from >> 6;
+            long word = words[base + w] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    int col = (w << 6) + Long.numberOfTrailingZeros(word);
+                    return (col <= to) ? col : -1;
+                }
+                if (++w > to >> 6) {
+                    return -1;
+                }
+                word = words[base + w];
+            }
+        }
+
+        /**
+         * Returns the first clear column at or after from in a row, or cols if there is none.
+         */
+        int nextClear(int row, int from) {
+            int base = row * wordsPerRow;
+            int w = from >> 6;
+            long word = ~words[base + w] & (-1L << from);
+            while (word == 0) {
+                if (++w == wordsPerRow) {
+                    return cols;
+                }
+                word = ~words[base + w];
+            }
+            return Math.min(cols, (w << 6) + Long.numberOfTrailingZeros(word));
+        }
+
+        /**
+         * Returns the last clear column at or before from in a row, or -1 if there is none.
+         */
+        int previousClear(int row, int from) {
+            int base = row * wordsPerRow;
+            int w = from >> 6;
+            long word = ~words[base + w] & (-1L >>> (63 - (from & 63)));
+            while (word == 0) {
+                if (--w < 0) {
+                    return -1;
+                }
+                word = ~words[base + w];
+            }
+            return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+        }
+
+        /**
+         * Clears the 4-connected area of set bits around a tile, a row span at a time:
+         * each span is cleared whole, and one seed is pushed for every span of set bits
+         * touching it in the rows above and below.
+         * @return the number of tiles cleared
+         */
+        long fill(int row, int col) {
+            long count = 0;
+            long[] stack = new long[64];
+            int size = 0;
+            stack[size++] = (long) row << 32 | col;
+            while (size > 0) {
+                long seed = stack[--size];
+                int r = (int) (seed >>> 32);
+                int c = (int) seed;
+                if (!get(r, c)) {
+                    continue; // Cleared by an earlier span
+                }
+                int left = previousClear(r, c) + 1;
+                int right = nextClear(r, c) - 1;
+                clear(r, left, right);
+                count += right - left + 1;
+                for (int nr = r - 1; nr <= r + 1; nr += 2) {
+                    if (nr < 0 || nr >= rows) {
+                        continue;
+                    }
+                    for (int nc = nextSet(nr, left, right); nc >= 0; ) {
+                        if (size == stack.length) {
+                            stack = Arrays.copyOf(stack, size * 2);
+                        }
+                        stack[size++] = (long) nr << 32 | nc;
+                        int end = nextClear(nr, nc);
+                        nc = (end <= right) ? nextSet(nr, end, right) : -1;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming CSV tokenizer that reads cells straight from a byte stream.
+ * Each call to next() moves to the following cell and keeps its trimmed bytes
+ * in a reused buffer, so reading a file does not build lines, arrays, or strings.
+ */
+public class CSVTokenReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Shared strings for one-byte ASCII tokens (e.g., "G", "W", "@")
+    private static final String[] SINGLE = new String[128];
+    static {
+        for (int i = 0; i < SINGLE.length; i++) {
+            SINGLE[i] = String.valueOf((char) i);
+        }
+    }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+
+    private byte[] token = new byte[64];
+    private int length = 0;          // Length of the current trimmed token
+    private boolean endOfLine = true; // Whether the current token ended its line
+    private boolean eof = false;
+
+    /**
+     * Creates a reader over a byte stream.
+     * @param in the stream (closed by close())
+     */
+    public CSVTokenReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next byte as 0-255, or -1 at end of input.
+     */
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++] & 0xFF; // A 0xFF byte must not read as end of input
+    }
+
+    /**
+     * Advances to the next cell.
+     * @return false if the end of input was reached before any cell
+     * @throws IOException if the stream cannot be read
+     */
+    public boolean next() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int len = 0;
+        int b;
+        boolean any = false;
+        while (true) {
+            b = read();
+            if (b == -1) {
+                eof = true;
+                break;
+            }
+            any = true;
+            if (b == ',' || b == '\n') {
+                break;
+            }
+            if (b == '\r') {
+                continue;
+            }
+            if (len == token.length) {
+                byte[] bigger = new byte[len * 2];
+                System.arraycopy(token, 0, bigger, 0, len);
+                token = bigger;
+            }
+            token[len++] = (byte) b;
+        }
+        if (!any) {
+            return false;
+        }
+        endOfLine = (b != ',');
+
+        // Trim whitespace at both ends, like String.trim()
+        int start = 0;
+        while (start < len && (token[start] & 0xFF) <= ' ') start++;
+        while (len > start && (token[len - 1] & 0xFF) <= ' ') len--;
+        if (start > 0) {
+            System.arraycopy(token, start, token, 0, len - start);
+        }
+        length = len - start;
+        return true;
+    }
+
+    /**
+     * Skips the rest of the current line.
+     * @throws IOException if the stream cannot be read
+     */
+    public void skipLine() throws IOException {
+        while (!endOfLine && next()) {
+            // Discard remaining cells
+        }
+    }
+
+    /**
+     * Checks whether the current cell was the last one on its line.
+     */
+    public boolean isEndOfLine() {
+        return endOfLine;
+    }
+
+    /**
+     * Returns the buffer holding the current trimmed cell, starting at index 0.
+     * The contents change on the next call to next().
+     */
+    public byte[] bytes() {
+        return token;
+    }
+
+    /**
+     * Returns the length of the current trimmed cell.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the current cell as a string.
+     * One-character cells return shared instances.
+     */
+    public String text() {
+        if (length == 0) {
+            return "";
+        }
+        if (length == 1 && token[0] >= 0) {
+            return SINGLE[token[0]];
+        }
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the current cell as a non-negative decimal integer.
+     * @throws NumberFormatException if the cell is not a number
+     */
+    public int parseInt() {
+        return parseDigits(token, 0, length);
+    }
+
+    /**
+     * Parses a run of ASCII digits.
+     * @throws NumberFormatException if the run is empty, has a non-digit, or overflows
+     */
+    public static int parseDigits(byte[] bytes, int off, int len) {
+        if (len <= 0) {
+            throw new NumberFormatException("Empty number");
+        }
+        long value = 0;
+        for (int i = off; i < off + len; i++) {
+            int d = bytes[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not a number: " + new String(bytes, off, len, StandardCharsets.UTF_8));
+            }
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Number too large");
+            }
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
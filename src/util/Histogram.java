@@ -0,0 +1,134 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Values below 64 get one bucket each; above that every power of two is split into
+ * 32 buckets, so any recorded value is reported within about 3% of its true value.
+ * Recording is lock-free and allocation-free, and safe from any thread.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 5;                     // 32 buckets per power of two
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_COUNT * 2;           // Values below this are exact
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB_COUNT;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one value (negative values count as zero).
+     */
+    public void record(long value) {
+        if (!Metrics.ENABLED) {
+            return;
+        }
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        total.addAndGet(value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    /**
+     * Records the nanoseconds elapsed since a System.nanoTime() reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the bucket a value falls into.
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        int top = (int) (value >>> shift);                      // SUB_COUNT .. 2 * SUB_COUNT - 1
+        return LINEAR + (shift - 1) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    /**
+     * Returns the largest value that falls into a bucket.
+     */
+    static long highestOf(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR) / SUB_COUNT + 1;
+        long top = SUB_COUNT + (bucket - LINEAR) % SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    // === Reading ===
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded values, or 0 if there are none.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count > 0 ? (double) total.get() / count : 0;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value at a percentile (e.g., 99.9), or 0 if nothing was recorded.
+     * The result is the upper end of the bucket holding that value, capped at the maximum.
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+}
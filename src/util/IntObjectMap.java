@@ -0,0 +1,153 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int keys to objects using open addressing.
+ * Avoids boxing keys and allocating an entry object per mapping,
+ * which matters for sparse per-tile tables on very large rooms.
+ *
+ * @param <V> value type
+ */
+public class IntObjectMap<V> {
+    private static final int FREE = Integer.MIN_VALUE; // Marks an unused slot (not a valid key)
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int mask;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntObjectMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map sized for the expected number of entries.
+     * @param expected expected number of entries
+     */
+    public IntObjectMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads key bits so neighbouring tile indices land in different slots.
+     */
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the value for a key.
+     * @param key the key (must not be Integer.MIN_VALUE)
+     * @return the value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates a value with a key.
+     * @param key the key (must not be Integer.MIN_VALUE)
+     * @param value the value (must not be null)
+     */
+    public void put(int key, V value) {
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes the mapping for a key.
+     * @param key the key
+     * @return the removed value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                deleteSlot(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Empties a slot and shifts back any following entries of the same probe chain.
+     */
+    private void deleteSlot(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == FREE) {
+                break;
+            }
+            int home = slot(keys[i]);
+            // Move the entry into the hole if its home slot is not between hole and i (cyclically)
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = FREE;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != FREE) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,110 @@
+package util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of counters, gauges, and latency histograms.
+ * Instrumented code looks its metrics up once (usually into a static final field) and then
+ * only increments or records, which allocates nothing. Histograms hold nanoseconds.
+ *
+ * Metrics are on unless -Dgame.metrics=false is given. When several sessions share a
+ * process (e.g., GameServer), their counters and histograms are combined.
+ */
+public final class Metrics {
+    /** Whether histograms record values (counters are always kept). */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("game.metrics", "true"));
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge, read whenever metrics are reported. Replaces a gauge of the same name.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it on first use.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, Histogram::new);
+    }
+
+    // === Reporting ===
+
+    /**
+     * Formats all metrics as a table for the "stats" command.
+     * Histogram values are shown in microseconds.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-22s %8s %10s %10s %10s %10s %10s%n",
+                "latency (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (Histogram h : new TreeMap<>(histograms).values()) {
+            long count = h.getCount();
+            if (count == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%-22s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    h.getName(), count, h.getMean() / 1000.0, h.getPercentile(50) / 1000.0,
+                    h.getPercentile(99) / 1000.0, h.getPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+        }
+        for (Map.Entry<String, LongAdder> c : new TreeMap<>(counters).entrySet()) {
+            sb.append(String.format(Locale.ROOT, "%-22s %8d%n", c.getKey(), c.getValue().sum()));
+        }
+        for (Map.Entry<String, LongSupplier> g : new TreeMap<>(gauges).entrySet()) {
+            sb.append(String.format(Locale.ROOT, "%-22s %8d%n", g.getKey(), g.getValue().getAsLong()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats all metrics as a JSON object. Histogram values are in microseconds.
+     * @param timestampMillis time of the dump
+     */
+    public static String toJson(long timestampMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"timestamp\": ").append(timestampMillis).append(",\n  \"counters\": {");
+        String sep = "\n";
+        for (Map.Entry<String, LongAdder> c : new TreeMap<>(counters).entrySet()) {
+            sb.append(sep).append("    \"").append(c.getKey()).append("\": ").append(c.getValue().sum());
+            sep = ",\n";
+        }
+        sb.append("\n  },\n  \"gauges\": {");
+        sep = "\n";
+        for (Map.Entry<String, LongSupplier> g : new TreeMap<>(gauges).entrySet()) {
+            sb.append(sep).append("    \"").append(g.getKey()).append("\": ").append(g.getValue().getAsLong());
+            sep = ",\n";
+        }
+        sb.append("\n  },\n  \"histograms\": {");
+        sep = "\n";
+        for (Histogram h : new TreeMap<>(histograms).values()) {
+            sb.append(sep).append("    \"").append(h.getName()).append("\": {")
+                    .append(String.format(Locale.ROOT, "\"count\": %d, \"mean_us\": %.2f, \"p50_us\": %.2f, \"p90_us\": %.2f, "
+                                    + "\"p99_us\": %.2f, \"p999_us\": %.2f, \"max_us\": %.2f}",
+                            h.getCount(), h.getMean() / 1000.0, h.getPercentile(50) / 1000.0,
+                            h.getPercentile(90) / 1000.0, h.getPercentile(99) / 1000.0,
+                            h.getPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+            sep = ",\n";
+        }
+        sb.append("\n  }\n}\n");
+        return sb.toString();
+    }
+}